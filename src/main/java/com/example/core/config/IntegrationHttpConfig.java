@@ -0,0 +1,138 @@
+package com.example.core.config;
+
+import com.example.core.integration.CircuitBreaker;
+import com.example.core.integration.IntegrationClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Исходящие HTTP-интеграции. У каждой интеграции свой JDK {@link HttpClient}
+ * (HTTP/2, keep-alive, собственный пул соединений) и свой {@link IntegrationClient} с bulkhead,
+ * поэтому зависание геокодера не отнимает потоки и соединения у SMS и платежей.
+ * Для геокодера и SMS включён предохранитель ({@code integration.<имя>.circuit-breaker.*}).
+ */
+@Configuration
+public class IntegrationHttpConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public IntegrationClient geocoderClient(
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${integration.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${integration.geocoder.read-timeout-ms:${integration.http.read-timeout-ms:7000}}") int readTimeoutMs,
+            @Value("${integration.geocoder.max-concurrent:8}") int maxConcurrent,
+            @Value("${integration.geocoder.queue-capacity:16}") int queueCapacity,
+            @Value("${integration.geocoder.max-retries:2}") int maxRetries,
+            @Value("${integration.geocoder.retry-backoff-ms:250}") long retryBackoffMs,
+            @Value("${integration.geocoder.call-timeout-ms:8000}") long callTimeoutMs
+    ) {
+        return integrationClient(
+                "geocoder",
+                connectTimeoutMs,
+                readTimeoutMs,
+                new IntegrationClient.Settings(maxConcurrent, queueCapacity, maxRetries, retryBackoffMs, callTimeoutMs),
+                circuitBreakerSettings(environment, "geocoder"),
+                meterRegistry
+        );
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public IntegrationClient smsClient(
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${integration.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${integration.sms.read-timeout-ms:${integration.http.read-timeout-ms:7000}}") int readTimeoutMs,
+            @Value("${integration.sms.max-concurrent:4}") int maxConcurrent,
+            @Value("${integration.sms.queue-capacity:16}") int queueCapacity,
+            @Value("${integration.sms.max-retries:2}") int maxRetries,
+            @Value("${integration.sms.retry-backoff-ms:300}") long retryBackoffMs,
+            @Value("${integration.sms.call-timeout-ms:10000}") long callTimeoutMs
+    ) {
+        return integrationClient(
+                "sms",
+                connectTimeoutMs,
+                readTimeoutMs,
+                new IntegrationClient.Settings(maxConcurrent, queueCapacity, maxRetries, retryBackoffMs, callTimeoutMs),
+                circuitBreakerSettings(environment, "sms"),
+                meterRegistry
+        );
+    }
+
+    /**
+     * Платежи не повторяются автоматически: повтор создания платежа решает вызывающий код
+     * с тем же ключом идемпотентности.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public IntegrationClient yooKassaClient(
+            MeterRegistry meterRegistry,
+            @Value("${integration.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${integration.yookassa.read-timeout-ms:${integration.http.read-timeout-ms:7000}}") int readTimeoutMs,
+            @Value("${integration.yookassa.max-concurrent:8}") int maxConcurrent,
+            @Value("${integration.yookassa.queue-capacity:32}") int queueCapacity,
+            @Value("${integration.yookassa.call-timeout-ms:10000}") long callTimeoutMs
+    ) {
+        return integrationClient(
+                "yookassa",
+                connectTimeoutMs,
+                readTimeoutMs,
+                new IntegrationClient.Settings(maxConcurrent, queueCapacity, 0, 0L, callTimeoutMs),
+                CircuitBreaker.Settings.disabled(),
+                meterRegistry
+        );
+    }
+
+    private IntegrationClient integrationClient(
+            String name,
+            int connectTimeoutMs,
+            int readTimeoutMs,
+            IntegrationClient.Settings settings,
+            CircuitBreaker.Settings circuitBreakerSettings,
+            MeterRegistry meterRegistry
+    ) {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService httpExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "http-" + name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(Math.max(500, connectTimeoutMs)))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(httpExecutor)
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient, httpExecutor);
+        requestFactory.setReadTimeout(Duration.ofMillis(Math.max(1000, readTimeoutMs)));
+        return new IntegrationClient(
+                name,
+                new RestTemplate(requestFactory),
+                settings,
+                circuitBreakerSettings,
+                meterRegistry
+        );
+    }
+
+    private CircuitBreaker.Settings circuitBreakerSettings(Environment environment, String name) {
+        String prefix = "integration." + name + ".circuit-breaker.";
+        return new CircuitBreaker.Settings(
+                environment.getProperty(prefix + "enabled", Boolean.class, true),
+                environment.getProperty(prefix + "window-size", Integer.class, 20),
+                environment.getProperty(prefix + "minimum-calls", Integer.class, 10),
+                environment.getProperty(prefix + "failure-rate-threshold", Double.class, 0.5),
+                environment.getProperty(prefix + "open-duration-ms", Long.class, 30000L),
+                environment.getProperty(prefix + "half-open-probes", Integer.class, 2)
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.core.config;
 
 import com.example.core.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -92,17 +93,23 @@ public class SecurityConfig {
                         // OPTIONS запросы (preflight) всегда разрешены
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+                        // Повторный диспатч async-ответа (SSE-лента): запрос уже авторизован при открытии,
+                        // а JWT-фильтр на async-диспатче не выполняется
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Публичные endpoints
                         .requestMatchers(
                                 "/api/auth/**",
                                 "/api/payments/webhooks/**",
-                                "/api/zones/active",
                                 "/api/orders/address/suggestions",
                                 "/static/**",
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html"
                         ).permitAll()
+
+                        // Активные зоны читаются публично, изменяются только администратором
+                        .requestMatchers(HttpMethod.GET, "/api/zones", "/api/zones/active").permitAll()
 
                         // Все остальные запросы требуют аутентификации
                         .anyRequest().authenticated()
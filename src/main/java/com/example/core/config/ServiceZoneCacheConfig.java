@@ -0,0 +1,35 @@
+package com.example.core.config;
+
+import com.example.core.service.ActiveServiceZoneCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Подписка на уведомления о смене зоны обслуживания от других узлов.
+ */
+@Configuration
+@ConditionalOnProperty(name = "service-zone.cache.pubsub-enabled", havingValue = "true", matchIfMissing = true)
+public class ServiceZoneCacheConfig {
+
+    @Bean
+    public RedisMessageListenerContainer serviceZoneListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            ActiveServiceZoneCache activeServiceZoneCache
+    ) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> activeServiceZoneCache.onInvalidationMessage(
+                        new String(message.getBody(), StandardCharsets.UTF_8)
+                ),
+                new ChannelTopic(ActiveServiceZoneCache.INVALIDATION_CHANNEL)
+        );
+        return container;
+    }
+}
@@ -3,14 +3,20 @@ package com.example.core.controller;
 import com.example.core.dto.AddressSuggestionResponse;
 import com.example.core.dto.AcceptOrderClusterRequest;
 import com.example.core.dto.AuditEventResponse;
+import com.example.core.dto.BulkCreateOrdersRequest;
+import com.example.core.dto.BulkCreateOrdersResponse;
 import com.example.core.dto.CreateOrderRequest;
 import com.example.core.dto.DispatchRecommendationResponse;
 import com.example.core.dto.OrderAdminFilter;
+import com.example.core.dto.OrderClusterAcceptResponse;
+import com.example.core.dto.OrderClusteringOptions;
 import com.example.core.dto.OrderClusteringResponse;
 import com.example.core.dto.OrderResponse;
 import com.example.core.dto.OrderStatsResponse;
+import com.example.core.dto.PageResponse;
 import com.example.core.dto.UpdateOrderStatusRequest;
 import com.example.core.mapper.EntityDtoMapper;
+import com.example.core.model.ClusteringAlgorithm;
 import com.example.core.model.Order;
 import com.example.core.model.OrderStatus;
 import com.example.core.model.NotificationType;
@@ -23,14 +29,20 @@ import com.example.core.monitoring.FlowMetricsService;
 import com.example.core.repository.OrderRepository;
 import com.example.core.repository.SubscriptionRepository;
 import com.example.core.repository.UserRepository;
+import com.example.core.service.AddressSuggestionService;
 import com.example.core.service.AuditService;
+import com.example.core.service.AvailableOrderBoard;
+import com.example.core.service.AvailableOrderStreamService;
 import com.example.core.service.GeocodingService;
 import com.example.core.service.NotificationService;
 import com.example.core.service.OperatorDashboardService;
 import com.example.core.service.OrderClusteringService;
 import com.example.core.service.OrderService;
+import com.example.core.util.AddressNormalizer;
+import com.example.core.util.GeoCells;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -39,14 +51,16 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.OffsetDateTime;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -64,6 +78,9 @@ public class OrderController {
     private final FlowMetricsService flowMetricsService;
     private final NotificationService notificationService;
     private final OrderClusteringService orderClusteringService;
+    private final AddressSuggestionService addressSuggestionService;
+    private final AvailableOrderStreamService availableOrderStreamService;
+    private final AvailableOrderBoard availableOrderBoard;
 
     public OrderController(
             OrderService orderService,
@@ -76,7 +93,10 @@ public class OrderController {
             OperatorDashboardService operatorDashboardService,
             FlowMetricsService flowMetricsService,
             NotificationService notificationService,
-            OrderClusteringService orderClusteringService
+            OrderClusteringService orderClusteringService,
+            AddressSuggestionService addressSuggestionService,
+            AvailableOrderStreamService availableOrderStreamService,
+            AvailableOrderBoard availableOrderBoard
     ) {
         this.orderService = orderService;
         this.entityDtoMapper = entityDtoMapper;
@@ -89,6 +109,9 @@ public class OrderController {
         this.flowMetricsService = flowMetricsService;
         this.notificationService = notificationService;
         this.orderClusteringService = orderClusteringService;
+        this.addressSuggestionService = addressSuggestionService;
+        this.availableOrderStreamService = availableOrderStreamService;
+        this.availableOrderBoard = availableOrderBoard;
     }
 
     @PostMapping
@@ -167,141 +190,231 @@ public class OrderController {
         }
     }
 
-    @GetMapping("/address/suggestions")
-    public ResponseEntity<List<AddressSuggestionResponse>> getAddressSuggestions(
-            @RequestParam("q") String query,
-            @RequestParam(value = "limit", defaultValue = "5") int limit
+    /**
+     * Массовое создание заказов клиента (до 5000 строк). Строки с ошибками не создаются и возвращаются
+     * с причиной, остальные создаются в одной транзакции. Адреса строк без координат геокодируются
+     * заранее одним пакетом с общим дедлайном; если геокодер недоступен, весь запрос отклоняется с 503.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createOrdersBulk(
+            @AuthenticationPrincipal User currentUser,
+            @Valid @RequestBody BulkCreateOrdersRequest request
     ) {
-        int safeLimit = normalizeSuggestionLimit(limit);
-        String cleanQuery = query == null ? "" : query.trim();
-        if (cleanQuery.length() < 3) {
-            return ResponseEntity.ok(List.of());
+        User freshUser = userRepository.findById(currentUser.getId())
+                .orElseThrow(() -> new IllegalStateException("Пользователь не найден"));
+
+        if (freshUser.getUserRole() != UserRole.CLIENT) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
+        List<String> withoutCoordinates = request.getOrders().stream()
+                .filter(item -> item != null && (item.getLat() == null || item.getLng() == null))
+                .map(CreateOrderRequest::getAddress)
+                .filter(address -> address != null && !address.isBlank())
+                .toList();
+        Map<String, ServiceZone.Coordinate> geocoded;
         try {
-            List<AddressSuggestionResponse> liveSuggestions = geocodingService.suggestAddresses(cleanQuery, safeLimit).stream()
-                    .map(item -> AddressSuggestionResponse.builder()
-                            .address(item.address())
-                            .lat(item.lat())
-                            .lng(item.lng())
-                            .build())
-                    .toList();
-
-            List<AddressSuggestionResponse> historySuggestions = orderRepository
-                    .findAddressHistorySuggestions(cleanQuery, safeLimit).stream()
-                    .map(address -> AddressSuggestionResponse.builder()
-                            .address(address)
-                            .build())
-                    .toList();
-
-            return ResponseEntity.ok(mergeAddressSuggestions(liveSuggestions, historySuggestions, safeLimit));
+            geocoded = withoutCoordinates.isEmpty() ? Map.of() : geocodingService.getCoordinatesAll(withoutCoordinates);
         } catch (IllegalArgumentException e) {
-            // Если геокодер не смог найти варианты по части строки, используем историю адресов.
-            List<AddressSuggestionResponse> fallback = orderRepository
-                    .findAddressHistorySuggestions(cleanQuery, safeLimit).stream()
-                    .map(address -> AddressSuggestionResponse.builder()
-                            .address(address)
-                            .build())
-                    .toList();
-            return ResponseEntity.ok(fallback);
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         } catch (IllegalStateException e) {
-            // Fallback на локальную историю адресов, если геокодер временно недоступен.
-            List<AddressSuggestionResponse> fallback = orderRepository
-                    .findAddressHistorySuggestions(cleanQuery, safeLimit).stream()
-                    .map(address -> AddressSuggestionResponse.builder()
-                            .address(address)
-                            .build())
-                    .toList();
-            return ResponseEntity.ok(fallback);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", e.getMessage()));
         }
-    }
-
-    private int normalizeSuggestionLimit(int limit) {
-        return Math.max(1, Math.min(limit, 10));
-    }
-
-    private List<AddressSuggestionResponse> mergeAddressSuggestions(
-            List<AddressSuggestionResponse> liveSuggestions,
-            List<AddressSuggestionResponse> historySuggestions,
-            int limit
-    ) {
-        LinkedHashMap<String, AddressSuggestionResponse> unique = new LinkedHashMap<>();
-        appendSuggestions(unique, liveSuggestions);
-        appendSuggestions(unique, historySuggestions);
-        return unique.values().stream().limit(limit).toList();
-    }
 
-    private void appendSuggestions(
-            Map<String, AddressSuggestionResponse> unique,
-            List<AddressSuggestionResponse> suggestions
-    ) {
-        for (AddressSuggestionResponse suggestion : suggestions) {
-            if (suggestion == null || suggestion.getAddress() == null) {
+        List<OrderService.OrderDraft> drafts = new ArrayList<>(request.getOrders().size());
+        for (CreateOrderRequest item : request.getOrders()) {
+            if (item == null) {
+                drafts.add(null);
                 continue;
             }
-            String key = suggestion.getAddress().trim().toLowerCase(Locale.ROOT);
-            if (key.isEmpty()) {
-                continue;
+            Double lat = item.getLat();
+            Double lng = item.getLng();
+            if (lat == null || lng == null) {
+                // Не найденный адрес получит ошибку «координаты не определены» при проверке пакета.
+                ServiceZone.Coordinate coord = geocoded.get(AddressNormalizer.normalize(item.getAddress()));
+                if (coord != null) {
+                    lat = coord.getLat();
+                    lng = coord.getLng();
+                }
             }
+            drafts.add(new OrderService.OrderDraft(
+                    item.getAddress(),
+                    item.getPickupTime(),
+                    item.getComment(),
+                    lat,
+                    lng,
+                    item.getSubscriptionId()
+            ));
+        }
 
-            AddressSuggestionResponse existing = unique.get(key);
-            if (existing == null || shouldReplaceWithGeo(existing, suggestion)) {
-                unique.put(key, suggestion);
+        try {
+            OrderService.BulkCreation creation = orderService.createOrders(freshUser, drafts);
+            List<BulkCreateOrdersResponse.Row> rows = creation.rows().stream()
+                    .map(row -> BulkCreateOrdersResponse.Row.builder()
+                            .index(row.index())
+                            .orderId(row.order() == null ? null : row.order().getId())
+                            .error(row.error())
+                            .build())
+                    .toList();
+            int created = creation.created().size();
+            for (BulkCreateOrdersResponse.Row row : rows) {
+                if (row.getOrderId() != null) {
+                    flowMetricsService.recordOrderCreateSuccess();
+                } else {
+                    flowMetricsService.recordOrderCreateFailure();
+                }
             }
+            if (created > 0) {
+                notificationService.enqueueInApp(
+                        freshUser,
+                        NotificationType.ORDER_STATUS,
+                        "Заказы созданы",
+                        "Создано заказов: " + created,
+                        null,
+                        null,
+                        "orders-bulk-" + creation.created().get(0).getId()
+                );
+            }
+            return ResponseEntity.ok(BulkCreateOrdersResponse.builder()
+                    .created(created)
+                    .failed(rows.size() - created)
+                    .rows(rows)
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
         }
     }
 
-    private boolean shouldReplaceWithGeo(AddressSuggestionResponse current, AddressSuggestionResponse candidate) {
-        return (current.getLat() == null || current.getLng() == null)
-                && candidate.getLat() != null
-                && candidate.getLng() != null;
+    @GetMapping("/address/suggestions")
+    public ResponseEntity<List<AddressSuggestionResponse>> getAddressSuggestions(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "5") int limit
+    ) {
+        return ResponseEntity.ok(addressSuggestionService.suggest(query, limit));
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> getOrders(@AuthenticationPrincipal User currentUser) {
+    public ResponseEntity<PageResponse<OrderResponse>> getOrders(
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "50") int size
+    ) {
         try {
-            List<Order> orders;
+            OrderService.OrderPage page;
             if (currentUser.getUserRole() == UserRole.CLIENT) {
-                orders = orderService.getOrdersForClient(currentUser);
+                page = orderService.getOrdersPageForClient(currentUser, cursor, size);
             } else if (currentUser.getUserRole() == UserRole.COURIER) {
-                var available = orderService.getAvailableOrdersForCourier(currentUser);
-                var ownActive = orderService.getActiveOrdersForCourier(currentUser);
-                orders = java.util.stream.Stream.concat(available.stream(), ownActive.stream())
-                        .distinct()
-                        .toList();
+                page = orderService.getOrdersPageForCourier(currentUser, cursor, size);
             } else {
-                orders = orderService.getAllOrders(currentUser);
+                page = orderService.getAllOrdersPage(currentUser, cursor, size);
             }
 
-            return ResponseEntity.ok(entityDtoMapper.toOrderResponses(orders));
+            return ResponseEntity.ok(toPageResponse(page, entityDtoMapper.toOrderResponses(page.orders())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
     }
 
+    /**
+     * С координатами курьера — ближайшие {@code limit} заказов одной страницей,
+     * без них — все свободные заказы постранично по времени вывоза. Постраничный список у всех курьеров
+     * одинаковый и отдаётся из общей доски {@link AvailableOrderBoard} готовым JSON с ETag:
+     * на {@code If-None-Match} с тем же ETag — {@code 304} без тела.
+     */
     @GetMapping("/available")
-    public ResponseEntity<List<OrderResponse>> getAvailableOrders(@AuthenticationPrincipal User currentUser) {
+    public ResponseEntity<?> getAvailableOrders(
+            @AuthenticationPrincipal User currentUser,
+            WebRequest webRequest,
+            @RequestParam(name = "lat", required = false) Double lat,
+            @RequestParam(name = "lng", required = false) Double lng,
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "50") int size
+    ) {
         if (currentUser.getUserRole() != UserRole.COURIER) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
         try {
-            List<Order> orders = orderService.getAvailableOrdersForCourier(currentUser);
-            return ResponseEntity.ok(entityDtoMapper.toOrderResponses(orders, true));
+            if (lat != null && lng != null) {
+                List<OrderService.NearestOrder> nearest = orderService.getNearestAvailableOrdersForCourier(
+                        currentUser,
+                        lat,
+                        lng,
+                        limit
+                );
+                List<OrderResponse> responses = entityDtoMapper.toOrderResponses(
+                        nearest.stream().map(OrderService.NearestOrder::order).toList(),
+                        true
+                );
+                for (int i = 0; i < responses.size(); i++) {
+                    responses.get(i).setDistanceMeters(nearest.get(i).distanceMeters());
+                }
+                return ResponseEntity.ok(PageResponse.<OrderResponse>builder()
+                        .content(responses)
+                        .size(responses.size())
+                        .first(true)
+                        .last(true)
+                        .build());
+            }
+
+            AvailableOrderBoard.Page page = availableOrderBoard.page(cursor, size);
+            if (webRequest.checkNotModified(page.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(page.etag()).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(page.etag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(page.body());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
     }
 
+    /**
+     * Лента свободных заказов (SSE): снимок, затем дельты. Браузерный EventSource при переподключении
+     * сам присылает заголовок Last-Event-ID; параметр {@code lastEventId} — для клиентов, которые не умеют заголовки.
+     */
+    @GetMapping(value = "/available/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAvailableOrders(
+            @AuthenticationPrincipal User currentUser,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(name = "lastEventId", required = false) String lastEventId
+    ) {
+        if (currentUser.getUserRole() != UserRole.COURIER) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            return ResponseEntity.ok(availableOrderStreamService.subscribe(
+                    lastEventIdHeader != null ? lastEventIdHeader : lastEventId
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     @GetMapping("/active")
-    public ResponseEntity<List<OrderResponse>> getActiveOrders(@AuthenticationPrincipal User currentUser) {
+    public ResponseEntity<PageResponse<OrderResponse>> getActiveOrders(
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "50") int size
+    ) {
         if (currentUser.getUserRole() != UserRole.COURIER) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
         try {
-            List<Order> orders = orderService.getActiveOrdersForCourier(currentUser);
-            return ResponseEntity.ok(entityDtoMapper.toOrderResponses(orders, false));
+            OrderService.OrderPage page = orderService.getActiveOrdersPageForCourier(currentUser, cursor, size);
+            return ResponseEntity.ok(toPageResponse(page, entityDtoMapper.toOrderResponses(page.orders(), false)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
@@ -331,12 +444,38 @@ public class OrderController {
             @RequestParam(name = "status", defaultValue = "PUBLISHED") OrderStatus status,
             @RequestParam(name = "onlyUnassigned", defaultValue = "true") boolean onlyUnassigned,
             @RequestParam(name = "radiusMeters", defaultValue = "50") double radiusMeters,
-            @RequestParam(name = "limit", defaultValue = "500") int limit
+            @RequestParam(name = "limit", defaultValue = "500") int limit,
+            @RequestParam(name = "algorithm", defaultValue = "CONNECTED") ClusteringAlgorithm algorithm,
+            @RequestParam(name = "minPoints", required = false) Integer minPoints,
+            @RequestParam(name = "maxOrders", required = false) Integer maxOrders,
+            @RequestParam(name = "maxDiameterMeters", required = false) Double maxDiameterMeters,
+            @RequestParam(name = "minLat", required = false) Double minLat,
+            @RequestParam(name = "maxLat", required = false) Double maxLat,
+            @RequestParam(name = "minLng", required = false) Double minLng,
+            @RequestParam(name = "maxLng", required = false) Double maxLng
     ) {
         try {
-            List<Order> orders = orderService.getOrdersForClustering(currentUser, status, onlyUnassigned, limit);
-            OrderClusteringResponse response = orderClusteringService.clusterOrders(orders, radiusMeters);
+            OrderClusteringOptions options = OrderClusteringOptions.builder()
+                    .algorithm(algorithm)
+                    .radiusMeters(radiusMeters)
+                    .minPoints(minPoints)
+                    .maxOrders(maxOrders)
+                    .maxDiameterMeters(maxDiameterMeters)
+                    .build();
+            OrderClusteringResponse response;
+            if (minLat != null && maxLat != null && minLng != null && maxLng != null) {
+                GeoCells.BoundingBox area = new GeoCells.BoundingBox(minLat, maxLat, minLng, maxLng);
+                List<Order> orders = orderService.getOrdersInArea(currentUser, status, onlyUnassigned, area, limit);
+                response = orderClusteringService.clusterOrders(orders, options);
+            } else if (status == OrderStatus.PUBLISHED && onlyUnassigned) {
+                response = orderService.getPublishedOrderClusters(currentUser, options, limit);
+            } else {
+                List<Order> orders = orderService.getOrdersForClustering(currentUser, status, onlyUnassigned, limit);
+                response = orderClusteringService.clusterOrders(orders, options);
+            }
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
         }
@@ -352,10 +491,27 @@ public class OrderController {
         }
 
         try {
+            OrderClusteringOptions options = OrderClusteringOptions.builder()
+                    .algorithm(request.getAlgorithm())
+                    .radiusMeters(request.getRadiusMeters())
+                    .maxOrders(request.getMaxOrders())
+                    .maxDiameterMeters(request.getMaxDiameterMeters())
+                    .build();
+            if (Boolean.TRUE.equals(request.getAllowPartial())) {
+                OrderService.ClusterClaim claim = orderService.acceptClusterPartiallyByCourier(
+                        currentUser,
+                        request.getOrderIds(),
+                        options
+                );
+                return ResponseEntity.ok(OrderClusterAcceptResponse.builder()
+                        .accepted(entityDtoMapper.toOrderResponses(claim.claimed(), false))
+                        .lostOrderIds(claim.lostOrderIds())
+                        .build());
+            }
             List<Order> accepted = orderService.acceptClusterByCourier(
                     currentUser,
                     request.getOrderIds(),
-                    request.getRadiusMeters()
+                    options
             );
             return ResponseEntity.ok(entityDtoMapper.toOrderResponses(accepted, false));
         } catch (IllegalArgumentException e) {
@@ -374,7 +530,8 @@ public class OrderController {
             @RequestParam(name = "clientId", required = false) Long clientId,
             @RequestParam(name = "courierId", required = false) Long courierId,
             @RequestParam(name = "onlyUnassigned", required = false) Boolean onlyUnassigned,
-            @RequestParam(name = "limit", defaultValue = "200") int limit
+            @RequestParam(name = "limit", defaultValue = "200") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
         if (currentUser.getUserRole() != UserRole.ADMIN) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -389,8 +546,10 @@ public class OrderController {
                     .courierId(courierId)
                     .onlyUnassigned(onlyUnassigned)
                     .build();
-            List<Order> orders = orderService.getFilteredOrdersForAdmin(currentUser, filter, limit);
-            return ResponseEntity.ok(entityDtoMapper.toOrderResponses(orders));
+            OrderService.OrderPage page = orderService.getFilteredOrdersForAdmin(currentUser, filter, cursor, limit);
+            return ResponseEntity.ok(toPageResponse(page, entityDtoMapper.toOrderResponses(page.orders())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
         }
@@ -422,27 +581,7 @@ public class OrderController {
             @PathVariable Long id
     ) {
         try {
-            Order order;
-            if (currentUser.getUserRole() == UserRole.CLIENT) {
-                order = orderService.getOrdersForClient(currentUser).stream()
-                        .filter(o -> o.getId().equals(id))
-                        .findFirst()
-                        .orElse(null);
-            } else if (currentUser.getUserRole() == UserRole.COURIER) {
-                order = orderService.getAvailableOrdersForCourier(currentUser).stream()
-                        .filter(o -> o.getId().equals(id))
-                        .findFirst()
-                        .orElse(null);
-                if (order == null) {
-                    order = orderService.getOrderByIdAndCourier(id, currentUser);
-                }
-            } else {
-                order = orderService.getOrderById(id);
-            }
-
-            if (order == null) {
-                return ResponseEntity.notFound().build();
-            }
+            Order order = orderService.getOrderVisibleTo(id, currentUser);
             return ResponseEntity.ok(entityDtoMapper.toOrderResponse(order));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -542,8 +681,12 @@ public class OrderController {
                 );
             }
             return ResponseEntity.ok(entityDtoMapper.toOrderResponse(order));
-        } catch (IllegalArgumentException | IllegalStateException e) {
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            // Заказ успел забрать другой курьер.
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(OrderResponse.builder().message(e.getMessage()).build());
         }
     }
 
@@ -605,6 +748,16 @@ public class OrderController {
         }
     }
 
+    private PageResponse<OrderResponse> toPageResponse(OrderService.OrderPage page, List<OrderResponse> content) {
+        return PageResponse.<OrderResponse>builder()
+                .content(content)
+                .size(page.size())
+                .first(page.first())
+                .last(page.nextCursor() == null)
+                .nextCursor(page.nextCursor())
+                .build();
+    }
+
     private boolean canAccessOrderTimeline(User user, Order order) {
         if (user == null || order == null || user.getUserRole() == null) {
             return false;
@@ -10,12 +10,16 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/zones")
 @RequiredArgsConstructor
@@ -29,6 +33,13 @@ public class ServiceZoneController {
         return ResponseEntity.ok(entityDtoMapper.toServiceZoneResponse(serviceZoneService.getActiveZone()));
     }
 
+    @GetMapping
+    public ResponseEntity<List<ServiceZoneResponse>> getActiveZones() {
+        return ResponseEntity.ok(serviceZoneService.getActiveZones().stream()
+                .map(entityDtoMapper::toServiceZoneResponse)
+                .toList());
+    }
+
     @PostMapping
     public ResponseEntity<ServiceZoneResponse> setActiveZone(
             @AuthenticationPrincipal User currentUser,
@@ -37,4 +48,22 @@ public class ServiceZoneController {
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(entityDtoMapper.toServiceZoneResponse(serviceZoneService.replaceActiveZone(currentUser, request)));
     }
+
+    @PostMapping("/active")
+    public ResponseEntity<ServiceZoneResponse> addActiveZone(
+            @AuthenticationPrincipal User currentUser,
+            @Valid @RequestBody CreateServiceZoneRequest request
+    ) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(entityDtoMapper.toServiceZoneResponse(serviceZoneService.addActiveZone(currentUser, request)));
+    }
+
+    @DeleteMapping("/{zoneId}")
+    public ResponseEntity<Void> deactivateZone(
+            @AuthenticationPrincipal User currentUser,
+            @PathVariable Long zoneId
+    ) {
+        serviceZoneService.deactivateZone(currentUser, zoneId);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.core.dto;
 
+import com.example.core.model.ClusteringAlgorithm;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Data;
 
@@ -12,4 +13,15 @@ public class AcceptOrderClusterRequest {
     private List<Long> orderIds;
 
     private Double radiusMeters;
+
+    private ClusteringAlgorithm algorithm;
+
+    private Integer maxOrders;
+
+    private Double maxDiameterMeters;
+
+    /**
+     * {@code true} — принять свободные заказы кластера, даже если часть уже забрали другие курьеры.
+     */
+    private Boolean allowPartial;
 }
@@ -0,0 +1,21 @@
+package com.example.core.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Свободный заказ в ленте курьера. В событиях о снятии заказа заполнен только {@code orderId}.
+ */
+@Value
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailableOrderEvent {
+    Long orderId;
+    String address;
+    OffsetDateTime pickupTime;
+    Double lat;
+    Double lng;
+}
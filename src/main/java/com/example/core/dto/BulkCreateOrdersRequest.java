@@ -0,0 +1,17 @@
+package com.example.core.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Запрос на массовое создание заказов. Строки проверяются по одной и не валят весь запрос:
+ * ошибки возвращаются в {@link BulkCreateOrdersResponse} с индексом строки.
+ */
+@Data
+public class BulkCreateOrdersRequest {
+
+    @NotEmpty(message = "Список заказов не может быть пустым")
+    private List<CreateOrderRequest> orders;
+}
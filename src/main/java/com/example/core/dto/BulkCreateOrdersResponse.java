@@ -0,0 +1,30 @@
+package com.example.core.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Итог массового создания заказов: по строке на каждый элемент запроса в том же порядке.
+ */
+@Value
+@Builder
+public class BulkCreateOrdersResponse {
+    int created;
+    int failed;
+    List<Row> rows;
+
+    /**
+     * {@code orderId} созданного заказа либо {@code error} — почему строка не создана.
+     */
+    @Value
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Row {
+        int index;
+        Long orderId;
+        String error;
+    }
+}
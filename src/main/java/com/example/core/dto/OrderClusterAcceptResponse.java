@@ -0,0 +1,16 @@
+package com.example.core.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Ответ на частичное принятие кластера: принятые заказы и id заказов, которые уже забрали другие курьеры.
+ */
+@Value
+@Builder
+public class OrderClusterAcceptResponse {
+    List<OrderResponse> accepted;
+    List<Long> lostOrderIds;
+}
@@ -0,0 +1,21 @@
+package com.example.core.dto;
+
+import com.example.core.model.ClusteringAlgorithm;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Параметры кластеризации заказов.
+ * CONNECTED — связные компоненты в радиусе (single-linkage), DENSITY — плотностная кластеризация
+ * с минимальным числом соседей и жёсткими ограничениями на размер и диаметр кластера.
+ */
+@Value
+@Builder(toBuilder = true)
+public class OrderClusteringOptions {
+    @Builder.Default
+    ClusteringAlgorithm algorithm = ClusteringAlgorithm.CONNECTED;
+    Double radiusMeters;
+    Integer minPoints;
+    Integer maxOrders;
+    Double maxDiameterMeters;
+}
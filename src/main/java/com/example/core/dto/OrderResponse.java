@@ -1,6 +1,7 @@
 package com.example.core.dto;
 
 import com.example.core.model.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -39,4 +40,8 @@ public class OrderResponse {
     // true - свободный заказ (доступен для взятия)
     // false - активный заказ (принят курьером)
     private Boolean isAvailable;
+
+    // Расстояние до курьера в метрах (только в режиме поиска ближайших заказов)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distanceMeters;
 }
@@ -5,6 +5,11 @@ import lombok.Value;
 
 import java.util.List;
 
+/**
+ * Страница списка. Постраничный по номеру список заполняет {@code page}, {@code totalElements}
+ * и {@code totalPages}; keyset-список (заказы) их не считает, а следующую страницу запрашивают
+ * с {@code cursor=nextCursor}, пока {@code last} не станет {@code true}.
+ */
 @Value
 @Builder
 public class PageResponse<T> {
@@ -15,4 +20,5 @@ public class PageResponse<T> {
     int totalPages;
     boolean first;
     boolean last;
+    String nextCursor;
 }
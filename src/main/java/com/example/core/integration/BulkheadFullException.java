@@ -0,0 +1,14 @@
+package com.example.core.integration;
+
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Все потоки и места в очереди интеграции заняты: вызов отклонён сразу, без ожидания провайдера.
+ * Наследует {@link ResourceAccessException}, чтобы сервисы обрабатывали отказ как временную недоступность.
+ */
+public class BulkheadFullException extends ResourceAccessException {
+
+    public BulkheadFullException(String integration) {
+        super("Интеграция " + integration + " перегружена");
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.core.integration;
+
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Предохранитель интеграции открыт: вызов отклонён без обращения к провайдеру.
+ */
+public class CallNotPermittedException extends ResourceAccessException {
+
+    public CallNotPermittedException(String integration) {
+        super("Интеграция " + integration + " временно отключена после серии ошибок");
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.core.integration;
+
+/**
+ * Предохранитель интеграции по доле ошибок в последних {@code windowSize} вызовах.
+ * <p>
+ * CLOSED — вызовы идут к провайдеру. Когда в окне набралось не меньше {@code minimumCalls}
+ * вызовов и доля ошибок достигла порога, предохранитель переходит в OPEN и {@code openDurationMs}
+ * сразу отклоняет вызовы. Затем HALF_OPEN пропускает не больше {@code halfOpenProbes} пробных вызовов
+ * одновременно: успех всех проб закрывает предохранитель, любая ошибка снова открывает его.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final Settings settings;
+    private final boolean[] outcomes;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAtMillis;
+    private int probesInFlight;
+    private int probesSucceeded;
+
+    public CircuitBreaker(Settings settings) {
+        this.settings = settings;
+        this.outcomes = new boolean[Math.max(1, settings.windowSize())];
+    }
+
+    /**
+     * Можно ли выполнить вызов сейчас. Каждое разрешение должно закончиться
+     * {@link #onSuccess()}, {@link #onFailure()} или {@link #releasePermission()}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (!settings.enabled()) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAtMillis < Math.max(0L, settings.openDurationMs())) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= Math.max(1, settings.halfOpenProbes())) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (!settings.enabled()) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            probesSucceeded++;
+            if (probesSucceeded >= Math.max(1, settings.halfOpenProbes())) {
+                close();
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (!settings.enabled()) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= Math.max(1, settings.minimumCalls())
+                    && (double) failures / recorded >= settings.failureRateThreshold()) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Разрешение не использовано (вызов не дошёл до провайдера): пробный слот освобождается без результата.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    /**
+     * Текущее состояние; OPEN с истёкшим временем остаётся OPEN до первого вызова.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtMillis = System.currentTimeMillis();
+        probesInFlight = 0;
+        probesSucceeded = 0;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        probesInFlight = 0;
+        probesSucceeded = 0;
+    }
+
+    /**
+     * @param enabled              выключенный предохранитель всегда пропускает вызовы
+     * @param windowSize           сколько последних вызовов учитывается
+     * @param minimumCalls         минимум вызовов в окне, прежде чем считать долю ошибок
+     * @param failureRateThreshold доля ошибок (0..1), при которой предохранитель открывается
+     * @param openDurationMs       сколько вызовы отклоняются до пробных
+     * @param halfOpenProbes       сколько пробных вызовов должно пройти успешно, чтобы закрыть предохранитель
+     */
+    public record Settings(
+            boolean enabled,
+            int windowSize,
+            int minimumCalls,
+            double failureRateThreshold,
+            long openDurationMs,
+            int halfOpenProbes
+    ) {
+        public static Settings disabled() {
+            return new Settings(false, 1, 1, 1.0, 0L, 1);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.core.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Клиент одной внешней интеграции (геокодер, SMS, платёжный провайдер).
+ * <p>
+ * У каждой интеграции свой HTTP-клиент с пулом соединений и свой ограниченный пул потоков (bulkhead):
+ * медленный провайдер занимает только свои потоки и соединения, а при переполнении пула вызов сразу
+ * отклоняется с {@link BulkheadFullException}. Паузы между повторами выдерживаются планировщиком,
+ * без {@code Thread.sleep}, а вызывающий поток ждёт результат не дольше {@code call-timeout-ms}
+ * на все попытки вместе.
+ * <p>
+ * Каждая попытка проходит через {@link CircuitBreaker}: пока он открыт, вызов отклоняется
+ * в вызывающем потоке с {@link CallNotPermittedException}, не занимая ни bulkhead, ни соединение.
+ * Состояние публикуется gauge {@code integration.circuit.state} (0 — закрыт, 1 — пробный режим, 2 — открыт).
+ */
+@Slf4j
+public class IntegrationClient {
+
+    private static final long MAX_RETRY_DELAY_MS = 2500L;
+
+    private final String name;
+    private final RestTemplate restTemplate;
+    private final Settings settings;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public IntegrationClient(String name, RestTemplate restTemplate, Settings settings, MeterRegistry meterRegistry) {
+        this(name, restTemplate, settings, CircuitBreaker.Settings.disabled(), meterRegistry);
+    }
+
+    public IntegrationClient(
+            String name,
+            RestTemplate restTemplate,
+            Settings settings,
+            CircuitBreaker.Settings circuitBreakerSettings,
+            MeterRegistry meterRegistry
+    ) {
+        this.name = name;
+        this.restTemplate = restTemplate;
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = new CircuitBreaker(circuitBreakerSettings);
+        meterRegistry.gauge(
+                "integration.circuit.state",
+                Tags.of("integration", name),
+                circuitBreaker,
+                breaker -> breaker.getState().ordinal()
+        );
+
+        int threads = Math.max(1, settings.maxConcurrent());
+        AtomicInteger counter = new AtomicInteger();
+        this.bulkhead = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.queueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "integration-" + name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.bulkhead.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Выполняет вызов с повторами и ждёт результат в пределах {@code call-timeout-ms}.
+     * Исключения {@link RestClientException} пробрасываются как есть, поэтому обработка ошибок
+     * в сервисах не зависит от того, что вызов шёл через bulkhead.
+     *
+     * @param call        запрос к провайдеру
+     * @param retryResult ответы, после которых стоит повторить запрос (например, 429 и 5xx)
+     * @return ответ последней попытки
+     */
+    public <T> T execute(Function<RestTemplate, T> call, Predicate<T> retryResult) {
+        CompletableFuture<T> future = executeAsync(call, retryResult);
+        try {
+            return future.get(Math.max(1L, settings.callTimeoutMs()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            meterRegistry.counter("integration.http.timeouts", "integration", name).increment();
+            throw new ResourceAccessException("Превышено время ожидания интеграции " + name);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Ожидание интеграции " + name + " прервано");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ResourceAccessException("Ошибка интеграции " + name + ": " + e.getCause());
+        }
+    }
+
+    public <T> T execute(Function<RestTemplate, T> call) {
+        return execute(call, result -> false);
+    }
+
+    /**
+     * Асинхронный вариант: ни одна попытка и ни одна пауза не выполняется в вызывающем потоке.
+     * Отмена возвращённого future прекращает дальнейшие повторы.
+     */
+    public <T> CompletableFuture<T> executeAsync(Function<RestTemplate, T> call, Predicate<T> retryResult) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(call, retryResult, 1, result);
+        return result;
+    }
+
+    public void shutdown() {
+        bulkhead.shutdownNow();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> void attempt(
+            Function<RestTemplate, T> call,
+            Predicate<T> retryResult,
+            int attempt,
+            CompletableFuture<T> result
+    ) {
+        if (result.isDone()) {
+            return;
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            meterRegistry.counter("integration.circuit.rejected", "integration", name).increment();
+            result.completeExceptionally(new CallNotPermittedException(name));
+            return;
+        }
+        try {
+            bulkhead.execute(() -> runAttempt(call, retryResult, attempt, result));
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.releasePermission();
+            meterRegistry.counter("integration.http.rejected", "integration", name).increment();
+            result.completeExceptionally(new BulkheadFullException(name));
+        }
+    }
+
+    private <T> void runAttempt(
+            Function<RestTemplate, T> call,
+            Predicate<T> retryResult,
+            int attempt,
+            CompletableFuture<T> result
+    ) {
+        if (result.isDone()) {
+            circuitBreaker.releasePermission();
+            return;
+        }
+
+        int attempts = Math.max(1, settings.maxRetries() + 1);
+        T value;
+        try {
+            value = call.apply(restTemplate);
+        } catch (RuntimeException e) {
+            boolean retriable = isRetriable(e);
+            if (retriable) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            if (attempt < attempts && retriable) {
+                log.warn("Integration {} call failed (attempt {}/{}): {}", name, attempt, attempts, e.getMessage());
+                scheduleRetry(call, retryResult, attempt, result);
+            } else {
+                result.completeExceptionally(e);
+            }
+            return;
+        }
+
+        boolean retriableResult = value != null && retryResult.test(value);
+        if (retriableResult) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+        if (attempt < attempts && retriableResult) {
+            log.warn("Integration {} returned retriable response (attempt {}/{})", name, attempt, attempts);
+            scheduleRetry(call, retryResult, attempt, result);
+            return;
+        }
+        result.complete(value);
+    }
+
+    private <T> void scheduleRetry(
+            Function<RestTemplate, T> call,
+            Predicate<T> retryResult,
+            int attempt,
+            CompletableFuture<T> result
+    ) {
+        meterRegistry.counter("integration.http.retries", "integration", name).increment();
+        long delay = Math.min(MAX_RETRY_DELAY_MS, Math.max(50L, settings.retryBackoffMs()) * attempt);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                .execute(() -> attempt(call, retryResult, attempt + 1, result));
+    }
+
+    /**
+     * Повторяются сетевые ошибки, 429 и 5xx; остальные 4xx — ошибка запроса, повтор не поможет.
+     */
+    private boolean isRetriable(RuntimeException e) {
+        if (e instanceof BulkheadFullException || e instanceof CallNotPermittedException) {
+            return false;
+        }
+        if (e instanceof HttpClientErrorException clientError) {
+            return clientError.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return e instanceof RestClientException;
+    }
+
+    /**
+     * Параметры интеграции.
+     *
+     * @param maxConcurrent  одновременных запросов к провайдеру (размер bulkhead)
+     * @param queueCapacity  сколько вызовов может ждать свободного потока, прежде чем начнутся отказы
+     * @param maxRetries     повторов после первой попытки
+     * @param retryBackoffMs базовая пауза между повторами (растёт линейно с номером попытки)
+     * @param callTimeoutMs  общий бюджет ожидания вызывающего потока на все попытки
+     */
+    public record Settings(
+            int maxConcurrent,
+            int queueCapacity,
+            int maxRetries,
+            long retryBackoffMs,
+            long callTimeoutMs
+    ) {
+    }
+}
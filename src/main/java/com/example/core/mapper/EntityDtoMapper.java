@@ -13,6 +13,7 @@ import com.example.core.model.Payment;
 import com.example.core.model.ServiceZone;
 import com.example.core.model.Subscription;
 import com.example.core.model.User;
+import com.example.core.repository.OrderPrice;
 import com.example.core.repository.PaymentRepository;
 import org.springframework.stereotype.Component;
 
@@ -60,7 +61,10 @@ public class EntityDtoMapper {
     }
 
     public OrderResponse toOrderResponse(Order order, Boolean isAvailable) {
-        return toOrderResponse(order, isAvailable, null);
+        if (order == null) {
+            return null;
+        }
+        return toOrderResponse(order, isAvailable, loadPrices(List.of(order)));
     }
 
     public List<OrderResponse> toOrderResponses(List<Order> orders) {
@@ -72,23 +76,32 @@ public class EntityDtoMapper {
             return List.of();
         }
 
+        Map<Long, BigDecimal> priceByOrderId = loadPrices(orders);
+        return orders.stream()
+                .map(order -> toOrderResponse(order, isAvailable, priceByOrderId))
+                .toList();
+    }
+
+    /**
+     * Цены заказов одним запросом-проекцией: при нескольких платежах берётся первый.
+     */
+    private Map<Long, BigDecimal> loadPrices(List<Order> orders) {
         List<Long> orderIds = orders.stream()
+                .filter(Objects::nonNull)
                 .map(Order::getId)
                 .filter(Objects::nonNull)
                 .toList();
-
         Map<Long, BigDecimal> priceByOrderId = new HashMap<>();
-        if (!orderIds.isEmpty()) {
-            for (Payment payment : paymentRepository.findByOrderIdIn(orderIds)) {
-                if (payment != null && payment.getOrder() != null && payment.getOrder().getId() != null) {
-                    priceByOrderId.putIfAbsent(payment.getOrder().getId(), payment.getAmount());
-                }
-            }
+        if (orderIds.isEmpty()) {
+            return priceByOrderId;
         }
 
-        return orders.stream()
-                .map(order -> toOrderResponse(order, isAvailable, priceByOrderId))
-                .toList();
+        for (OrderPrice price : paymentRepository.findOrderPrices(orderIds)) {
+            if (price.orderId() != null && price.amount() != null) {
+                priceByOrderId.putIfAbsent(price.orderId(), price.amount());
+            }
+        }
+        return priceByOrderId;
     }
 
     private OrderResponse toOrderResponse(Order order, Boolean isAvailable, Map<Long, BigDecimal> priceByOrderId) {
@@ -96,15 +109,7 @@ public class EntityDtoMapper {
             return null;
         }
 
-        BigDecimal price;
-        if (priceByOrderId != null) {
-            price = priceByOrderId.get(order.getId());
-        } else {
-            price = paymentRepository.findByOrderId(order.getId()).stream()
-                    .findFirst()
-                    .map(Payment::getAmount)
-                    .orElse(null);
-        }
+        BigDecimal price = priceByOrderId.get(order.getId());
 
         OrderResponse.OrderResponseBuilder builder = OrderResponse.builder()
                 .id(order.getId())
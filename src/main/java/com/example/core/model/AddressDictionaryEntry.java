@@ -0,0 +1,46 @@
+package com.example.core.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Адрес из истории заказов и подписок для подсказок. Ключ — нормализованный адрес
+ * ({@link com.example.core.util.AddressNormalizer}).
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "address_dictionary")
+public class AddressDictionaryEntry {
+
+    @Id
+    @Column(name = "normalized_address", nullable = false, updatable = false, columnDefinition = "TEXT")
+    private String normalizedAddress;
+
+    @Column(name = "address", nullable = false, length = 255)
+    private String address;
+
+    @Column(name = "lat")
+    private Double lat;
+
+    @Column(name = "lng")
+    private Double lng;
+
+    @Column(name = "use_count", nullable = false)
+    private long useCount;
+
+    @Column(name = "last_used_at", nullable = false)
+    private OffsetDateTime lastUsedAt;
+}
@@ -0,0 +1,6 @@
+package com.example.core.model;
+
+public enum ClusteringAlgorithm {
+    CONNECTED,
+    DENSITY
+}
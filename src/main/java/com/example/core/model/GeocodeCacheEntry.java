@@ -0,0 +1,48 @@
+package com.example.core.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Запись общего кэша геокодера: ответ провайдера в JSON по нормализованному ключу запроса.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "geocode_cache")
+public class GeocodeCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", nullable = false, updatable = false, columnDefinition = "TEXT")
+    private String cacheKey;
+
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    /**
+     * {@code false} — провайдер ничего не нашёл (негативная запись, payload пустой).
+     */
+    @Column(name = "found", nullable = false)
+    private boolean found;
+
+    @Column(name = "refresh_at", nullable = false)
+    private OffsetDateTime refreshAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -1,5 +1,6 @@
 package com.example.core.model;
 
+import com.example.core.util.GeoCells;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -10,6 +11,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -30,8 +34,13 @@ import java.time.OffsetDateTime;
 @Table(name = "orders")
 public class Order {
 
+    /**
+     * Id из последовательности пулами по 50 (см. V19): в отличие от IDENTITY, Hibernate знает id до INSERT
+     * и может отправлять вставки заказов JDBC-пакетами.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_seq")
+    @SequenceGenerator(name = "orders_id_seq", sequenceName = "orders_order_id_seq", allocationSize = 50)
     @Column(name = "order_id", nullable = false)
     private Long id;
 
@@ -44,7 +53,7 @@ public class Order {
     private User courier;
 
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "subscription_id")
     private Subscription subscription; // может быть null (для разовых заказов)
 
@@ -63,6 +72,18 @@ public class Order {
     @Column(name = "lng")
     private Double lng;
 
+    /**
+     * Ячейка пространственной сетки {@link GeoCells}, пересчитывается из координат при сохранении.
+     */
+    @Column(name = "geo_cell")
+    private Long geoCell;
+
+    /**
+     * Зона обслуживания, в которую попал адрес при создании заказа.
+     */
+    @Column(name = "service_zone_id")
+    private Long serviceZoneId;
+
 
     @Builder.Default
     @Enumerated(EnumType.STRING)
@@ -72,6 +93,12 @@ public class Order {
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void updateGeoCell() {
+        geoCell = GeoCells.cellOf(lat, lng);
+    }
 }
 
 
@@ -0,0 +1,63 @@
+package com.example.core.repository;
+
+import com.example.core.model.AddressDictionaryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface AddressDictionaryRepository extends JpaRepository<AddressDictionaryEntry, String> {
+
+    /**
+     * Подстрочный поиск по нормализованному адресу; на PostgreSQL обслуживается триграммным GIN-индексом.
+     * Запрос должен быть нормализован: в нём нет символов {@code %} и {@code _}.
+     */
+    @Query(
+            value = """
+                    SELECT *
+                    FROM address_dictionary d
+                    WHERE d.normalized_address LIKE concat('%', :query, '%')
+                    ORDER BY d.last_used_at DESC
+                    LIMIT :limit
+                    """,
+            nativeQuery = true
+    )
+    List<AddressDictionaryEntry> searchByNormalizedAddress(
+            @Param("query") String query,
+            @Param("limit") int limit
+    );
+
+    /**
+     * Вызывается после коммита создавшей адрес транзакции, поэтому выполняется в собственной.
+     * Известные координаты не затираются пустыми.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(
+            value = """
+                    INSERT INTO address_dictionary (normalized_address, address, lat, lng, use_count, last_used_at)
+                    VALUES (:normalizedAddress, :address, :lat, :lng, 1, :usedAt)
+                    ON CONFLICT (normalized_address) DO UPDATE
+                    SET address = EXCLUDED.address,
+                        lat = COALESCE(EXCLUDED.lat, address_dictionary.lat),
+                        lng = COALESCE(EXCLUDED.lng, address_dictionary.lng),
+                        use_count = address_dictionary.use_count + 1,
+                        last_used_at = GREATEST(address_dictionary.last_used_at, EXCLUDED.last_used_at)
+                    """,
+            nativeQuery = true
+    )
+    int upsert(
+            @Param("normalizedAddress") String normalizedAddress,
+            @Param("address") String address,
+            @Param("lat") Double lat,
+            @Param("lng") Double lng,
+            @Param("usedAt") OffsetDateTime usedAt
+    );
+}
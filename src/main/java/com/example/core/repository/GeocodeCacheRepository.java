@@ -0,0 +1,48 @@
+package com.example.core.repository;
+
+import com.example.core.model.GeocodeCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * Чтение и запись кэша идут в отдельных транзакциях: ошибка кэша не должна откатывать
+ * бизнес-транзакцию, внутри которой выполняется геокодинг.
+ */
+@Repository
+public interface GeocodeCacheRepository extends JpaRepository<GeocodeCacheEntry, String> {
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    Optional<GeocodeCacheEntry> findByCacheKeyAndExpiresAtAfter(String cacheKey, OffsetDateTime now);
+
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = """
+            INSERT INTO geocode_cache (cache_key, payload, found, refresh_at, expires_at, updated_at)
+            VALUES (:cacheKey, :payload, :found, :refreshAt, :expiresAt, :updatedAt)
+            ON CONFLICT (cache_key) DO UPDATE
+            SET payload = EXCLUDED.payload,
+                found = EXCLUDED.found,
+                refresh_at = EXCLUDED.refresh_at,
+                expires_at = EXCLUDED.expires_at,
+                updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int upsert(
+            @Param("cacheKey") String cacheKey,
+            @Param("payload") String payload,
+            @Param("found") boolean found,
+            @Param("refreshAt") OffsetDateTime refreshAt,
+            @Param("expiresAt") OffsetDateTime expiresAt,
+            @Param("updatedAt") OffsetDateTime updatedAt
+    );
+
+    @Transactional
+    int deleteByExpiresAtBefore(OffsetDateTime threshold);
+}
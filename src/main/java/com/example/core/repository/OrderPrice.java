@@ -0,0 +1,9 @@
+package com.example.core.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Проекция платежа заказа: только id заказа и сумма.
+ */
+public record OrderPrice(Long orderId, BigDecimal amount) {
+}
@@ -3,14 +3,17 @@ package com.example.core.repository;
 import com.example.core.model.Order;
 import com.example.core.model.OrderStatus;
 import com.example.core.model.User;
-import jakarta.persistence.LockModeType;
+import com.example.core.model.UserRole;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,8 +30,39 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
     
     Optional<Order> findByIdAndCourier(Long id, User courier);
 
+    /**
+     * Подписка подгружается тем же запросом: по ней определяются координаты заказов без своих lat/lng.
+     */
+    @EntityGraph(attributePaths = "subscription")
     List<Order> findByStatusAndCourierIsNull(OrderStatus status);
 
+    /**
+     * Заказы по списку id вместе с клиентом, курьером и подпиской — одним запросом для карточек списка.
+     */
+    @EntityGraph(attributePaths = {"client", "courier", "subscription"})
+    List<Order> findWithDetailsByIdIn(Collection<Long> ids);
+
+    /**
+     * Заказ по id, если он виден пользователю с этой ролью: администратору — любой, клиенту — свой,
+     * курьеру — назначенный ему или опубликованный и ещё никем не взятый. Одно чтение по первичному ключу,
+     * клиент, курьер и подписка подгружаются в нём же.
+     */
+    @EntityGraph(attributePaths = {"client", "courier", "subscription"})
+    @Query("""
+            SELECT o FROM Order o
+            WHERE o.id = :id
+              AND (:role = com.example.core.model.UserRole.ADMIN
+                   OR (:role = com.example.core.model.UserRole.CLIENT AND o.client.id = :userId)
+                   OR (:role = com.example.core.model.UserRole.COURIER
+                       AND (o.courier.id = :userId
+                            OR (o.status = com.example.core.model.OrderStatus.PUBLISHED AND o.courier IS NULL))))
+            """)
+    Optional<Order> findVisibleById(
+            @Param("id") Long id,
+            @Param("role") UserRole role,
+            @Param("userId") Long userId
+    );
+
     long countByStatus(OrderStatus status);
 
     long countByStatusInAndPickupTimeBefore(List<OrderStatus> statuses, java.time.OffsetDateTime time);
@@ -51,32 +85,86 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
 
     Optional<Order> findFirstBySubscriptionIdAndStatusOrderByPickupTimeAsc(Long subscriptionId, OrderStatus status);
 
+    /**
+     * Заказы в прямоугольнике: сначала отбор по ячейкам сетки (индекс status, geo_cell),
+     * затем точная проверка координат. Сортировка по времени вывоза.
+     */
+    @Query("""
+            SELECT o FROM Order o
+            WHERE o.status = :status
+              AND (:onlyUnassigned = false OR o.courier IS NULL)
+              AND o.geoCell IN :cells
+              AND o.lat BETWEEN :minLat AND :maxLat
+              AND o.lng BETWEEN :minLng AND :maxLng
+            ORDER BY o.pickupTime ASC, o.id ASC
+            """)
+    List<Order> findInCellsWithinBox(
+            @Param("status") OrderStatus status,
+            @Param("onlyUnassigned") boolean onlyUnassigned,
+            @Param("cells") Collection<Long> cells,
+            @Param("minLat") double minLat,
+            @Param("maxLat") double maxLat,
+            @Param("minLng") double minLng,
+            @Param("maxLng") double maxLng,
+            Pageable pageable
+    );
+
+    /**
+     * То же без отбора по ячейкам — для областей, которые покрываются слишком большим числом ячеек.
+     */
+    @Query("""
+            SELECT o FROM Order o
+            WHERE o.status = :status
+              AND (:onlyUnassigned = false OR o.courier IS NULL)
+              AND o.lat BETWEEN :minLat AND :maxLat
+              AND o.lng BETWEEN :minLng AND :maxLng
+            ORDER BY o.pickupTime ASC, o.id ASC
+            """)
+    List<Order> findWithinBox(
+            @Param("status") OrderStatus status,
+            @Param("onlyUnassigned") boolean onlyUnassigned,
+            @Param("minLat") double minLat,
+            @Param("maxLat") double maxLat,
+            @Param("minLng") double minLng,
+            @Param("maxLng") double maxLng,
+            Pageable pageable
+    );
+
+    /**
+     * Блокирует ещё свободные заказы из списка одним запросом. Строки, которые сейчас держит другая
+     * транзакция, пропускаются (SKIP LOCKED) вместо ожидания её завершения — для вызывающего это
+     * то же самое, что уже занятый заказ. Через этот же запрос принимается и одиночный заказ:
+     * проигравший конкурент сразу получает пустой список, а не ждёт коммита победителя.
+     */
     @Query(
             value = """
-                    SELECT o.address
+                    SELECT o.*
                     FROM orders o
-                    WHERE lower(o.address) LIKE lower(concat('%', :query, '%'))
-                    GROUP BY o.address
-                    ORDER BY MAX(o.created_at) DESC
-                    LIMIT :limit
+                    WHERE o.order_id IN (:ids)
+                      AND o.status = 'PUBLISHED'
+                      AND o.courier_id IS NULL
+                    ORDER BY o.order_id
+                    FOR UPDATE SKIP LOCKED
                     """,
             nativeQuery = true
     )
-    List<String> findAddressHistorySuggestions(
-            @Param("query") String query,
-            @Param("limit") int limit
-    );
+    List<Order> lockClaimable(@Param("ids") Collection<Long> ids);
 
     /**
-     * Находит заказ по ID с пессимистической блокировкой для предотвращения race condition.
-     * Используется SELECT FOR UPDATE для блокировки строки в БД до завершения транзакции.
+     * Закрепляет за курьером заказы, заблокированные {@link #lockClaimable}, одним UPDATE.
+     * Условие на статус повторяется, чтобы UPDATE без предварительной блокировки не перезаписал чужой заказ.
      *
-     * @param id ID заказа
-     * @return Optional с заказом, если найден
+     * @return число заказов, закреплённых за курьером
      */
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT o FROM Order o WHERE o.id = :id")
-    Optional<Order> findByIdWithLock(@Param("id") Long id);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Order o
+            SET o.courier = :courier, o.status = com.example.core.model.OrderStatus.ACCEPTED
+            WHERE o.id IN :ids
+              AND o.status = com.example.core.model.OrderStatus.PUBLISHED
+              AND o.courier IS NULL
+            """)
+    int claimAllPublished(@Param("ids") Collection<Long> ids, @Param("courier") User courier);
 }
 
 
@@ -19,7 +19,16 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     List<Payment> findByOrderId(Long orderId);
 
-    List<Payment> findByOrderIdIn(Collection<Long> orderIds);
+    /**
+     * Суммы платежей заказов без загрузки самих платежей и их связей — для цены в карточках заказов.
+     */
+    @Query("""
+            select new com.example.core.repository.OrderPrice(p.order.id, p.amount)
+            from Payment p
+            where p.order.id in :orderIds
+            order by p.id
+            """)
+    List<OrderPrice> findOrderPrices(@Param("orderIds") Collection<Long> orderIds);
 
     List<Payment> findBySubscriptionId(Long subscriptionId);
 
@@ -16,6 +16,9 @@ public interface ServiceZoneRepository extends JpaRepository<ServiceZone, Long>
 
     List<ServiceZone> findByActiveTrue();
 
+    @Query("SELECT z.id FROM ServiceZone z WHERE z.active = true")
+    List<Long> findActiveZoneIds();
+
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("UPDATE ServiceZone z SET z.active = false WHERE z.active = true")
     int deactivateAllActiveZones();
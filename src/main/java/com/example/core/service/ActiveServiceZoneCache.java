@@ -0,0 +1,151 @@
+package com.example.core.service;
+
+import com.example.core.model.ServiceZone;
+import com.example.core.repository.ServiceZoneRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Активные зоны обслуживания в памяти, скомпилированные и проиндексированные для быстрой проверки адресов.
+ * <p>
+ * Снимок неизменяемый и подменяется одной volatile-записью, поэтому читатели видят либо старый,
+ * либо новый набор зон целиком. После изменения набора остальные узлы получают уведомление через
+ * Redis pub/sub, а периодическая сверка id активных зон страхует от пропущенных сообщений.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActiveServiceZoneCache {
+
+    public static final String INVALIDATION_CHANNEL = "service-zone:invalidate";
+
+    private final ServiceZoneRepository zoneRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${service-zone.cache.pubsub-enabled:true}")
+    private boolean pubSubEnabled = true;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Индекс активных зон; пустой, если ни одна зона не настроена. БД читается только при первом
+     * обращении и после инвалидации.
+     */
+    ServiceZoneIndex getZoneIndex() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = load();
+        }
+        return current.index();
+    }
+
+    /**
+     * Регистрирует изменение набора активных зон: локальный снимок перечитывается и остальные узлы
+     * уведомляются только после коммита, чтобы откат транзакции не оставил в памяти несуществующие зоны.
+     */
+    public void onZonesChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reloadAndPublish();
+                }
+            });
+        } else {
+            reloadAndPublish();
+        }
+    }
+
+    /**
+     * Обработка уведомления от другого узла: сообщение содержит отсортированные id активных зон.
+     */
+    public void onInvalidationMessage(String zoneIds) {
+        Snapshot current = snapshot;
+        if (current != null && current.zoneIds().equals(zoneIds)) {
+            return;
+        }
+        invalidate();
+    }
+
+    public synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    @Scheduled(
+            fixedDelayString = "${service-zone.cache.refresh-ms:60000}",
+            initialDelayString = "${service-zone.cache.refresh-ms:60000}"
+    )
+    public void refreshIfChanged() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        try {
+            String activeZoneIds = idsKey(zoneRepository.findActiveZoneIds());
+            if (!activeZoneIds.equals(current.zoneIds())) {
+                log.info("Active service zones changed ([{}] -> [{}]), reloading", current.zoneIds(), activeZoneIds);
+                invalidate();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Service zone refresh check failed: {}", e.getMessage());
+        }
+    }
+
+    private synchronized Snapshot load() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        current = compileSnapshot(zoneRepository.findByActiveTrue());
+        snapshot = current;
+        return current;
+    }
+
+    private void reloadAndPublish() {
+        Snapshot reloaded;
+        synchronized (this) {
+            snapshot = null;
+            reloaded = load();
+        }
+        if (!pubSubEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, reloaded.zoneIds());
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish service zone invalidation: {}", e.getMessage());
+        }
+    }
+
+    private static Snapshot compileSnapshot(List<ServiceZone> activeZones) {
+        List<CompiledServiceZone> compiled = activeZones.stream()
+                .map(CompiledServiceZone::compile)
+                .toList();
+        return new Snapshot(
+                idsKey(activeZones.stream().map(ServiceZone::getId).toList()),
+                new ServiceZoneIndex(compiled)
+        );
+    }
+
+    private static String idsKey(List<Long> zoneIds) {
+        return zoneIds.stream()
+                .sorted()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    private record Snapshot(
+            String zoneIds,
+            ServiceZoneIndex index
+    ) {
+    }
+}
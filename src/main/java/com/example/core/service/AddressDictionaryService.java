@@ -0,0 +1,163 @@
+package com.example.core.service;
+
+import com.example.core.model.AddressDictionaryEntry;
+import com.example.core.repository.AddressDictionaryRepository;
+import com.example.core.util.AddressNormalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Словарь адресов для подсказок: уникальные нормализованные адреса из заказов и подписок
+ * с временем последнего использования и известными координатами.
+ * <p>
+ * На PostgreSQL поиск идёт по таблице {@code address_dictionary} с триграммным индексом (pg_trgm).
+ * На других базах (H2 в тестах и локально) словарь живёт в {@link AddressTrigramIndex} в памяти процесса.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AddressDictionaryService {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final AddressDictionaryRepository addressDictionaryRepository;
+    private final DataSource dataSource;
+
+    /**
+     * {@code auto} — по типу базы, {@code database} — всегда pg_trgm, {@code memory} — всегда индекс в памяти.
+     */
+    @Value("${address-dictionary.backend:auto}")
+    private String backend = "auto";
+
+    private volatile AddressTrigramIndex memoryIndex;
+    private volatile Boolean useMemoryIndex;
+
+    /**
+     * Запоминает использование адреса. Внутри транзакции запись выполняется после коммита,
+     * чтобы откаченный заказ не попадал в словарь и ошибка словаря не откатывала заказ.
+     */
+    public void recordUsage(String address, Double lat, Double lng) {
+        String normalized = AddressNormalizer.normalize(address);
+        if (normalized.isEmpty()) {
+            return;
+        }
+
+        String displayAddress = address.trim();
+        OffsetDateTime usedAt = OffsetDateTime.now();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    store(normalized, displayAddress, lat, lng, usedAt);
+                }
+            });
+        } else {
+            store(normalized, displayAddress, lat, lng, usedAt);
+        }
+    }
+
+    /**
+     * Адреса, содержащие запрос (после нормализации), — сначала недавно использованные.
+     */
+    public List<AddressDictionaryEntry> suggest(String query, int limit) {
+        String normalized = AddressNormalizer.normalize(query);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        int safeLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (useMemoryIndex()) {
+            return memoryIndex().search(normalized, safeLimit);
+        }
+        return addressDictionaryRepository.searchByNormalizedAddress(normalized, safeLimit);
+    }
+
+    /**
+     * Запись словаря для адреса (после нормализации), если адрес уже встречался.
+     * Ошибки чтения не пробрасываются: словарь используется как запасной источник координат.
+     */
+    public Optional<AddressDictionaryEntry> findByAddress(String address) {
+        String normalized = AddressNormalizer.normalize(address);
+        if (normalized.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            if (useMemoryIndex()) {
+                return Optional.ofNullable(memoryIndex().find(normalized));
+            }
+            return addressDictionaryRepository.findById(normalized);
+        } catch (RuntimeException e) {
+            log.warn("Address dictionary lookup failed for '{}': {}", address, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void store(String normalized, String address, Double lat, Double lng, OffsetDateTime usedAt) {
+        try {
+            if (useMemoryIndex()) {
+                memoryIndex().put(normalized, address, lat, lng, usedAt);
+            } else {
+                addressDictionaryRepository.upsert(normalized, address, lat, lng, usedAt);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to update address dictionary for '{}': {}", address, e.getMessage());
+        }
+    }
+
+    private boolean useMemoryIndex() {
+        Boolean resolved = useMemoryIndex;
+        if (resolved == null) {
+            resolved = switch (backend.trim().toLowerCase(Locale.ROOT)) {
+                case "memory" -> true;
+                case "database" -> false;
+                default -> !isPostgres();
+            };
+            useMemoryIndex = resolved;
+        }
+        return resolved;
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            log.warn("Cannot detect database for address dictionary, using in-memory index: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Индекс в памяти заполняется при первом обращении тем, что уже есть в таблице (если она есть).
+     */
+    private AddressTrigramIndex memoryIndex() {
+        AddressTrigramIndex index = memoryIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = memoryIndex;
+                if (index == null) {
+                    index = new AddressTrigramIndex();
+                    try {
+                        index.load(addressDictionaryRepository.findAll());
+                    } catch (RuntimeException e) {
+                        log.info("Address dictionary table unavailable, starting with empty in-memory index: {}",
+                                e.getMessage());
+                    }
+                    memoryIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.core.service;
+
+import com.example.core.model.ServiceZone;
+import com.example.core.util.AddressNormalizer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Локальный справочник адресов с координатами — офлайн-замена геокодера для нагрузочных тестов
+ * и запасной уровень при недоступности провайдера.
+ * <p>
+ * Файл {@code geocoder.gazetteer.path} ({@code classpath:...} или {@code file:...}) — CSV
+ * {@code адрес;широта;долгота} (строки с {@code #} — комментарии) или JSON-массив
+ * {@code [{"address": ..., "lat": ..., "lng": ...}]}. Загружается один раз при первом обращении
+ * в префиксный индекс по началам слов: запрос «Ленина 1» находит «Оренбург, улица Ленина, 12».
+ * Сокращения типа улицы («ул.», «пр-т», «д.») приводятся к одной форме.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AddressGazetteer {
+
+    private static final Map<String, String> ABBREVIATIONS = Map.ofEntries(
+            Map.entry("ул", "улица"),
+            Map.entry("пер", "переулок"),
+            Map.entry("пр", "проспект"),
+            Map.entry("просп", "проспект"),
+            Map.entry("пр т", "проспект"),
+            Map.entry("пр кт", "проспект"),
+            Map.entry("ш", "шоссе"),
+            Map.entry("пл", "площадь"),
+            Map.entry("наб", "набережная"),
+            Map.entry("б р", "бульвар"),
+            Map.entry("бул", "бульвар"),
+            Map.entry("мкр", "микрорайон"),
+            Map.entry("г", ""),
+            Map.entry("д", ""),
+            Map.entry("дом", "")
+    );
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+
+    @Value("${geocoder.gazetteer.path:}")
+    private String path = "";
+
+    private volatile Index index;
+
+    /**
+     * Справочник задан и содержит хотя бы один адрес.
+     */
+    public boolean isAvailable() {
+        return index().size() > 0;
+    }
+
+    /**
+     * Координаты адреса: полное совпадение либо совпадение с окончанием адреса из справочника
+     * («ул. Ленина, 5» → «Оренбург, улица Ленина, 5»). При нескольких вариантах берётся самый короткий адрес.
+     */
+    public Optional<ServiceZone.Coordinate> findCoordinates(String address) {
+        String key = canonicalize(address);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        return index().findExact(key)
+                .map(entry -> new ServiceZone.Coordinate(entry.lat(), entry.lng()));
+    }
+
+    /**
+     * Адреса, в которых какое-либо слово начинает запрос, — сначала более короткие.
+     */
+    public List<GeocodingService.AddressSuggestion> suggest(String query, int limit) {
+        String key = canonicalize(query);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        return index().findByPrefix(key, Math.max(1, limit)).stream()
+                .map(entry -> new GeocodingService.AddressSuggestion(entry.address(), entry.lat(), entry.lng()))
+                .toList();
+    }
+
+    static String canonicalize(String address) {
+        String normalized = AddressNormalizer.normalize(address);
+        if (normalized.isEmpty()) {
+            return normalized;
+        }
+        for (Map.Entry<String, String> abbreviation : ABBREVIATIONS.entrySet()) {
+            if (abbreviation.getKey().indexOf(' ') >= 0) {
+                normalized = (" " + normalized + " ")
+                        .replace(" " + abbreviation.getKey() + " ", " " + abbreviation.getValue() + " ")
+                        .trim();
+            }
+        }
+        StringBuilder canonical = new StringBuilder(normalized.length());
+        for (String word : normalized.split(" ")) {
+            String replacement = ABBREVIATIONS.getOrDefault(word, word);
+            if (replacement.isEmpty()) {
+                continue;
+            }
+            if (!canonical.isEmpty()) {
+                canonical.append(' ');
+            }
+            canonical.append(replacement);
+        }
+        return canonical.toString();
+    }
+
+    private Index index() {
+        Index current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = load();
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Index load() {
+        if (path == null || path.isBlank()) {
+            return Index.build(List.of());
+        }
+
+        Resource resource = resourceLoader.getResource(path.trim());
+        try (InputStream input = resource.getInputStream()) {
+            List<Entry> entries = path.trim().toLowerCase(Locale.ROOT).endsWith(".json") ? readJson(input) : readCsv(input);
+            log.info("Address gazetteer loaded: {} addresses from {}", entries.size(), path);
+            return Index.build(entries);
+        } catch (IOException e) {
+            log.warn("Address gazetteer {} cannot be loaded: {}", path, e.getMessage());
+            return Index.build(List.of());
+        }
+    }
+
+    private List<Entry> readCsv(InputStream input) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] parts = trimmed.split(";");
+            if (parts.length < 3) {
+                log.debug("Gazetteer line {} skipped: expected address;lat;lng", lineNumber);
+                continue;
+            }
+            try {
+                addEntry(entries, parts[0], Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim()));
+            } catch (NumberFormatException e) {
+                // Заголовок или строка с некорректными координатами.
+                log.debug("Gazetteer line {} skipped: {}", lineNumber, e.getMessage());
+            }
+        }
+        return entries;
+    }
+
+    private List<Entry> readJson(InputStream input) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        JsonNode root = objectMapper.readTree(input);
+        for (JsonNode item : root) {
+            if (item.hasNonNull("address") && item.path("lat").isNumber() && item.path("lng").isNumber()) {
+                addEntry(entries, item.get("address").asText(), item.get("lat").asDouble(), item.get("lng").asDouble());
+            }
+        }
+        return entries;
+    }
+
+    private void addEntry(List<Entry> entries, String address, double lat, double lng) {
+        String displayAddress = address.trim();
+        String key = canonicalize(displayAddress);
+        if (!key.isEmpty()) {
+            entries.add(new Entry(displayAddress, key, lat, lng));
+        }
+    }
+
+    private record Entry(String address, String key, double lat, double lng) {
+    }
+
+    /**
+     * Отсортированный массив «хвостов» ключей, начинающихся с каждого слова адреса:
+     * поиск по префиксу — бинарный поиск и просмотр подряд идущих совпадений.
+     */
+    private static final class Index {
+
+        private static final int MAX_PREFIX_SCAN = 10000;
+
+        private static final Comparator<Entry> SHORTEST_FIRST = Comparator
+                .comparingInt((Entry entry) -> entry.key().length())
+                .thenComparing(Entry::key);
+
+        private final Entry[] entries;
+        private final String[] suffixes;
+        private final int[] suffixEntries;
+        private final Map<String, Entry> byKey;
+
+        private Index(Entry[] entries, String[] suffixes, int[] suffixEntries, Map<String, Entry> byKey) {
+            this.entries = entries;
+            this.suffixes = suffixes;
+            this.suffixEntries = suffixEntries;
+            this.byKey = byKey;
+        }
+
+        static Index build(List<Entry> source) {
+            Map<String, Entry> byKey = new HashMap<>();
+            for (Entry entry : source) {
+                byKey.putIfAbsent(entry.key(), entry);
+            }
+            Entry[] entries = byKey.values().toArray(Entry[]::new);
+            Arrays.sort(entries, SHORTEST_FIRST);
+
+            List<String> suffixList = new ArrayList<>();
+            List<Integer> owners = new ArrayList<>();
+            for (int i = 0; i < entries.length; i++) {
+                String key = entries[i].key();
+                for (int start = 0; start < key.length(); start++) {
+                    if (start == 0 || key.charAt(start - 1) == ' ') {
+                        suffixList.add(key.substring(start));
+                        owners.add(i);
+                    }
+                }
+            }
+
+            Integer[] order = new Integer[suffixList.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator
+                    .comparing((Integer i) -> suffixList.get(i))
+                    .thenComparingInt(owners::get));
+
+            String[] suffixes = new String[order.length];
+            int[] suffixEntries = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                suffixes[i] = suffixList.get(order[i]);
+                suffixEntries[i] = owners.get(order[i]);
+            }
+            return new Index(entries, suffixes, suffixEntries, byKey);
+        }
+
+        int size() {
+            return entries.length;
+        }
+
+        Optional<Entry> findExact(String key) {
+            Entry exact = byKey.get(key);
+            if (exact != null) {
+                return Optional.of(exact);
+            }
+            int best = -1;
+            for (int i = lowerBound(key); i < suffixes.length && suffixes[i].equals(key); i++) {
+                if (best < 0 || suffixEntries[i] < best) {
+                    best = suffixEntries[i];
+                }
+            }
+            return best < 0 ? Optional.empty() : Optional.of(entries[best]);
+        }
+
+        /**
+         * Самые короткие адреса среди совпадений; просмотр ограничен {@code MAX_PREFIX_SCAN} вхождениями,
+         * чтобы короткий запрос вроде «ули» не перебирал весь справочник.
+         */
+        List<Entry> findByPrefix(String prefix, int limit) {
+            TreeSet<Integer> best = new TreeSet<>();
+            int start = lowerBound(prefix);
+            int end = Math.min(suffixes.length, start + MAX_PREFIX_SCAN);
+            for (int i = start; i < end && suffixes[i].startsWith(prefix); i++) {
+                best.add(suffixEntries[i]);
+                if (best.size() > limit) {
+                    best.pollLast();
+                }
+            }
+            return best.stream()
+                    .map(i -> entries[i])
+                    .toList();
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = suffixes.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (suffixes[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
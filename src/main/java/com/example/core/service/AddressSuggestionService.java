@@ -0,0 +1,243 @@
+package com.example.core.service;
+
+import com.example.core.dto.AddressSuggestionResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Подсказки адресов для формы заказа.
+ * <p>
+ * Геокодер и словарь адресов опрашиваются параллельно в пределах общего бюджета времени
+ * ({@code geocoder.suggestions.deadline-ms}). В ответ попадает то, что успело вернуться к дедлайну:
+ * сначала варианты геокодера, затем словаря. Опоздавший источник просто перестают ждать: загрузка геокодера
+ * не прерывается и, завершившись, кладёт ответ в кэш для следующего запроса.
+ * Метрика {@code address.suggestions.requests} с тегом {@code source} показывает, какой источник ответил.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AddressSuggestionService {
+
+    private static final int MIN_QUERY_LENGTH = 3;
+    private static final int MAX_LIMIT = 10;
+    private static final int MAX_QUEUED_TASKS = 256;
+
+    private final GeocodingService geocodingService;
+    private final AddressDictionaryService addressDictionaryService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${geocoder.suggestions.deadline-ms:300}")
+    private long deadlineMs = 300;
+
+    @Value("${geocoder.suggestions.fanout-threads:16}")
+    private int fanoutThreads = 16;
+
+    private volatile ThreadPoolExecutor fanoutExecutor;
+
+    public List<AddressSuggestionResponse> suggest(String query, int limit) {
+        int safeLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        String cleanQuery = query == null ? "" : query.trim();
+        if (cleanQuery.length() < MIN_QUERY_LENGTH) {
+            return List.of();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(1L, deadlineMs));
+        Future<List<AddressSuggestionResponse>> live = submitLive(cleanQuery, safeLimit);
+        Future<List<AddressSuggestionResponse>> history = submit(() -> historySuggestions(cleanQuery, safeLimit));
+
+        List<AddressSuggestionResponse> liveResult = await(live, deadline, "geocoder");
+        List<AddressSuggestionResponse> historyResult = await(history, deadline, "history");
+
+        record(liveResult, historyResult);
+        return mergeAddressSuggestions(
+                liveResult == null ? List.of() : liveResult,
+                historyResult == null ? List.of() : historyResult,
+                safeLimit
+        );
+    }
+
+    @PreDestroy
+    void shutdownFanoutExecutor() {
+        ThreadPoolExecutor executor = fanoutExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<AddressSuggestionResponse> liveSuggestions(List<GeocodingService.AddressSuggestion> suggestions) {
+        return suggestions.stream()
+                .map(item -> AddressSuggestionResponse.builder()
+                        .address(item.address())
+                        .lat(item.lat())
+                        .lng(item.lng())
+                        .build())
+                .toList();
+    }
+
+    private List<AddressSuggestionResponse> historySuggestions(String query, int limit) {
+        return addressDictionaryService.suggest(query, limit).stream()
+                .map(entry -> AddressSuggestionResponse.builder()
+                        .address(entry.getAddress())
+                        .lat(entry.getLat())
+                        .lng(entry.getLng())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Поток пула только проверяет кэши и запускает загрузку; ответа провайдера ждёт не он.
+     */
+    private Future<List<AddressSuggestionResponse>> submitLive(String query, int limit) {
+        try {
+            return CompletableFuture
+                    .supplyAsync(() -> geocodingService.suggestAddressesAsync(query, limit), fanoutExecutor())
+                    .thenCompose(Function.identity())
+                    .thenApply(this::liveSuggestions);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    private Future<List<AddressSuggestionResponse>> submit(Callable<List<AddressSuggestionResponse>> task) {
+        try {
+            return fanoutExecutor().submit(task);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Результат источника, если он успел к дедлайну; {@code null} — источник не ответил.
+     * Опоздавший источник отменяется без прерывания: прерванный вызов геокодера превратился бы в сетевую ошибку
+     * для всех, кто ждёт ту же загрузку, а его ответ был бы потерян. Дедлайн — не ошибка и в лог не пишется.
+     */
+    private List<AddressSuggestionResponse> await(
+            Future<List<AddressSuggestionResponse>> future,
+            long deadline,
+            String source
+    ) {
+        if (future == null) {
+            countFailure(source, "rejected");
+            return null;
+        }
+        try {
+            return future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            countFailure(source, "timeout");
+            return null;
+        } catch (ExecutionException e) {
+            // Геокодер не нашёл вариантов или недоступен — остаётся второй источник.
+            log.debug("Address suggestion source {} failed: {}", source, e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+            countFailure(source, "error");
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void record(List<AddressSuggestionResponse> live, List<AddressSuggestionResponse> history) {
+        boolean liveAnswered = live != null && !live.isEmpty();
+        boolean historyAnswered = history != null && !history.isEmpty();
+        String source = liveAnswered && historyAnswered ? "both"
+                : liveAnswered ? "geocoder"
+                : historyAnswered ? "history"
+                : "none";
+        meterRegistry.counter("address.suggestions.requests", "source", source).increment();
+    }
+
+    private void countFailure(String source, String reason) {
+        meterRegistry.counter("address.suggestions.source.failures", "source", source, "reason", reason).increment();
+    }
+
+    private List<AddressSuggestionResponse> mergeAddressSuggestions(
+            List<AddressSuggestionResponse> liveSuggestions,
+            List<AddressSuggestionResponse> historySuggestions,
+            int limit
+    ) {
+        LinkedHashMap<String, AddressSuggestionResponse> unique = new LinkedHashMap<>();
+        appendSuggestions(unique, liveSuggestions);
+        appendSuggestions(unique, historySuggestions);
+        return unique.values().stream().limit(limit).toList();
+    }
+
+    private void appendSuggestions(
+            Map<String, AddressSuggestionResponse> unique,
+            List<AddressSuggestionResponse> suggestions
+    ) {
+        for (AddressSuggestionResponse suggestion : suggestions) {
+            if (suggestion == null || suggestion.getAddress() == null) {
+                continue;
+            }
+            String key = suggestion.getAddress().trim().toLowerCase(Locale.ROOT);
+            if (key.isEmpty()) {
+                continue;
+            }
+
+            AddressSuggestionResponse existing = unique.get(key);
+            if (existing == null || shouldReplaceWithGeo(existing, suggestion)) {
+                unique.put(key, suggestion);
+            }
+        }
+    }
+
+    private boolean shouldReplaceWithGeo(AddressSuggestionResponse current, AddressSuggestionResponse candidate) {
+        return (current.getLat() == null || current.getLng() == null)
+                && candidate.getLat() != null
+                && candidate.getLng() != null;
+    }
+
+    /**
+     * Ограниченный пул с ограниченной очередью: при перегрузке новые задачи отклоняются,
+     * и источник считается не ответившим, а не копит очередь запросов.
+     */
+    private ThreadPoolExecutor fanoutExecutor() {
+        ThreadPoolExecutor executor = fanoutExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = fanoutExecutor;
+                if (executor == null) {
+                    int threads = Math.max(2, Math.min(fanoutThreads, 128));
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(
+                            threads,
+                            threads,
+                            60L,
+                            TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(MAX_QUEUED_TASKS),
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "address-suggest-" + counter.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                    );
+                    executor.allowCoreThreadTimeOut(true);
+                    fanoutExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+}
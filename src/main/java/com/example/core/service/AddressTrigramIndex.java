@@ -0,0 +1,121 @@
+package com.example.core.service;
+
+import com.example.core.model.AddressDictionaryEntry;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory триграммный индекс словаря адресов — замена pg_trgm, когда база его не поддерживает (H2, тесты).
+ * <p>
+ * Для каждой триграммы нормализованного адреса хранится множество адресов, где она встречается.
+ * Подстрока запроса возможна только в адресах, содержащих все его триграммы, поэтому кандидаты берутся
+ * из самого короткого списка и проверяются {@link String#contains}.
+ */
+final class AddressTrigramIndex {
+
+    private static final int GRAM = 3;
+    private static final Comparator<AddressDictionaryEntry> RECENT_FIRST = Comparator
+            .comparing(AddressDictionaryEntry::getLastUsedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(AddressDictionaryEntry::getNormalizedAddress);
+
+    private final Map<String, AddressDictionaryEntry> entries = new HashMap<>();
+    private final Map<String, Set<String>> postings = new HashMap<>();
+
+    /**
+     * Добавляет адрес или обновляет существующий так же, как upsert в БД:
+     * счётчик растёт, известные координаты не затираются пустыми.
+     */
+    synchronized void put(String normalizedAddress, String address, Double lat, Double lng, OffsetDateTime usedAt) {
+        AddressDictionaryEntry existing = entries.get(normalizedAddress);
+        if (existing == null) {
+            entries.put(normalizedAddress, AddressDictionaryEntry.builder()
+                    .normalizedAddress(normalizedAddress)
+                    .address(address)
+                    .lat(lat)
+                    .lng(lng)
+                    .useCount(1)
+                    .lastUsedAt(usedAt)
+                    .build());
+            for (String gram : grams(normalizedAddress)) {
+                postings.computeIfAbsent(gram, ignored -> new HashSet<>()).add(normalizedAddress);
+            }
+            return;
+        }
+
+        existing.setAddress(address);
+        if (lat != null) {
+            existing.setLat(lat);
+        }
+        if (lng != null) {
+            existing.setLng(lng);
+        }
+        existing.setUseCount(existing.getUseCount() + 1);
+        if (existing.getLastUsedAt() == null || (usedAt != null && usedAt.isAfter(existing.getLastUsedAt()))) {
+            existing.setLastUsedAt(usedAt);
+        }
+    }
+
+    synchronized void load(Collection<AddressDictionaryEntry> snapshot) {
+        for (AddressDictionaryEntry entry : snapshot) {
+            entries.put(entry.getNormalizedAddress(), copy(entry));
+            for (String gram : grams(entry.getNormalizedAddress())) {
+                postings.computeIfAbsent(gram, ignored -> new HashSet<>()).add(entry.getNormalizedAddress());
+            }
+        }
+    }
+
+    synchronized AddressDictionaryEntry find(String normalizedAddress) {
+        AddressDictionaryEntry entry = entries.get(normalizedAddress);
+        return entry == null ? null : copy(entry);
+    }
+
+    /**
+     * Адреса, содержащие нормализованный запрос, — сначала недавно использованные.
+     */
+    synchronized List<AddressDictionaryEntry> search(String normalizedQuery, int limit) {
+        Collection<String> candidates = entries.keySet();
+        for (String gram : grams(normalizedQuery)) {
+            Set<String> posting = postings.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            if (posting.size() < candidates.size()) {
+                candidates = posting;
+            }
+        }
+
+        return candidates.stream()
+                .filter(key -> key.contains(normalizedQuery))
+                .map(entries::get)
+                .sorted(RECENT_FIRST)
+                .limit(Math.max(1, limit))
+                .map(AddressTrigramIndex::copy)
+                .toList();
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static AddressDictionaryEntry copy(AddressDictionaryEntry entry) {
+        return AddressDictionaryEntry.builder()
+                .normalizedAddress(entry.getNormalizedAddress())
+                .address(entry.getAddress())
+                .lat(entry.getLat())
+                .lng(entry.getLng())
+                .useCount(entry.getUseCount())
+                .lastUsedAt(entry.getLastUsedAt())
+                .build();
+    }
+}
@@ -5,8 +5,11 @@ import com.example.core.model.User;
 import com.example.core.repository.AuditEventRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.Types;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @Slf4j
@@ -14,7 +17,13 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AuditService {
 
+    private static final String INSERT_EVENT_SQL = """
+            INSERT INTO audit_events (event_type, outcome, actor_user_id, actor_role, target_type, target_id, details, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
     private final AuditEventRepository auditEventRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     public void log(
             String eventType,
@@ -59,6 +68,42 @@ public class AuditService {
         }
     }
 
+    /**
+     * Одно и то же событие для набора объектов — одним JDBC-пакетом в текущей транзакции
+     * вместо отдельного INSERT на каждый объект.
+     */
+    public void logAll(
+            String eventType,
+            String outcome,
+            User actor,
+            String targetType,
+            List<String> targetIds,
+            String details
+    ) {
+        if (targetIds == null || targetIds.isEmpty()) {
+            return;
+        }
+        Long actorUserId = actor == null ? null : actor.getId();
+        String actorRole = actor == null || actor.getUserRole() == null ? null : actor.getUserRole().name();
+        OffsetDateTime createdAt = OffsetDateTime.now();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, targetIds, targetIds.size(), (statement, targetId) -> {
+                statement.setString(1, safeValue(eventType, 64));
+                statement.setString(2, safeValue(outcome, 16));
+                statement.setObject(3, actorUserId, Types.BIGINT);
+                statement.setString(4, safeValue(actorRole, 32));
+                statement.setString(5, safeValue(targetType, 64));
+                statement.setString(6, safeValue(targetId, 128));
+                statement.setString(7, safeValue(details, 2000));
+                statement.setObject(8, createdAt);
+            });
+        } catch (Exception e) {
+            // Аудит не должен ломать основную бизнес-операцию.
+            log.warn("Failed to persist audit events: type={}, outcome={}, count={}, reason={}",
+                    eventType, outcome, targetIds.size(), e.getMessage());
+        }
+    }
+
     public List<AuditEvent> getTimeline(String targetType, String targetId, int limit) {
         List<AuditEvent> events = auditEventRepository
                 .findTop200ByTargetTypeAndTargetIdOrderByCreatedAtDesc(targetType, targetId);
@@ -0,0 +1,230 @@
+package com.example.core.service;
+
+import com.example.core.dto.AvailableOrderEvent;
+import com.example.core.dto.OrderResponse;
+import com.example.core.dto.PageResponse;
+import com.example.core.mapper.EntityDtoMapper;
+import com.example.core.model.Order;
+import com.example.core.model.OrderStatus;
+import com.example.core.repository.OrderRepository;
+import com.example.core.util.KeysetCursor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Общая для всех курьеров доска свободных заказов: готовые карточки {@link OrderResponse} в порядке вывоза,
+ * из которых отдаются страницы {@code GET /api/orders/available}.
+ * <p>
+ * Copy-on-write: читатели берут неизменяемый снимок по volatile-ссылке без блокировок. Версия снимка —
+ * номер последнего события {@link AvailableOrderFeed}, то есть изменения, пришедшего из путей записи
+ * через {@link PublishedOrderIndexService}. Когда номер сдвинулся, следующий читатель собирает новый снимок
+ * из предыдущего: из БД догружаются только новые и изменившиеся заказы. Раз в {@code orders.board.full-refresh-ms}
+ * карточки перечитываются целиком — так подтягиваются цены и имена, которые меняются вне заказа.
+ * Пока один поток собирает снимок, остальные отдают предыдущий.
+ * <p>
+ * Страницы сериализуются один раз на снимок; ETag — эпоха узла и номер сборки снимка.
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailableOrderBoard {
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 256;
+    private static final Comparator<OrderResponse> PICKUP_ORDER = Comparator
+            .comparing((OrderResponse card) -> card.getPickupTime().toInstant())
+            .thenComparing(OrderResponse::getId);
+
+    private final PublishedOrderIndexService publishedOrderIndexService;
+    private final AvailableOrderFeed availableOrderFeed;
+    private final OrderRepository orderRepository;
+    private final EntityDtoMapper entityDtoMapper;
+    private final ObjectMapper objectMapper;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @Value("${orders.board.full-refresh-ms:60000}")
+    private long fullRefreshMs = 60000;
+
+    private volatile Snapshot current;
+    private long generation;
+
+    /**
+     * Keyset-страница свободных заказов с тем же курсором и порядком, что и у выборки из БД.
+     *
+     * @throws IllegalArgumentException если курсор некорректен
+     */
+    public Page page(String cursor, int size) {
+        int safeSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Snapshot snapshot = snapshot();
+        String key = (after == null ? "" : after.encode()) + "|" + safeSize;
+        byte[] body = snapshot.pages.get(key);
+        if (body == null) {
+            body = serialize(snapshot.page(after, safeSize));
+            if (snapshot.pages.size() < MAX_CACHED_PAGES) {
+                snapshot.pages.putIfAbsent(key, body);
+            }
+        }
+        return new Page(snapshot.etag, body);
+    }
+
+    private Snapshot snapshot() {
+        Snapshot snapshot = current;
+        if (snapshot != null && !isStale(snapshot)) {
+            return snapshot;
+        }
+        if (snapshot != null && !refreshLock.tryLock()) {
+            return snapshot;
+        }
+        if (snapshot == null) {
+            refreshLock.lock();
+        }
+        try {
+            snapshot = current;
+            if (snapshot == null || isStale(snapshot)) {
+                snapshot = rebuild(snapshot);
+                current = snapshot;
+            }
+            return snapshot;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private boolean isStale(Snapshot snapshot) {
+        return snapshot.sequence != availableOrderFeed.lastSequence()
+                || System.currentTimeMillis() - snapshot.builtAtMillis >= fullRefreshMs;
+    }
+
+    private Snapshot rebuild(Snapshot previous) {
+        long startedAt = System.currentTimeMillis();
+        boolean full = previous == null || startedAt - previous.builtAtMillis >= fullRefreshMs;
+        PublishedOrderIndexService.AvailableSnapshot state = publishedOrderIndexService.snapshotAvailable();
+
+        List<Long> changedIds = new ArrayList<>();
+        for (AvailableOrderEvent source : state.orders()) {
+            if (full || !source.equals(previous.sources.get(source.getOrderId()))) {
+                changedIds.add(source.getOrderId());
+            }
+        }
+        Map<Long, OrderResponse> loaded = new HashMap<>();
+        if (!changedIds.isEmpty()) {
+            // Индекс обновляется после коммита, поэтому БД может быть чуть впереди: уже занятые заказы не берутся.
+            List<Order> orders = orderRepository.findWithDetailsByIdIn(changedIds).stream()
+                    .filter(order -> order.getStatus() == OrderStatus.PUBLISHED && order.getCourier() == null)
+                    .toList();
+            for (OrderResponse card : entityDtoMapper.toOrderResponses(orders, true)) {
+                loaded.put(card.getId(), card);
+            }
+        }
+
+        Map<Long, AvailableOrderEvent> sources = new HashMap<>();
+        List<OrderResponse> cards = new ArrayList<>(state.orders().size());
+        for (AvailableOrderEvent source : state.orders()) {
+            OrderResponse card = loaded.get(source.getOrderId());
+            if (card == null && !full && source.equals(previous.sources.get(source.getOrderId()))) {
+                card = previous.cardsById.get(source.getOrderId());
+            }
+            if (card != null && card.getPickupTime() != null) {
+                sources.put(source.getOrderId(), source);
+                cards.add(card);
+            }
+        }
+        cards.sort(PICKUP_ORDER);
+
+        long builtAt = full ? startedAt : previous.builtAtMillis;
+        // Полное перечитывание может поменять цены без новых событий, поэтому ETag — номер сборки, а не события.
+        generation++;
+        return new Snapshot(state.sequence(), builtAt, "\"" + epoch + "-" + generation + "\"", cards, sources);
+    }
+
+    private byte[] serialize(PageResponse<OrderResponse> page) {
+        try {
+            return objectMapper.writeValueAsBytes(page);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать список заказов", e);
+        }
+    }
+
+    /**
+     * Готовый JSON страницы ({@link PageResponse} с {@link OrderResponse}) и ETag снимка.
+     */
+    public record Page(String etag, byte[] body) {
+    }
+
+    private static final class Snapshot {
+        private final long sequence;
+        private final long builtAtMillis;
+        private final String etag;
+        private final List<OrderResponse> cards;
+        private final Map<Long, AvailableOrderEvent> sources;
+        private final Map<Long, OrderResponse> cardsById = new HashMap<>();
+        private final Map<String, byte[]> pages = new ConcurrentHashMap<>();
+
+        private Snapshot(
+                long sequence,
+                long builtAtMillis,
+                String etag,
+                List<OrderResponse> cards,
+                Map<Long, AvailableOrderEvent> sources
+        ) {
+            this.sequence = sequence;
+            this.builtAtMillis = builtAtMillis;
+            this.etag = etag;
+            this.cards = List.copyOf(cards);
+            this.sources = sources;
+            for (OrderResponse card : this.cards) {
+                cardsById.put(card.getId(), card);
+            }
+        }
+
+        private PageResponse<OrderResponse> page(KeysetCursor after, int size) {
+            int from = after == null ? 0 : firstAfter(after);
+            int to = Math.min(cards.size(), from + size);
+            List<OrderResponse> content = cards.subList(from, to);
+            String nextCursor = null;
+            if (to < cards.size()) {
+                OrderResponse last = content.get(content.size() - 1);
+                nextCursor = new KeysetCursor(last.getPickupTime(), last.getId()).encode();
+            }
+            return PageResponse.<OrderResponse>builder()
+                    .content(content)
+                    .size(size)
+                    .first(after == null)
+                    .last(nextCursor == null)
+                    .nextCursor(nextCursor)
+                    .build();
+        }
+
+        /**
+         * Индекс первой карточки строго после пары (время, id) курсора — бинарный поиск по отсортированному списку.
+         */
+        private int firstAfter(KeysetCursor after) {
+            int low = 0;
+            int high = cards.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                OrderResponse card = cards.get(mid);
+                int compare = card.getPickupTime().toInstant().compareTo(after.time().toInstant());
+                if (compare < 0 || (compare == 0 && card.getId() <= after.id())) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.core.service;
+
+import com.example.core.dto.AvailableOrderEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Журнал изменений набора свободных заказов для SSE-ленты курьеров.
+ * <p>
+ * Каждое изменение {@link PublishedOrderIndexService} получает порядковый номер и попадает в кольцевой буфер
+ * последних {@code orders.feed.history-size} событий. Клиент, переподключившийся с Last-Event-ID, дочитывает
+ * пропущенное из буфера; если нужные события уже вытеснены или id выдан до перезапуска узла, он получает снимок.
+ * Id события — {@code <эпоха узла>-<номер>}, эпоха меняется при каждом старте.
+ * <p>
+ * Ожидание новых событий — на {@link Condition}, а не {@code synchronized}: подписчики ждут на виртуальных
+ * потоках и не должны занимать поток-носитель.
+ */
+@Service
+public class AvailableOrderFeed {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final ArrayDeque<Event> history = new ArrayDeque<>();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @Value("${orders.feed.history-size:2000}")
+    private int historySize = 2000;
+
+    private long lastSequence;
+
+    /**
+     * Вызывается индексом под его монитором, поэтому номер события согласован со снимком индекса.
+     */
+    void append(EventType type, AvailableOrderEvent payload) {
+        lock.lock();
+        try {
+            lastSequence++;
+            history.addLast(new Event(lastSequence, type, payload));
+            while (history.size() > Math.max(1, historySize)) {
+                history.removeFirst();
+            }
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * @return номер события этого узла или {@code -1}, если id пустой, некорректный или выдан до перезапуска
+     */
+    long parseEventId(String eventId) {
+        if (eventId == null || eventId.isBlank()) {
+            return -1;
+        }
+        String value = eventId.trim();
+        int separator = value.lastIndexOf('-');
+        if (separator <= 0 || !value.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            long sequence = Long.parseLong(value.substring(separator + 1));
+            return sequence < 0 ? -1 : sequence;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * События после {@code sequence}. Если их пока нет, ждёт не дольше {@code timeout}:
+     * пустой список означает, что пора отправить heartbeat.
+     */
+    Replay awaitAfter(long sequence, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            long remainingNanos = timeout.toNanos();
+            while (sequence == lastSequence && remainingNanos > 0) {
+                remainingNanos = appended.awaitNanos(remainingNanos);
+            }
+            long firstRetained = history.isEmpty() ? lastSequence + 1 : history.peekFirst().sequence();
+            if (sequence < firstRetained - 1 || sequence > lastSequence) {
+                return Replay.SNAPSHOT_REQUIRED;
+            }
+            List<Event> events = new ArrayList<>((int) (lastSequence - sequence));
+            for (Event event : history) {
+                if (event.sequence() > sequence) {
+                    events.add(event);
+                }
+            }
+            return new Replay(false, events);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Тип события — имя события в SSE.
+     */
+    enum EventType {
+        PUBLISHED("order-published"),
+        CLAIMED("order-claimed"),
+        CANCELLED("order-cancelled"),
+        /**
+         * Заказ пропал из выборки при ресинхронизации с БД: его принял или отменил другой узел.
+         */
+        REMOVED("order-removed");
+
+        private final String eventName;
+
+        EventType(String eventName) {
+            this.eventName = eventName;
+        }
+
+        String eventName() {
+            return eventName;
+        }
+    }
+
+    record Event(
+            long sequence,
+            EventType type,
+            AvailableOrderEvent payload
+    ) {
+    }
+
+    /**
+     * {@code snapshotRequired} — часть событий после запрошенного номера уже вытеснена из буфера.
+     */
+    record Replay(
+            boolean snapshotRequired,
+            List<Event> events
+    ) {
+        private static final Replay SNAPSHOT_REQUIRED = new Replay(true, List.of());
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.core.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSE-лента свободных заказов для курьеров вместо опроса {@code /available}, {@code /stats} и {@code /clusters}.
+ * <p>
+ * Первое событие {@code snapshot} — весь набор из {@link PublishedOrderIndexService}, дальше дельты
+ * {@code order-published} (новый или изменённый заказ), {@code order-claimed}, {@code order-cancelled}
+ * и {@code order-removed}. При переподключении с Last-Event-ID пропущенные события дочитываются
+ * из {@link AvailableOrderFeed}, без снимка. БД лента не читает: только общий in-memory индекс.
+ * <p>
+ * Запрос отдаётся через async servlet: поток Tomcat освобождается сразу, а каждого подписчика обслуживает
+ * свой виртуальный поток, который спит на ожидании журнала. Простаивающее подключение стоит сокет
+ * и припаркованный виртуальный поток.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AvailableOrderStreamService {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+
+    private final PublishedOrderIndexService publishedOrderIndexService;
+    private final AvailableOrderFeed availableOrderFeed;
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("order-feed-", 0).factory()
+    );
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    @Value("${orders.feed.heartbeat-ms:25000}")
+    private long heartbeatMs = 25000;
+
+    @Value("${orders.feed.connection-timeout-ms:1800000}")
+    private long connectionTimeoutMs = 1800000;
+
+    @Value("${orders.feed.retry-ms:3000}")
+    private long retryMs = 3000;
+
+    @Value("${orders.feed.max-subscribers:10000}")
+    private int maxSubscribers = 10000;
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("orders.feed.subscribers", subscribers);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Открывает ленту. {@code lastEventId} — id последнего полученного события; без него или если
+     * события уже вытеснены из журнала, лента начинается со снимка.
+     *
+     * @throws IllegalStateException если достигнут лимит одновременных подключений
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new IllegalStateException("Слишком много подключений к ленте заказов");
+        }
+
+        SseEmitter emitter = new SseEmitter(connectionTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        long resumeAfter = availableOrderFeed.parseEventId(lastEventId);
+        try {
+            senders.execute(() -> stream(subscriber, resumeAfter));
+        } catch (RejectedExecutionException e) {
+            subscribers.decrementAndGet();
+            throw new IllegalStateException("Лента заказов остановлена", e);
+        }
+        return emitter;
+    }
+
+    private void stream(Subscriber subscriber, long resumeAfter) {
+        SseEmitter emitter = subscriber.emitter;
+        try {
+            emitter.send(SseEmitter.event().reconnectTime(retryMs).comment("connected"));
+            long cursor = resumeAfter < 0 ? sendSnapshot(emitter) : resumeAfter;
+            Duration heartbeat = Duration.ofMillis(Math.max(1000, heartbeatMs));
+            while (!subscriber.closed) {
+                AvailableOrderFeed.Replay replay = availableOrderFeed.awaitAfter(cursor, heartbeat);
+                if (subscriber.closed) {
+                    break;
+                }
+                if (replay.snapshotRequired()) {
+                    cursor = sendSnapshot(emitter);
+                } else if (replay.events().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    for (AvailableOrderFeed.Event event : replay.events()) {
+                        emitter.send(SseEmitter.event()
+                                .id(availableOrderFeed.eventId(event.sequence()))
+                                .name(event.type().eventName())
+                                .data(event.payload(), MediaType.APPLICATION_JSON));
+                        cursor = event.sequence();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Клиент отключился или эмиттер уже завершён по таймауту — закрывать нечего.
+            log.debug("Available order feed subscriber dropped: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Available order feed failed: {}", e.getMessage());
+            emitter.completeWithError(e);
+        } finally {
+            subscribers.decrementAndGet();
+        }
+    }
+
+    private long sendSnapshot(SseEmitter emitter) throws IOException {
+        PublishedOrderIndexService.AvailableSnapshot snapshot = publishedOrderIndexService.snapshotAvailable();
+        emitter.send(SseEmitter.event()
+                .id(availableOrderFeed.eventId(snapshot.sequence()))
+                .name(SNAPSHOT_EVENT)
+                .data(snapshot.orders(), MediaType.APPLICATION_JSON));
+        return snapshot.sequence();
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void close() {
+            closed = true;
+        }
+    }
+}
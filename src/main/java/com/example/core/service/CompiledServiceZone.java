@@ -0,0 +1,149 @@
+package com.example.core.service;
+
+import com.example.core.model.ServiceZone;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Зона обслуживания, скомпилированная для быстрой проверки попадания точки.
+ * <p>
+ * Вершины лежат в примитивных массивах, точка вне описанного прямоугольника отбрасывается сразу.
+ * Полоса (slab) — интервал широт между соседними различными широтами вершин; для каждой полосы
+ * заранее собраны рёбра, которые пересекают её целиком. Луч из точки могут пересечь только рёбра
+ * её полосы, поэтому проверка — бинарный поиск полосы и ray casting по нескольким рёбрам
+ * вместо всех. Правило пересечения то же, что в {@link GeoUtils#isPointInPolygon}.
+ */
+final class CompiledServiceZone {
+
+    private final Long zoneId;
+    private final int vertexCount;
+    private final double[] edgeLat1;
+    private final double[] edgeLng1;
+    private final double[] edgeLat2;
+    private final double[] edgeLng2;
+    private final double minLat;
+    private final double maxLat;
+    private final double minLng;
+    private final double maxLng;
+    private final double[] slabLat;
+    private final int[] slabOffsets;
+    private final int[] slabEdges;
+
+    private CompiledServiceZone(Long zoneId, List<ServiceZone.Coordinate> polygon) {
+        this.zoneId = zoneId;
+        int n = polygon == null ? 0 : polygon.size();
+        this.vertexCount = n;
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = polygon.get(i).getLat();
+            lng[i] = polygon.get(i).getLng();
+        }
+
+        // Рёбра в том же порядке, что и в GeoUtils: (i, j = i - 1), для i = 0 — (0, n - 1).
+        int edgeCount = n < 3 ? 0 : n;
+        edgeLat1 = new double[edgeCount];
+        edgeLng1 = new double[edgeCount];
+        edgeLat2 = new double[edgeCount];
+        edgeLng2 = new double[edgeCount];
+        for (int i = 0, j = n - 1; i < edgeCount; j = i++) {
+            edgeLat1[i] = lat[i];
+            edgeLng1[i] = lng[i];
+            edgeLat2[i] = lat[j];
+            edgeLng2[i] = lng[j];
+        }
+
+        minLat = edgeCount == 0 ? 0.0 : Arrays.stream(lat).min().orElse(0.0);
+        maxLat = edgeCount == 0 ? 0.0 : Arrays.stream(lat).max().orElse(0.0);
+        minLng = edgeCount == 0 ? 0.0 : Arrays.stream(lng).min().orElse(0.0);
+        maxLng = edgeCount == 0 ? 0.0 : Arrays.stream(lng).max().orElse(0.0);
+
+        slabLat = edgeCount == 0 ? new double[0] : Arrays.stream(lat).sorted().distinct().toArray();
+        int slabCount = Math.max(0, slabLat.length - 1);
+        slabOffsets = new int[slabCount + 1];
+        int[] from = new int[edgeCount];
+        int[] to = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            if (edgeLat1[e] == edgeLat2[e]) {
+                // Горизонтальные рёбра луч не пересекают, как и в GeoUtils.
+                from[e] = 0;
+                to[e] = 0;
+                continue;
+            }
+            from[e] = Arrays.binarySearch(slabLat, Math.min(edgeLat1[e], edgeLat2[e]));
+            to[e] = Arrays.binarySearch(slabLat, Math.max(edgeLat1[e], edgeLat2[e]));
+            for (int slab = from[e]; slab < to[e]; slab++) {
+                slabOffsets[slab + 1]++;
+            }
+        }
+        for (int slab = 0; slab < slabCount; slab++) {
+            slabOffsets[slab + 1] += slabOffsets[slab];
+        }
+        slabEdges = new int[slabOffsets[slabCount]];
+        int[] cursor = Arrays.copyOf(slabOffsets, slabCount);
+        for (int e = 0; e < edgeCount; e++) {
+            for (int slab = from[e]; slab < to[e]; slab++) {
+                slabEdges[cursor[slab]++] = e;
+            }
+        }
+    }
+
+    static CompiledServiceZone compile(ServiceZone zone) {
+        return new CompiledServiceZone(zone.getId(), zone.getCoordinates());
+    }
+
+    Long getZoneId() {
+        return zoneId;
+    }
+
+    double getMinLat() {
+        return minLat;
+    }
+
+    double getMaxLat() {
+        return maxLat;
+    }
+
+    double getMinLng() {
+        return minLng;
+    }
+
+    double getMaxLng() {
+        return maxLng;
+    }
+
+    /**
+     * Зона без координат: проверять попадание не во что.
+     */
+    boolean isEmpty() {
+        return vertexCount == 0;
+    }
+
+    boolean contains(double lat, double lng) {
+        if (slabOffsets.length <= 1 || lat < minLat || lat >= maxLat || lng < minLng || lng > maxLng) {
+            return false;
+        }
+
+        // Полоса s = [slabLat[s], slabLat[s + 1]); lat < maxLat, поэтому s < slabLat.length - 1.
+        int position = Arrays.binarySearch(slabLat, lat);
+        int slab = position >= 0 ? position : -position - 2;
+
+        boolean inside = false;
+        for (int k = slabOffsets[slab]; k < slabOffsets[slab + 1]; k++) {
+            int e = slabEdges[k];
+            double xi = edgeLng1[e];
+            double yi = edgeLat1[e];
+            double xj = edgeLng2[e];
+            double yj = edgeLat2[e];
+            if (Math.abs(yj - yi) < 1e-10) {
+                continue;
+            }
+            double xIntersect = (xj - xi) * (lat - yi) / (yj - yi) + xi;
+            if (lng < xIntersect) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -30,6 +30,7 @@ public class DispatchPolicyService {
     private final OperatorDashboardService operatorDashboardService;
     private final AuditService auditService;
     private final NotificationService notificationService;
+    private final PublishedOrderIndexService publishedOrderIndexService;
 
     @Value("${dispatch.mode:MANUAL}")
     private String dispatchModeRaw;
@@ -113,16 +114,18 @@ public class DispatchPolicyService {
             throw new IllegalStateException("Указанный пользователь не может быть назначен курьером");
         }
 
-        Order order = orderRepository.findByIdWithLock(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Заказ не найден"));
-
-        if (order.getStatus() != OrderStatus.PUBLISHED || order.getCourier() != null) {
-            return order;
+        // SKIP LOCKED: если заказ уже взял или прямо сейчас берёт курьер из приложения,
+        // строка не блокируется и назначение просто не срабатывает, не дожидаясь чужого коммита.
+        List<Order> claimable = orderRepository.lockClaimable(List.of(orderId));
+        if (claimable.isEmpty()) {
+            return orderRepository.findById(orderId)
+                    .orElseThrow(() -> new IllegalArgumentException("Заказ не найден"));
         }
 
-        order.setCourier(courier);
-        order.setStatus(OrderStatus.ACCEPTED);
-        Order saved = orderRepository.save(order);
+        Order saved = claimable.get(0);
+        saved.setCourier(courier);
+        saved.setStatus(OrderStatus.ACCEPTED);
+        publishedOrderIndexService.onOrderChanged(saved);
 
         auditService.log(
                 "ORDER_DISPATCH",
@@ -0,0 +1,275 @@
+package com.example.core.service;
+
+import com.example.core.model.GeocodeCacheEntry;
+import com.example.core.repository.GeocodeCacheRepository;
+import com.example.core.util.AddressNormalizer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Двухуровневый кэш ответов геокодера.
+ * <p>
+ * L1 — LRU в памяти процесса, ограниченный числом записей; L2 — таблица {@code geocode_cache}, общая для всех узлов.
+ * Кэшируются и найденные результаты, и пустые (негативные) — с более коротким TTL. Ошибки провайдера не кэшируются.
+ * После {@code refresh-ahead-ratio} от TTL запись ещё отдаётся, но в фоне перезапрашивается у провайдера,
+ * поэтому частые адреса не истекают под нагрузкой.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GeocodingCacheService {
+
+    private final GeocodeCacheRepository geocodeCacheRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${geocoder.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${geocoder.cache.l1-max-entries:10000}")
+    private int l1MaxEntries = 10000;
+
+    @Value("${geocoder.cache.ttl-hours:720}")
+    private long ttlHours = 720;
+
+    @Value("${geocoder.cache.negative-ttl-hours:24}")
+    private long negativeTtlHours = 24;
+
+    @Value("${geocoder.cache.refresh-ahead-ratio:0.8}")
+    private double refreshAheadRatio = 0.8;
+
+    private final Map<String, CachedValue> l1 = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+            return size() > Math.max(1, l1MaxEntries);
+        }
+    };
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refreshExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "geocode-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Нормализованный ключ запроса: регистр, «ё», пунктуация и повторяющиеся пробелы не влияют на попадание в кэш.
+     */
+    static String normalizeKey(String query) {
+        return AddressNormalizer.normalize(query);
+    }
+
+    /**
+     * Возвращает значение из кэша или загружает его у провайдера.
+     * Пустой Optional от загрузчика кэшируется как негативный результат; исключения загрузчика пробрасываются
+     * и не кэшируются.
+     *
+     * @param key    нормализованный ключ вместе с типом запроса
+     * @param type   тип значения для (де)сериализации в L2
+     * @param loader запрос к провайдеру
+     */
+    public <T> Optional<T> get(String key, TypeReference<T> type, Supplier<Optional<T>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        CachedValue cached = getLocal(key);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            record("l1");
+            refreshAheadIfNeeded(key, cached, now, type, loader);
+            return cast(cached);
+        }
+
+        cached = readShared(key, type, now);
+        if (cached != null) {
+            record("l2");
+            putLocal(key, cached);
+            refreshAheadIfNeeded(key, cached, now, type, loader);
+            return cast(cached);
+        }
+
+        record("miss");
+        return cast(load(key, type, loader));
+    }
+
+    /**
+     * Значение из кэша без обращения к провайдеру — для пакетных запросов, где провайдер вызывается асинхронно.
+     *
+     * @return пусто, если ключа нет в кэше; иначе закэшированный ответ, в том числе негативный (пустой)
+     */
+    public <T> Optional<Optional<T>> find(String key, TypeReference<T> type) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        CachedValue cached = getLocal(key);
+        if (cached == null || !cached.expiresAt().isAfter(now)) {
+            cached = readShared(key, type, now);
+            if (cached == null) {
+                record("miss");
+                return Optional.empty();
+            }
+            record("l2");
+            putLocal(key, cached);
+        } else {
+            record("l1");
+        }
+        Optional<T> value = cast(cached);
+        return Optional.of(value);
+    }
+
+    /**
+     * Сохраняет ответ провайдера, полученный в обход {@link #get}, с теми же TTL.
+     */
+    public <T> void put(String key, Optional<T> value) {
+        if (enabled) {
+            store(key, value);
+        }
+    }
+
+    @Scheduled(cron = "${geocoder.cache.cleanup-cron:0 15 4 * * *}")
+    public void deleteExpired() {
+        try {
+            int deleted = geocodeCacheRepository.deleteByExpiresAtBefore(OffsetDateTime.now());
+            if (deleted > 0) {
+                log.info("Geocode cache cleanup removed {} expired entries", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Geocode cache cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdownRefreshExecutor() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private <T> CachedValue load(String key, TypeReference<T> type, Supplier<Optional<T>> loader) {
+        return store(key, loader.get());
+    }
+
+    private <T> CachedValue store(String key, Optional<T> loaded) {
+        OffsetDateTime now = OffsetDateTime.now();
+        Duration ttl = Duration.ofHours(Math.max(1, loaded.isPresent() ? ttlHours : negativeTtlHours));
+        Duration refreshAfter = Duration.ofMillis((long) (ttl.toMillis() * Math.max(0.1, Math.min(refreshAheadRatio, 1.0))));
+        CachedValue value = new CachedValue(
+                loaded.map(Object.class::cast),
+                now.plus(refreshAfter),
+                now.plus(ttl)
+        );
+        putLocal(key, value);
+        writeShared(key, value);
+        return value;
+    }
+
+    /**
+     * Фоновое обновление записи, у которой прошёл порог refresh-ahead. На ключ одновременно идёт не больше одного
+     * обновления; при ошибке провайдера остаётся старое значение до истечения TTL.
+     */
+    private <T> void refreshAheadIfNeeded(
+            String key,
+            CachedValue cached,
+            OffsetDateTime now,
+            TypeReference<T> type,
+            Supplier<Optional<T>> loader
+    ) {
+        if (cached.refreshAt().isAfter(now) || !refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(key, type, loader);
+                } catch (RuntimeException e) {
+                    log.debug("Geocode cache refresh failed for '{}': {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private CachedValue getLocal(String key) {
+        synchronized (l1) {
+            return l1.get(key);
+        }
+    }
+
+    private void putLocal(String key, CachedValue value) {
+        synchronized (l1) {
+            l1.put(key, value);
+        }
+    }
+
+    private <T> CachedValue readShared(String key, TypeReference<T> type, OffsetDateTime now) {
+        try {
+            Optional<GeocodeCacheEntry> entry = geocodeCacheRepository.findByCacheKeyAndExpiresAtAfter(key, now);
+            if (entry.isEmpty()) {
+                return null;
+            }
+            GeocodeCacheEntry row = entry.get();
+            Optional<Object> value = row.isFound()
+                    ? Optional.of(objectMapper.readValue(row.getPayload(), type))
+                    : Optional.empty();
+            return new CachedValue(value, row.getRefreshAt(), row.getExpiresAt());
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Geocode cache read failed for '{}': {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeShared(String key, CachedValue value) {
+        try {
+            String payload = value.value().isPresent() ? objectMapper.writeValueAsString(value.value().get()) : null;
+            geocodeCacheRepository.upsert(
+                    key,
+                    payload,
+                    value.value().isPresent(),
+                    value.refreshAt(),
+                    value.expiresAt(),
+                    OffsetDateTime.now()
+            );
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Geocode cache write failed for '{}': {}", key, e.getMessage());
+        }
+    }
+
+    private void record(String result) {
+        meterRegistry.counter("geocoding.cache.requests", "result", result).increment();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Optional<T> cast(CachedValue cached) {
+        return (Optional<T>) cached.value();
+    }
+
+    private record CachedValue(
+            Optional<Object> value,
+            OffsetDateTime refreshAt,
+            OffsetDateTime expiresAt
+    ) {
+    }
+}
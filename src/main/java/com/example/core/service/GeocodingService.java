@@ -1,6 +1,10 @@
 package com.example.core.service;
 
+import com.example.core.integration.CallNotPermittedException;
+import com.example.core.integration.IntegrationClient;
 import com.example.core.model.ServiceZone;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,12 +22,33 @@ import org.springframework.web.util.UriComponentsBuilder;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * Сервис геокодинга: преобразование адреса в координаты.
- * Работает ТОЛЬКО с Яндекс.Геокодером. Без fallback.
+ * <p>
+ * Провайдер выбирается {@code geocoder.provider}: {@code yandex} — Яндекс.Геокодер,
+ * {@code gazetteer} — только локальный справочник {@link AddressGazetteer}, без сети и кэша
+ * (нагрузочные тесты). При недоступности Яндекса координаты и подсказки берутся из справочника
+ * ({@code geocoder.gazetteer.fallback}), а координаты — ещё и из словаря адресов.
  */
 @Slf4j
 @Service
@@ -32,22 +57,60 @@ public class GeocodingService {
 
     private static final String YANDEX_GEOCODER_URL = "https://geocode-maps.yandex.ru/1.x";
     private static final int MAX_RESULTS = 10;
-
-    private final RestTemplate restTemplate;
+    private static final String COORDINATES_KEY_PREFIX = "coordinates:";
+    private static final String SUGGESTIONS_KEY_PREFIX = "suggestions:";
+    private static final int MIN_SUGGESTION_QUERY_LENGTH = 3;
+    private static final int MAX_RECENT_SUGGESTIONS = 2000;
+    private static final String GAZETTEER_PROVIDER = "gazetteer";
+    private static final TypeReference<ServiceZone.Coordinate> COORDINATE_TYPE = new TypeReference<>() {
+    };
+    private static final TypeReference<SuggestionSet> SUGGESTIONS_TYPE = new TypeReference<>() {
+    };
+    private static final SuggestionSet NO_SUGGESTIONS = new SuggestionSet(List.of(), false);
+
+    private final IntegrationClient geocoderClient;
     private final com.fasterxml.jackson.databind.ObjectMapper objectMapper;
+    private final GeocodingCacheService geocodingCacheService;
+    private final AddressDictionaryService addressDictionaryService;
+    private final AddressGazetteer addressGazetteer;
 
     @Value("${geocoder.yandex.api-key}")
     private String yandexApiKey;
 
-    @Value("${integration.geocoder.max-retries:2}")
-    private int maxRetries;
+    @Value("${geocoder.provider:yandex}")
+    private String provider = "yandex";
+
+    @Value("${geocoder.gazetteer.fallback:true}")
+    private boolean gazetteerFallback = true;
+
+    @Value("${geocoder.suggestions.micro-cache-ttl-ms:30000}")
+    private long suggestionsMicroCacheTtlMs = 30000;
+
+    @Value("${geocoder.batch.deadline-ms:15000}")
+    private long batchDeadlineMs = 15000;
+
+    @Value("${geocoder.batch.max-in-flight:4}")
+    private int batchMaxInFlight = 4;
 
-    @Value("${integration.geocoder.retry-backoff-ms:250}")
-    private long retryBackoffMs;
+    @Value("${geocoder.batch.max-addresses:500}")
+    private int batchMaxAddresses = 500;
+
+    /**
+     * Запросы подсказок, уже ушедшие к провайдеру: одновременные вызовы с тем же ключом ждут общий результат.
+     */
+    private final Map<String, CompletableFuture<SuggestionSet>> inFlightSuggestions = new ConcurrentHashMap<>();
+    private final Map<String, RecentSuggestions> recentSuggestions = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RecentSuggestions> eldest) {
+            return size() > MAX_RECENT_SUGGESTIONS;
+        }
+    };
 
     /**
      * Преобразует адрес в координаты через Яндекс.Геокодер.
-     * Результат кэшируется (см. CacheConfig).
+     * Результат, в том числе «не найдено», кэшируется (см. {@link GeocodingCacheService}).
+     * Если геокодер недоступен, используются координаты из локального справочника,
+     * затем из словаря адресов.
      *
      * @param address адрес для геокодинга
      * @return координаты (lat, lng)
@@ -55,31 +118,395 @@ public class GeocodingService {
      */
     public ServiceZone.Coordinate getCoordinates(String address) {
         String cleanAddress = normalizeQuery(address, "Адрес не может быть пустым");
-        JsonNode featureMember = fetchFeatureMembers(cleanAddress, 1);
+        if (isGazetteerProvider()) {
+            return addressGazetteer.findCoordinates(cleanAddress)
+                    .orElseThrow(() -> new IllegalArgumentException("Адрес не найден в справочнике адресов: " + cleanAddress));
+        }
 
-        if (!featureMember.isArray() || featureMember.isEmpty()) {
-            log.warn("Адрес не найден в геокодере: {}", cleanAddress);
-            throw new IllegalArgumentException("Адрес не найден в геокодере: " + cleanAddress);
+        ServiceZone.Coordinate coordinate;
+        try {
+            coordinate = geocodingCacheService.get(
+                    COORDINATES_KEY_PREFIX + GeocodingCacheService.normalizeKey(cleanAddress),
+                    COORDINATE_TYPE,
+                    () -> lookupCoordinates(cleanAddress)
+            ).orElseThrow(() -> {
+                log.warn("Адрес не найден в геокодере: {}", cleanAddress);
+                return new IllegalArgumentException("Адрес не найден в геокодере: " + cleanAddress);
+            });
+        } catch (IllegalStateException e) {
+            // Провайдер недоступен (или предохранитель открыт) — берём координаты из справочника или истории адресов.
+            coordinate = knownCoordinates(cleanAddress).orElseThrow(() -> e);
+            log.warn("Геокодер недоступен, координаты адреса '{}' взяты из локальных данных", cleanAddress);
         }
 
-        ServiceZone.Coordinate coordinate = parseCoordinate(featureMember.get(0), cleanAddress);
-        log.info("Адрес '{}' успешно геокодирован: lat={}, lng={}", cleanAddress, coordinate.getLat(), coordinate.getLng());
-        return coordinate;
+        // Копия, чтобы вызывающий код не мог изменить закэшированный объект.
+        return new ServiceZone.Coordinate(coordinate.getLat(), coordinate.getLng());
+    }
+
+    /**
+     * Координаты для пакета адресов (массовое создание заказов) в пределах общего бюджета
+     * {@code geocoder.batch.deadline-ms}.
+     * <p>
+     * Адреса дедуплицируются по нормализованному ключу, ответы кэша берутся сразу. Промахи уходят к провайдеру
+     * через {@link IntegrationClient#executeAsync}, не больше {@code geocoder.batch.max-in-flight} одновременно:
+     * остальные потоки и очередь bulkhead геокодера остаются форме заказа. Адреса, не успевшие к дедлайну,
+     * ищутся в справочнике и словаре адресов; не найденные в ответ не попадают.
+     *
+     * @param addresses адреса строк пакета, повторы допустимы
+     * @return координаты по ключу {@link com.example.core.util.AddressNormalizer#normalize(String)} адреса
+     * @throws IllegalArgumentException если различных адресов больше {@code geocoder.batch.max-addresses}
+     * @throws IllegalStateException    если провайдер недоступен и не для всех адресов есть локальные координаты
+     */
+    public Map<String, ServiceZone.Coordinate> getCoordinatesAll(Collection<String> addresses) {
+        Map<String, String> pending = new LinkedHashMap<>();
+        for (String address : addresses) {
+            String key = GeocodingCacheService.normalizeKey(address);
+            if (!key.isEmpty()) {
+                pending.putIfAbsent(key, address.trim());
+            }
+        }
+        if (pending.size() > Math.max(0, batchMaxAddresses)) {
+            throw new IllegalArgumentException(
+                    "Слишком много адресов без координат: " + pending.size() + " (не больше " + batchMaxAddresses
+                            + "). Передайте координаты в строках пакета"
+            );
+        }
+
+        Map<String, ServiceZone.Coordinate> resolved = new HashMap<>();
+        if (isGazetteerProvider()) {
+            pending.forEach((key, cleanAddress) -> addressGazetteer.findCoordinates(cleanAddress)
+                    .ifPresent(coordinate -> resolved.put(key, coordinate)));
+            return resolved;
+        }
+
+        List<Map.Entry<String, String>> misses = new ArrayList<>();
+        for (Map.Entry<String, String> entry : pending.entrySet()) {
+            Optional<Optional<ServiceZone.Coordinate>> cached =
+                    geocodingCacheService.find(COORDINATES_KEY_PREFIX + entry.getKey(), COORDINATE_TYPE);
+            if (cached.isEmpty()) {
+                misses.add(entry);
+            } else {
+                cached.get().ifPresent(coordinate -> resolved.put(
+                        entry.getKey(),
+                        new ServiceZone.Coordinate(coordinate.getLat(), coordinate.getLng())
+                ));
+            }
+        }
+
+        List<Map.Entry<String, String>> unanswered = new ArrayList<>();
+        IllegalStateException unavailable = lookupCoordinatesAll(misses, resolved, unanswered);
+        int unresolved = 0;
+        for (Map.Entry<String, String> entry : unanswered) {
+            Optional<ServiceZone.Coordinate> known = knownCoordinates(entry.getValue());
+            if (known.isPresent()) {
+                resolved.put(entry.getKey(), known.get());
+            } else {
+                unresolved++;
+            }
+        }
+        if (unavailable != null && unresolved > 0) {
+            throw unavailable;
+        }
+        if (!unanswered.isEmpty()) {
+            log.warn("Пакетный геокодинг: провайдер не ответил по {} адресам, без координат осталось {}",
+                    unanswered.size(), unresolved);
+        }
+        return resolved;
+    }
+
+    /**
+     * Опрашивает провайдера окном из {@code geocoder.batch.max-in-flight} асинхронных вызовов до дедлайна.
+     * Ответы (в том числе «не найдено») кладутся в кэш; адреса, которые провайдер не успел или не смог обработать,
+     * попадают в {@code unanswered}. После первой ошибки доступности новые вызовы не начинаются.
+     *
+     * @return ошибка доступности провайдера или {@code null}
+     */
+    private IllegalStateException lookupCoordinatesAll(
+            List<Map.Entry<String, String>> misses,
+            Map<String, ServiceZone.Coordinate> resolved,
+            List<Map.Entry<String, String>> unanswered
+    ) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(1L, batchDeadlineMs));
+        int window = Math.max(1, batchMaxInFlight);
+        Deque<Map.Entry<String, String>> queue = new ArrayDeque<>(misses);
+        Map<CompletableFuture<ResponseEntity<String>>, Map.Entry<String, String>> inFlight = new HashMap<>();
+        IllegalStateException unavailable = null;
+        try {
+            while (true) {
+                while (unavailable == null && inFlight.size() < window && !queue.isEmpty()) {
+                    Map.Entry<String, String> next = queue.poll();
+                    try {
+                        inFlight.put(geocoderClient.executeAsync(
+                                geocodeRequest(next.getValue(), 1),
+                                result -> isRetriableStatus(result.getStatusCode())
+                        ), next);
+                    } catch (IllegalStateException e) {
+                        unavailable = e;
+                        unanswered.add(next);
+                    }
+                }
+                long remaining = deadline - System.nanoTime();
+                if (inFlight.isEmpty() || remaining <= 0) {
+                    break;
+                }
+                try {
+                    CompletableFuture.anyOf(inFlight.keySet().toArray(CompletableFuture[]::new))
+                            .get(remaining, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    break;
+                } catch (ExecutionException e) {
+                    // Ошибка конкретного адреса разбирается ниже вместе с остальными завершёнными вызовами.
+                }
+
+                Iterator<Map.Entry<CompletableFuture<ResponseEntity<String>>, Map.Entry<String, String>>> done =
+                        inFlight.entrySet().iterator();
+                while (done.hasNext()) {
+                    Map.Entry<CompletableFuture<ResponseEntity<String>>, Map.Entry<String, String>> call = done.next();
+                    if (!call.getKey().isDone()) {
+                        continue;
+                    }
+                    done.remove();
+                    String key = call.getValue().getKey();
+                    try {
+                        Optional<ServiceZone.Coordinate> coordinate = coordinateFrom(call.getKey(), call.getValue().getValue());
+                        geocodingCacheService.put(COORDINATES_KEY_PREFIX + key, coordinate);
+                        coordinate.ifPresent(value -> resolved.put(key, value));
+                    } catch (IllegalStateException providerError) {
+                        unavailable = providerError;
+                        unanswered.add(call.getValue());
+                    } catch (IllegalArgumentException notFound) {
+                        // Адрес не найден — строка получит ошибку «координаты не определены» при проверке пакета.
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unavailable = new IllegalStateException("Геокодинг пакета прерван", e);
+        } finally {
+            // Отмена прекращает повторы, а поток bulkhead освобождается после текущей попытки.
+            inFlight.keySet().forEach(call -> call.cancel(false));
+        }
+        unanswered.addAll(inFlight.values());
+        unanswered.addAll(queue);
+        return unavailable;
     }
 
     /**
      * Возвращает список адресных подсказок вместе с координатами.
+     * <p>
+     * У провайдера всегда запрашивается максимум вариантов, лимит применяется при ответе. Свежие ответы
+     * держатся в микрокэше: если ответ на «Ленина 1» полный (провайдер вернул меньше максимума),
+     * ответ на «Ленина 12» получается его фильтрацией без обращения к провайдеру. Геокодер ищет не по префиксу,
+     * поэтому пустой ответ полным не считается, а пустой результат фильтрации уходит к провайдеру.
+     * Одновременные запросы с одинаковым нормализованным текстом разделяют один вызов провайдера.
+     * Если провайдер недоступен, подсказки берутся из локального справочника.
      */
     public List<AddressSuggestion> suggestAddresses(String query, int limit) {
+        try {
+            return suggestAddressesAsync(query, limit).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * То же, что {@link #suggestAddresses}, но без ожидания провайдера в вызывающем потоке.
+     * <p>
+     * Загрузка не принадлежит тому, кто её начал: отмена возвращённого future её не прерывает,
+     * и ответ провайдера, пришедший после дедлайна вызывающего, всё равно попадает в кэш.
+     */
+    public CompletableFuture<List<AddressSuggestion>> suggestAddressesAsync(String query, int limit) {
         String cleanQuery = query == null ? "" : query.trim();
-        if (cleanQuery.length() < 3) {
-            return List.of();
+        if (cleanQuery.length() < MIN_SUGGESTION_QUERY_LENGTH) {
+            return CompletableFuture.completedFuture(List.of());
         }
 
         int safeLimit = Math.max(1, Math.min(limit, MAX_RESULTS));
-        JsonNode featureMember = fetchFeatureMembers(cleanQuery, safeLimit);
+        if (isGazetteerProvider()) {
+            return CompletableFuture.completedFuture(addressGazetteer.suggest(cleanQuery, safeLimit));
+        }
+
+        String key = GeocodingCacheService.normalizeKey(cleanQuery);
+        SuggestionSet recent = findRecentSuggestions(key);
+        CompletableFuture<SuggestionSet> suggestions = recent != null
+                ? CompletableFuture.completedFuture(recent)
+                : loadSuggestionsOnce(key, cleanQuery);
+        // Зависимая стадия: отмена со стороны вызывающего не затрагивает общую загрузку.
+        return suggestions.handle((loaded, error) -> {
+            if (error == null) {
+                return loaded.suggestions().stream()
+                        .limit(safeLimit)
+                        .toList();
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            if (cause instanceof IllegalStateException) {
+                List<AddressSuggestion> fallback = useGazetteerFallback()
+                        ? addressGazetteer.suggest(cleanQuery, safeLimit)
+                        : List.of();
+                if (!fallback.isEmpty()) {
+                    return fallback;
+                }
+            }
+            throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Загрузка подсказок, общая для одновременных запросов с одинаковым ключом.
+     * Ответ провайдера сохраняется в кэше и микрокэше, когда приходит, даже если его уже никто не ждёт.
+     */
+    private CompletableFuture<SuggestionSet> loadSuggestionsOnce(String key, String cleanQuery) {
+        CompletableFuture<SuggestionSet> own = new CompletableFuture<>();
+        CompletableFuture<SuggestionSet> existing = inFlightSuggestions.putIfAbsent(key, own);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            Optional<Optional<SuggestionSet>> cached = geocodingCacheService.find(SUGGESTIONS_KEY_PREFIX + key, SUGGESTIONS_TYPE);
+            if (cached.isPresent()) {
+                finishSuggestions(key, own, cached.get().orElse(NO_SUGGESTIONS));
+                return own;
+            }
+
+            log.debug("Выполняется геокодинг запроса: '{}'", cleanQuery);
+            CompletableFuture<ResponseEntity<String>> call = geocoderClient.executeAsync(
+                    geocodeRequest(cleanQuery, MAX_RESULTS),
+                    result -> isRetriableStatus(result.getStatusCode())
+            );
+            call.whenComplete((response, error) -> {
+                try {
+                    Optional<SuggestionSet> loaded = suggestionsFrom(call, cleanQuery);
+                    geocodingCacheService.put(SUGGESTIONS_KEY_PREFIX + key, loaded);
+                    finishSuggestions(key, own, loaded.orElse(NO_SUGGESTIONS));
+                } catch (RuntimeException e) {
+                    inFlightSuggestions.remove(key, own);
+                    own.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlightSuggestions.remove(key, own);
+            own.completeExceptionally(e);
+        }
+        return own;
+    }
+
+    private void finishSuggestions(String key, CompletableFuture<SuggestionSet> own, SuggestionSet loaded) {
+        // Сначала микрокэш, затем снятие с учёта: следующий запрос не должен снова уйти к провайдеру.
+        rememberSuggestions(key, loaded);
+        inFlightSuggestions.remove(key, own);
+        own.complete(loaded);
+    }
+
+    private boolean isGazetteerProvider() {
+        return GAZETTEER_PROVIDER.equals(provider == null ? "" : provider.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private boolean useGazetteerFallback() {
+        return gazetteerFallback && addressGazetteer.isAvailable();
+    }
+
+    private Optional<ServiceZone.Coordinate> knownCoordinates(String cleanAddress) {
+        if (useGazetteerFallback()) {
+            Optional<ServiceZone.Coordinate> fromGazetteer = addressGazetteer.findCoordinates(cleanAddress);
+            if (fromGazetteer.isPresent()) {
+                return fromGazetteer;
+            }
+        }
+        return addressDictionaryService.findByAddress(cleanAddress)
+                .filter(entry -> entry.getLat() != null && entry.getLng() != null)
+                .map(entry -> new ServiceZone.Coordinate(entry.getLat(), entry.getLng()));
+    }
+
+    /**
+     * Точное совпадение из микрокэша либо отфильтрованный полный ответ на самый длинный префикс запроса.
+     * Если в полном ответе на префикс ничего не подошло, возвращается {@code null}: варианта для уточнённого
+     * запроса там может просто не быть, и спрашивать нужно провайдера.
+     */
+    private SuggestionSet findRecentSuggestions(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (recentSuggestions) {
+            for (int end = key.length(); end >= MIN_SUGGESTION_QUERY_LENGTH; end--) {
+                String prefix = key.substring(0, end);
+                RecentSuggestions recent = recentSuggestions.get(prefix);
+                if (recent == null) {
+                    continue;
+                }
+                if (recent.expiresAtMillis() <= now) {
+                    recentSuggestions.remove(prefix);
+                    continue;
+                }
+                if (end == key.length()) {
+                    return recent.suggestions();
+                }
+                if (recent.suggestions().complete()) {
+                    SuggestionSet filtered = recent.suggestions().filter(key);
+                    return filtered.suggestions().isEmpty() ? null : filtered;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void rememberSuggestions(String key, SuggestionSet suggestions) {
+        long expiresAt = System.currentTimeMillis() + Math.max(0L, suggestionsMicroCacheTtlMs);
+        synchronized (recentSuggestions) {
+            recentSuggestions.put(key, new RecentSuggestions(suggestions, expiresAt));
+        }
+    }
+
+    private Optional<ServiceZone.Coordinate> lookupCoordinates(String cleanAddress) {
+        return firstCoordinate(fetchFeatureMembers(cleanAddress, 1), cleanAddress);
+    }
+
+    /**
+     * Координаты из завершённого асинхронного вызова с теми же исключениями, что и у синхронного пути.
+     */
+    private Optional<ServiceZone.Coordinate> coordinateFrom(
+            CompletableFuture<ResponseEntity<String>> call,
+            String cleanAddress
+    ) {
+        return firstCoordinate(featureMembersFrom(call, cleanAddress), cleanAddress);
+    }
+
+    private JsonNode featureMembersFrom(CompletableFuture<ResponseEntity<String>> call, String query) {
+        ResponseEntity<String> response;
+        try {
+            response = call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RestClientException clientError) {
+                throw providerUnavailable(query, clientError);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Сервис геокодинга временно недоступен", e.getCause());
+        }
+        return parseFeatureMembers(query, response);
+    }
+
+    private Optional<ServiceZone.Coordinate> firstCoordinate(JsonNode featureMember, String cleanAddress) {
         if (!featureMember.isArray() || featureMember.isEmpty()) {
-            return List.of();
+            return Optional.empty();
+        }
+
+        ServiceZone.Coordinate coordinate = parseCoordinate(featureMember.get(0), cleanAddress);
+        log.info("Адрес '{}' успешно геокодирован: lat={}, lng={}", cleanAddress, coordinate.getLat(), coordinate.getLng());
+        return Optional.of(coordinate);
+    }
+
+    /**
+     * Подсказки из завершённого асинхронного вызова с теми же исключениями, что и у синхронного пути.
+     */
+    private Optional<SuggestionSet> suggestionsFrom(CompletableFuture<ResponseEntity<String>> call, String cleanQuery) {
+        JsonNode featureMember = featureMembersFrom(call, cleanQuery);
+        if (!featureMember.isArray() || featureMember.isEmpty()) {
+            return Optional.empty();
         }
 
         List<AddressSuggestion> suggestions = new ArrayList<>();
@@ -96,18 +523,32 @@ public class GeocodingService {
                         coordinate.getLat(),
                         coordinate.getLng()
                 ));
-                if (suggestions.size() >= safeLimit) {
-                    break;
-                }
             } catch (IllegalArgumentException ignored) {
                 // Пропускаем "битые" элементы, но сохраняем остальные подсказки
             }
         }
 
-        return suggestions;
+        if (suggestions.isEmpty()) {
+            return Optional.empty();
+        }
+        // Страница, где часть элементов оказалась битой, полным ответом не считается.
+        boolean complete = featureMember.size() < MAX_RESULTS && suggestions.size() == featureMember.size();
+        return Optional.of(new SuggestionSet(List.copyOf(suggestions), complete));
     }
 
     private JsonNode fetchFeatureMembers(String query, int results) {
+        Function<RestTemplate, ResponseEntity<String>> request = geocodeRequest(query, results);
+        ResponseEntity<String> response;
+        try {
+            log.debug("Выполняется геокодинг запроса: '{}'", query);
+            response = geocoderClient.execute(request, result -> isRetriableStatus(result.getStatusCode()));
+        } catch (RestClientException e) {
+            throw providerUnavailable(query, e);
+        }
+        return parseFeatureMembers(query, response);
+    }
+
+    private Function<RestTemplate, ResponseEntity<String>> geocodeRequest(String query, int results) {
         if (!hasText(yandexApiKey)) {
             throw new IllegalStateException("Yandex geocoder API key is not configured");
         }
@@ -124,54 +565,33 @@ public class GeocodingService {
         HttpHeaders headers = new HttpHeaders();
         headers.set("User-Agent", "MusorService/1.0");
         HttpEntity<Void> entity = new HttpEntity<>(headers);
+        return restTemplate -> restTemplate.exchange(uri, HttpMethod.GET, entity, String.class);
+    }
 
-        int attempts = Math.max(1, maxRetries + 1);
-        Exception lastError = null;
+    private IllegalStateException providerUnavailable(String query, RestClientException e) {
+        if (!(e instanceof CallNotPermittedException)) {
+            log.error("Сетевая ошибка геокодера для запроса '{}': {}", query, e.getMessage());
+        }
+        return new IllegalStateException("Сервис геокодинга временно недоступен", e);
+    }
 
-        for (int attempt = 1; attempt <= attempts; attempt++) {
+    private JsonNode parseFeatureMembers(String query, ResponseEntity<String> response) {
+        if (response.getStatusCode().is2xxSuccessful()) {
             try {
-                log.debug("Выполняется геокодинг запроса: '{}' (attempt {}/{})", query, attempt, attempts);
-                ResponseEntity<String> response = restTemplate.exchange(uri, HttpMethod.GET, entity, String.class);
-
-                if (response.getStatusCode().is2xxSuccessful()) {
-                    JsonNode root = objectMapper.readTree(response.getBody());
-                    return root.path("response")
-                            .path("GeoObjectCollection")
-                            .path("featureMember");
-                }
-
-                if (!isRetriableStatus(response.getStatusCode()) || attempt == attempts) {
-                    if (response.getStatusCode().is4xxClientError()) {
-                        if (isProviderAccessError(response.getStatusCode().value())) {
-                            throw new IllegalStateException("Сервис геокодинга временно недоступен");
-                        }
-                        throw new IllegalArgumentException("Адрес не найден в геокодере");
-                    }
-                    throw new IllegalStateException("Сервис геокодинга временно недоступен");
-                }
-
-                sleepBeforeRetry(attempt);
-            } catch (IllegalArgumentException e) {
-                throw e;
-            } catch (RestClientException e) {
-                lastError = e;
-                log.warn("Сетевая ошибка геокодера (attempt {}/{}): {}", attempt, attempts, e.getMessage());
-                if (attempt == attempts) {
-                    break;
-                }
-                sleepBeforeRetry(attempt);
-            } catch (Exception e) {
-                lastError = e;
-                log.warn("Ошибка геокодинга (attempt {}/{}): {}", attempt, attempts, e.getMessage());
-                if (attempt == attempts) {
-                    break;
-                }
-                sleepBeforeRetry(attempt);
+                JsonNode root = objectMapper.readTree(response.getBody());
+                return root.path("response")
+                        .path("GeoObjectCollection")
+                        .path("featureMember");
+            } catch (JsonProcessingException e) {
+                log.error("Некорректный ответ геокодера для запроса '{}': {}", query, e.getMessage());
+                throw new IllegalStateException("Сервис геокодинга временно недоступен", e);
             }
         }
 
-        log.error("Критическая ошибка при геокодинге запроса: {}", query, lastError);
-        throw new IllegalStateException("Сервис геокодинга временно недоступен", lastError);
+        if (response.getStatusCode().is4xxClientError() && !isProviderAccessError(response.getStatusCode().value())) {
+            throw new IllegalArgumentException("Адрес не найден в геокодере");
+        }
+        throw new IllegalStateException("Сервис геокодинга временно недоступен");
     }
 
     private boolean isRetriableStatus(HttpStatusCode statusCode) {
@@ -182,16 +602,6 @@ public class GeocodingService {
         return statusCode == 401 || statusCode == 403 || statusCode == 429;
     }
 
-    private void sleepBeforeRetry(int attempt) {
-        long base = Math.max(50L, retryBackoffMs);
-        long delay = Math.min(2000L, base * attempt);
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException interruptedException) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
     private ServiceZone.Coordinate parseCoordinate(JsonNode featureMemberItem, String queryForErrors) {
         String pos = featureMemberItem
                 .path("GeoObject")
@@ -242,4 +652,29 @@ public class GeocodingService {
 
     public record AddressSuggestion(String address, double lat, double lng) {
     }
+
+    /**
+     * Ответ провайдера на запрос подсказок. {@code complete} — провайдер вернул меньше максимума и все
+     * варианты разобраны, то есть других вариантов по этому запросу у него нет. Пустой ответ полным не бывает.
+     */
+    record SuggestionSet(List<AddressSuggestion> suggestions, boolean complete) {
+
+        /**
+         * Подсказки, подходящие под более длинный запрос: каждое слово запроса — начало какого-либо слова адреса.
+         */
+        SuggestionSet filter(String normalizedQuery) {
+            String[] queryWords = normalizedQuery.split(" ");
+            List<AddressSuggestion> matching = suggestions.stream()
+                    .filter(suggestion -> {
+                        String[] addressWords = GeocodingCacheService.normalizeKey(suggestion.address()).split(" ");
+                        return Arrays.stream(queryWords).allMatch(queryWord -> Arrays.stream(addressWords)
+                                .anyMatch(addressWord -> addressWord.startsWith(queryWord)));
+                    })
+                    .toList();
+            return new SuggestionSet(matching, true);
+        }
+    }
+
+    private record RecentSuggestions(SuggestionSet suggestions, long expiresAtMillis) {
+    }
 }
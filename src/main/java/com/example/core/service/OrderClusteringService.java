@@ -1,26 +1,40 @@
 package com.example.core.service;
 
 import com.example.core.dto.OrderClusterResponse;
+import com.example.core.dto.OrderClusteringOptions;
 import com.example.core.dto.OrderClusteringResponse;
+import com.example.core.model.ClusteringAlgorithm;
 import com.example.core.model.Order;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 @Service
 public class OrderClusteringService {
 
     private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    private static final double METERS_PER_DEGREE_LAT = EARTH_RADIUS_METERS * Math.PI / 180.0;
+    private static final double GRID_CELL_MARGIN = 1.01;
+    private static final double MIN_GRID_COS_LAT = 1e-6;
+    private static final int DEFAULT_MIN_POINTS = 2;
+    private static final int MAX_MIN_POINTS = 50;
+    private static final int DEFAULT_MAX_CLUSTER_ORDERS = 20;
+    private static final int MAX_CLUSTER_ORDERS = 200;
+    private static final double DEFAULT_MAX_DIAMETER_METERS = 1_000.0;
+    private static final double MAX_DIAMETER_METERS = 10_000.0;
     private static final LocalTime SLOT_1_START = LocalTime.of(8, 0);
     private static final LocalTime SLOT_1_END = LocalTime.of(11, 0);
     private static final LocalTime SLOT_2_START = LocalTime.of(13, 0);
@@ -32,154 +46,436 @@ public class OrderClusteringService {
     private static final String SLOT_19_21 = "19:00-21:00";
     private static final String SLOT_CUSTOM = "CUSTOM";
     private static final String DATE_UNKNOWN = "UNKNOWN";
+    static final Comparator<OrderClusterResponse> CLUSTER_ORDER = Comparator
+            .comparing(OrderClusterResponse::getPickupFrom, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(OrderClusterResponse::getOrderCount, Comparator.reverseOrder());
+
+    @Value("${clustering.parallel.enabled:true}")
+    private boolean parallelEnabled = true;
+
+    @Value("${clustering.parallel.min-orders:400}")
+    private int parallelMinOrders = 400;
+
+    @Value("${clustering.parallel.max-threads:4}")
+    private int parallelMaxThreads = 4;
+
+    private volatile ForkJoinPool clusteringPool;
 
     public OrderClusteringResponse clusterOrders(List<Order> orders, double radiusMeters) {
-        double safeRadiusMeters = normalizeRadius(radiusMeters);
-
-        List<OrderPoint> points = new ArrayList<>();
-        int skippedWithoutCoordinates = 0;
-        if (orders != null) {
-            for (Order order : orders) {
-                OrderPoint point = toPoint(order);
-                if (point == null) {
-                    skippedWithoutCoordinates++;
-                    continue;
-                }
-                points.add(point);
-            }
-        }
+        return clusterOrders(orders, OrderClusteringOptions.builder().radiusMeters(radiusMeters).build());
+    }
+
+    public OrderClusteringResponse clusterOrders(List<Order> orders, OrderClusteringOptions options) {
+        OrderClusteringOptions safeOptions = normalizeOptions(options);
 
-        List<OrderClusterResponse> clusters = buildClusters(points, safeRadiusMeters);
+        PointTable points = toPointTable(orders);
+        List<OrderClusterResponse> clusters = buildClusters(points, safeOptions);
         int clusteredOrders = clusters.stream().mapToInt(OrderClusterResponse::getOrderCount).sum();
 
         return OrderClusteringResponse.builder()
-                .radiusMeters(safeRadiusMeters)
+                .radiusMeters(safeOptions.getRadiusMeters())
                 .sourceOrders(orders == null ? 0 : orders.size())
                 .clusteredOrders(clusteredOrders)
-                .skippedWithoutCoordinates(skippedWithoutCoordinates)
+                .skippedWithoutCoordinates(points.skippedWithoutCoordinates)
                 .clusters(clusters)
                 .build();
     }
 
-    private List<OrderClusterResponse> buildClusters(List<OrderPoint> points, double radiusMeters) {
-        if (points.isEmpty()) {
+    private List<OrderClusterResponse> buildClusters(PointTable points, OrderClusteringOptions options) {
+        if (points.size == 0) {
+            return List.of();
+        }
+
+        BucketIndex buckets = bucketByDateAndSlot(points);
+        int bucketCount = buckets.keys.size();
+        List<OrderClusterResponse> clusters = new ArrayList<>();
+
+        if (shouldClusterInParallel(points.size, bucketCount)) {
+            // Бакеты независимы, а id кластера зависит только от своего бакета,
+            // поэтому сборка результатов в порядке бакетов детерминирована.
+            ForkJoinPool pool = clusteringPool();
+            List<ForkJoinTask<List<OrderClusterResponse>>> tasks = new ArrayList<>(bucketCount);
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                int bucketIndex = bucket;
+                tasks.add(pool.submit(() -> clusterBucket(points, buckets, bucketIndex, options)));
+            }
+            for (ForkJoinTask<List<OrderClusterResponse>> task : tasks) {
+                clusters.addAll(task.join());
+            }
+        } else {
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                clusters.addAll(clusterBucket(points, buckets, bucket, options));
+            }
+        }
+
+        return clusters.stream()
+                .sorted(CLUSTER_ORDER)
+                .toList();
+    }
+
+    private List<OrderClusterResponse> clusterBucket(
+            PointTable points,
+            BucketIndex buckets,
+            int bucket,
+            OrderClusteringOptions options
+    ) {
+        int from = buckets.offsets[bucket];
+        int n = buckets.offsets[bucket + 1] - from;
+        if (n == 0) {
             return List.of();
         }
 
+        PickupKey key = buckets.keys.get(bucket);
+        int[] members = buckets.members;
+        SpatialGraph graph = buildSpatialGraph(points, members, from, n, options.getRadiusMeters());
+        if (options.getAlgorithm() == ClusteringAlgorithm.DENSITY) {
+            return densityClusters(key, points, members, from, n, graph, options);
+        }
+
+        BitSet visited = new BitSet(n);
+        int[] queue = new int[n];
+        int tail = 0;
+        int clusterCounter = 1;
+        List<OrderClusterResponse> clusters = new ArrayList<>();
+        for (int start = visited.nextClearBit(0); start < n; start = visited.nextClearBit(start + 1)) {
+            int componentStart = tail;
+            tail = bfsComponent(start, graph, visited, queue, tail);
+            clusters.add(toCluster(clusterId(key, clusterCounter++), key, points, members, from, queue, componentStart, tail));
+        }
+        return clusters;
+    }
+
+    /**
+     * Плотностная кластеризация в духе DBSCAN: кластер растёт только от core-точек
+     * (не меньше minPoints заказов в радиусе, включая саму точку), но в отличие от DBSCAN
+     * рост ограничен maxOrders и maxDiameterMeters — один курьер должен физически успеть забрать кластер.
+     * Точки, не поместившиеся в кластер, остаются свободными и могут стать началом следующего;
+     * шумовые точки выдаются одиночными кластерами, чтобы каждый заказ оставался доступен.
+     */
+    private List<OrderClusterResponse> densityClusters(
+            PickupKey key,
+            PointTable points,
+            int[] members,
+            int from,
+            int n,
+            SpatialGraph graph,
+            OrderClusteringOptions options
+    ) {
+        int minPoints = options.getMinPoints();
+        int maxOrders = options.getMaxOrders();
+        double maxDiameterMeters = options.getMaxDiameterMeters();
+
+        BitSet assigned = new BitSet(n);
+        BitSet queued = new BitSet(n);
+        int[] queue = new int[n];
+        int[] cluster = new int[Math.min(n, maxOrders)];
+        int clusterCounter = 1;
         List<OrderClusterResponse> clusters = new ArrayList<>();
-        Map<PickupKey, List<Integer>> buckets = bucketByDateAndSlot(points);
 
-        for (Map.Entry<PickupKey, List<Integer>> entry : buckets.entrySet()) {
-            PickupKey key = entry.getKey();
-            List<Integer> indexes = entry.getValue();
-            if (indexes.isEmpty()) {
+        for (int seed = 0; seed < n; seed++) {
+            if (assigned.get(seed) || !isCore(graph, seed, minPoints)) {
                 continue;
             }
 
-            boolean[][] adjacency = buildAdjacency(points, indexes, radiusMeters);
-            Set<Integer> visited = new HashSet<>();
-            int clusterCounter = 1;
-            for (int idx = 0; idx < indexes.size(); idx++) {
-                if (visited.contains(idx)) {
+            int size = 0;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = seed;
+            queued.set(seed);
+            while (head < tail && size < maxOrders) {
+                int current = queue[head++];
+                if (assigned.get(current)
+                        || !fitsDiameter(points, members, from, cluster, size, current, maxDiameterMeters)) {
+                    continue;
+                }
+                assigned.set(current);
+                cluster[size++] = current;
+                if (!isCore(graph, current, minPoints)) {
                     continue;
                 }
-                List<Integer> component = bfsComponent(idx, adjacency, visited);
-                String clusterId = key.dateLabel + "_" + key.slotLabel.replace(":", "").replace("-", "_") + "_" + clusterCounter++;
-                clusters.add(toCluster(clusterId, key, component, indexes, points));
+                for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                    int next = graph.adjacency[e];
+                    if (!assigned.get(next) && !queued.get(next)) {
+                        queued.set(next);
+                        queue[tail++] = next;
+                    }
+                }
             }
+            for (int q = 0; q < tail; q++) {
+                queued.clear(queue[q]);
+            }
+            clusters.add(toCluster(clusterId(key, clusterCounter++), key, points, members, from, cluster, 0, size));
         }
 
-        return clusters.stream()
-                .sorted(Comparator
-                        .comparing(OrderClusterResponse::getPickupFrom, Comparator.nullsLast(Comparator.naturalOrder()))
-                        .thenComparing(OrderClusterResponse::getOrderCount, Comparator.reverseOrder()))
-                .toList();
+        for (int noise = assigned.nextClearBit(0); noise < n; noise = assigned.nextClearBit(noise + 1)) {
+            cluster[0] = noise;
+            clusters.add(toCluster(clusterId(key, clusterCounter++), key, points, members, from, cluster, 0, 1));
+        }
+        return clusters;
+    }
+
+    private boolean isCore(SpatialGraph graph, int point, int minPoints) {
+        return graph.offsets[point + 1] - graph.offsets[point] + 1 >= minPoints;
+    }
+
+    private boolean fitsDiameter(
+            PointTable points,
+            int[] members,
+            int from,
+            int[] cluster,
+            int size,
+            int candidate,
+            double maxDiameterMeters
+    ) {
+        int candidatePoint = members[from + candidate];
+        for (int k = 0; k < size; k++) {
+            int point = members[from + cluster[k]];
+            double distance = haversineMeters(
+                    points.lat[candidatePoint],
+                    points.lng[candidatePoint],
+                    points.lat[point],
+                    points.lng[point]
+            );
+            if (distance > maxDiameterMeters) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String clusterId(PickupKey key, int clusterCounter) {
+        return key.dateLabel + "_" + key.slotLabel.replace(":", "").replace("-", "_") + "_" + clusterCounter;
+    }
+
+    /**
+     * Параллелим только когда есть что делить: несколько бакетов и достаточно заказов,
+     * иначе накладные расходы пула превышают выигрыш.
+     */
+    private boolean shouldClusterInParallel(int pointCount, int bucketCount) {
+        return parallelEnabled
+                && parallelMaxThreads > 1
+                && bucketCount > 1
+                && pointCount >= Math.max(1, parallelMinOrders);
+    }
+
+    private ForkJoinPool clusteringPool() {
+        ForkJoinPool pool = clusteringPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = clusteringPool;
+                if (pool == null) {
+                    pool = new ForkJoinPool(Math.max(2, Math.min(parallelMaxThreads, 64)));
+                    clusteringPool = pool;
+                }
+            }
+        }
+        return pool;
     }
 
-    private Map<PickupKey, List<Integer>> bucketByDateAndSlot(List<OrderPoint> points) {
-        Map<PickupKey, List<Integer>> buckets = new HashMap<>();
-        for (int idx = 0; idx < points.size(); idx++) {
-            PickupKey key = resolvePickupKey(points.get(idx).pickupTime);
-            buckets.computeIfAbsent(key, ignored -> new ArrayList<>()).add(idx);
+    @PreDestroy
+    void shutdownClusteringPool() {
+        ForkJoinPool pool = clusteringPool;
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private BucketIndex bucketByDateAndSlot(PointTable points) {
+        Map<PickupKey, Integer> ordinals = new HashMap<>();
+        List<PickupKey> keys = new ArrayList<>();
+        int[] bucketOf = new int[points.size];
+        for (int idx = 0; idx < points.size; idx++) {
+            PickupKey key = resolvePickupKey(points.orders[idx].getPickupTime());
+            Integer ordinal = ordinals.get(key);
+            if (ordinal == null) {
+                ordinal = keys.size();
+                ordinals.put(key, ordinal);
+                keys.add(key);
+            }
+            bucketOf[idx] = ordinal;
+        }
+
+        int[] offsets = new int[keys.size() + 1];
+        for (int idx = 0; idx < points.size; idx++) {
+            offsets[bucketOf[idx] + 1]++;
+        }
+        for (int bucket = 0; bucket < keys.size(); bucket++) {
+            offsets[bucket + 1] += offsets[bucket];
+        }
+
+        int[] members = new int[points.size];
+        int[] cursor = Arrays.copyOf(offsets, keys.size());
+        for (int idx = 0; idx < points.size; idx++) {
+            members[cursor[bucketOf[idx]]++] = idx;
         }
-        return buckets;
+        return new BucketIndex(keys, offsets, members);
     }
 
-    private boolean[][] buildAdjacency(List<OrderPoint> points, List<Integer> indexes, double radiusMeters) {
-        int n = indexes.size();
-        boolean[][] adjacency = new boolean[n][n];
+    /**
+     * Строит граф соседства через равномерную сетку: ячейка не меньше радиуса,
+     * поэтому пары в пределах радиуса всегда лежат в соседних ячейках (3x3),
+     * и haversine считается только для них. Попутно пары объединяются в union-find.
+     * Соседи каждой вершины отсортированы по возрастанию индекса, как строки прежней матрицы смежности.
+     */
+    private SpatialGraph buildSpatialGraph(PointTable points, int[] members, int from, int n, double radiusMeters) {
+        double maxAbsLat = 0.0;
+        for (int i = 0; i < n; i++) {
+            maxAbsLat = Math.max(maxAbsLat, Math.abs(points.lat[members[from + i]]));
+        }
+        double cellLatDegrees = radiusMeters * GRID_CELL_MARGIN / METERS_PER_DEGREE_LAT;
+        double cosLat = Math.max(MIN_GRID_COS_LAT, Math.cos(Math.toRadians(Math.min(90.0, maxAbsLat + cellLatDegrees))));
+        double cellLngDegrees = cellLatDegrees / cosLat;
+
+        long[] cellKeys = new long[n];
+        CellIndex cells = new CellIndex(n);
+        for (int i = 0; i < n; i++) {
+            int point = members[from + i];
+            long key = cellKey(
+                    cellCoordinate(points.lat[point], cellLatDegrees),
+                    cellCoordinate(points.lng[point], cellLngDegrees)
+            );
+            cellKeys[i] = key;
+            cells.add(key, i);
+        }
+
+        DisjointSet components = new DisjointSet(n);
+        int[] degree = new int[n];
+        int[] candidates = new int[n];
+        int[] edges = new int[Math.max(16, 2 * n)];
+        int edgeCount = 0;
+
         for (int i = 0; i < n; i++) {
-            adjacency[i][i] = true;
-            for (int j = i + 1; j < n; j++) {
-                OrderPoint first = points.get(indexes.get(i));
-                OrderPoint second = points.get(indexes.get(j));
-                double distance = haversineMeters(
-                        first.lat,
-                        first.lng,
-                        second.lat,
-                        second.lng
-                );
-                if (distance <= radiusMeters) {
-                    adjacency[i][j] = true;
-                    adjacency[j][i] = true;
+            int first = members[from + i];
+            int cellY = (int) (cellKeys[i] >> 32);
+            int cellX = (int) cellKeys[i];
+
+            int found = 0;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int j = cells.first(cellKey(cellY + dy, cellX + dx)); j >= 0; j = cells.next[j]) {
+                        if (j <= i) {
+                            continue;
+                        }
+                        int second = members[from + j];
+                        double distance = haversineMeters(
+                                points.lat[first],
+                                points.lng[first],
+                                points.lat[second],
+                                points.lng[second]
+                        );
+                        if (distance <= radiusMeters) {
+                            candidates[found++] = j;
+                        }
+                    }
                 }
             }
+
+            Arrays.sort(candidates, 0, found);
+            for (int k = 0; k < found; k++) {
+                int j = candidates[k];
+                if (2 * edgeCount + 2 > edges.length) {
+                    edges = Arrays.copyOf(edges, edges.length * 2);
+                }
+                edges[2 * edgeCount] = i;
+                edges[2 * edgeCount + 1] = j;
+                edgeCount++;
+                degree[i]++;
+                degree[j]++;
+                components.union(i, j);
+            }
+        }
+
+        // Рёбра идут по возрастанию (i, j), поэтому заполнение в этом порядке
+        // даёт отсортированные списки соседей без дополнительной сортировки.
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + degree[v];
+        }
+        int[] adjacency = new int[offsets[n]];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < edgeCount; e++) {
+            int a = edges[2 * e];
+            int b = edges[2 * e + 1];
+            adjacency[cursor[a]++] = b;
+            adjacency[cursor[b]++] = a;
         }
-        return adjacency;
+
+        return new SpatialGraph(offsets, adjacency, components);
     }
 
-    private List<Integer> bfsComponent(int start, boolean[][] adjacency, Set<Integer> visited) {
-        ArrayDeque<Integer> queue = new ArrayDeque<>();
-        List<Integer> component = new ArrayList<>();
-        queue.add(start);
-        visited.add(start);
-
-        while (!queue.isEmpty()) {
-            int current = queue.poll();
-            component.add(current);
-            for (int next = 0; next < adjacency.length; next++) {
-                if (!adjacency[current][next] || visited.contains(next)) {
+    /**
+     * Обход в ширину нужен только для порядка заказов внутри кластера (и порядка суммирования
+     * центроида): он совпадает с прежним обходом матрицы смежности, поэтому ответ не меняется.
+     * Компонента дописывается в общую очередь бакета, возвращается новый конец очереди.
+     */
+    private int bfsComponent(int start, SpatialGraph graph, BitSet visited, int[] queue, int tail) {
+        int head = tail;
+        visited.set(start);
+        queue[tail++] = start;
+        if (graph.components.size(start) == 1) {
+            return tail;
+        }
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                int next = graph.adjacency[e];
+                if (visited.get(next)) {
                     continue;
                 }
-                visited.add(next);
-                queue.add(next);
+                visited.set(next);
+                queue[tail++] = next;
             }
         }
-        return component;
+        return tail;
+    }
+
+    private int cellCoordinate(double degrees, double cellDegrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private long cellKey(int cellY, int cellX) {
+        return ((long) cellY << 32) | (cellX & 0xFFFFFFFFL);
     }
 
     private OrderClusterResponse toCluster(
             String clusterId,
             PickupKey key,
-            List<Integer> component,
-            List<Integer> indexes,
-            List<OrderPoint> points
+            PointTable points,
+            int[] members,
+            int from,
+            int[] queue,
+            int componentStart,
+            int componentEnd
     ) {
         double latSum = 0.0;
         double lngSum = 0.0;
         OffsetDateTime pickupFrom = null;
         OffsetDateTime pickupTo = null;
-        List<Long> orderIds = new ArrayList<>();
-        List<String> addresses = new ArrayList<>();
-
-        for (Integer index : component) {
-            OrderPoint point = points.get(indexes.get(index));
-            latSum += point.lat;
-            lngSum += point.lng;
-            orderIds.add(point.orderId);
-            addresses.add(point.address);
-
-            if (point.pickupTime != null) {
-                if (pickupFrom == null || point.pickupTime.isBefore(pickupFrom)) {
-                    pickupFrom = point.pickupTime;
+        int count = componentEnd - componentStart;
+        List<Long> orderIds = new ArrayList<>(count);
+        List<String> addresses = new ArrayList<>(count);
+
+        for (int q = componentStart; q < componentEnd; q++) {
+            int point = members[from + queue[q]];
+            latSum += points.lat[point];
+            lngSum += points.lng[point];
+            orderIds.add(points.ids[point]);
+
+            Order order = points.orders[point];
+            addresses.add(order.getAddress() == null ? "" : order.getAddress().trim());
+
+            OffsetDateTime pickupTime = order.getPickupTime();
+            if (pickupTime != null) {
+                if (pickupFrom == null || pickupTime.isBefore(pickupFrom)) {
+                    pickupFrom = pickupTime;
                 }
-                if (pickupTo == null || point.pickupTime.isAfter(pickupTo)) {
-                    pickupTo = point.pickupTime;
+                if (pickupTo == null || pickupTime.isAfter(pickupTo)) {
+                    pickupTo = pickupTime;
                 }
             }
         }
 
-        int count = component.size();
         return OrderClusterResponse.builder()
                 .clusterId(clusterId)
                 .orderCount(count)
@@ -194,33 +490,75 @@ public class OrderClusteringService {
                 .build();
     }
 
-    private OrderPoint toPoint(Order order) {
-        if (order == null || order.getId() == null) {
-            return null;
+    private PointTable toPointTable(List<Order> orders) {
+        PointTable points = new PointTable(orders == null ? 0 : orders.size());
+        if (orders == null) {
+            return points;
         }
 
-        Double lat = order.getLat();
-        Double lng = order.getLng();
-        if ((lat == null || lng == null) && order.getSubscription() != null) {
-            lat = lat == null ? order.getSubscription().getServiceLat() : lat;
-            lng = lng == null ? order.getSubscription().getServiceLng() : lng;
+        for (Order order : orders) {
+            if (order == null || order.getId() == null) {
+                points.skippedWithoutCoordinates++;
+                continue;
+            }
+
+            Double lat = order.getLat();
+            Double lng = order.getLng();
+            if ((lat == null || lng == null) && order.getSubscription() != null) {
+                lat = lat == null ? order.getSubscription().getServiceLat() : lat;
+                lng = lng == null ? order.getSubscription().getServiceLng() : lng;
+            }
+
+            if (lat == null || lng == null) {
+                points.skippedWithoutCoordinates++;
+                continue;
+            }
+            points.add(order, lat, lng);
         }
+        return points;
+    }
+
+    /**
+     * Ключ бакета дата/слот, в который попадёт заказ с данным временем вывоза.
+     * Кластеры разных бакетов независимы, поэтому их можно пересчитывать по отдельности.
+     */
+    String bucketKey(OffsetDateTime pickupTime) {
+        PickupKey key = resolvePickupKey(pickupTime);
+        return key.dateLabel + "|" + key.slotLabel;
+    }
 
-        if (lat == null || lng == null) {
-            return null;
+    /**
+     * Приводит параметры к допустимым границам. Для CONNECTED параметры плотностного режима
+     * обнуляются, чтобы одинаковые по смыслу запросы давали равные объекты (используются как ключ кэша).
+     */
+    static OrderClusteringOptions normalizeOptions(OrderClusteringOptions options) {
+        OrderClusteringOptions source = options == null ? OrderClusteringOptions.builder().build() : options;
+        ClusteringAlgorithm algorithm = source.getAlgorithm() == null ? ClusteringAlgorithm.CONNECTED : source.getAlgorithm();
+        double radiusMeters = normalizeRadius(source.getRadiusMeters());
+        if (algorithm == ClusteringAlgorithm.CONNECTED) {
+            return OrderClusteringOptions.builder()
+                    .algorithm(algorithm)
+                    .radiusMeters(radiusMeters)
+                    .build();
         }
 
-        return new OrderPoint(
-                order.getId(),
-                lat,
-                lng,
-                order.getPickupTime(),
-                order.getAddress() == null ? "" : order.getAddress().trim()
-        );
+        int minPoints = source.getMinPoints() == null ? DEFAULT_MIN_POINTS : source.getMinPoints();
+        int maxOrders = source.getMaxOrders() == null ? DEFAULT_MAX_CLUSTER_ORDERS : source.getMaxOrders();
+        Double rawDiameter = source.getMaxDiameterMeters();
+        double maxDiameterMeters = rawDiameter == null || rawDiameter.isNaN() || rawDiameter.isInfinite()
+                ? DEFAULT_MAX_DIAMETER_METERS
+                : rawDiameter;
+        return OrderClusteringOptions.builder()
+                .algorithm(algorithm)
+                .radiusMeters(radiusMeters)
+                .minPoints(Math.max(1, Math.min(MAX_MIN_POINTS, minPoints)))
+                .maxOrders(Math.max(1, Math.min(MAX_CLUSTER_ORDERS, maxOrders)))
+                .maxDiameterMeters(Math.max(radiusMeters, Math.min(MAX_DIAMETER_METERS, maxDiameterMeters)))
+                .build();
     }
 
-    private double normalizeRadius(double radiusMeters) {
-        if (Double.isNaN(radiusMeters) || Double.isInfinite(radiusMeters)) {
+    private static double normalizeRadius(Double radiusMeters) {
+        if (radiusMeters == null || radiusMeters.isNaN() || radiusMeters.isInfinite()) {
             return 50.0;
         }
         return Math.max(10.0, Math.min(500.0, radiusMeters));
@@ -265,15 +603,145 @@ public class OrderClusteringService {
         return EARTH_RADIUS_METERS * c;
     }
 
-    private record OrderPoint(
-            Long orderId,
-            double lat,
-            double lng,
-            OffsetDateTime pickupTime,
-            String address
+    /**
+     * Точки кластеризации в виде structure-of-arrays: координаты и id лежат в примитивных
+     * массивах, исходный заказ нужен только при сборке DTO готового кластера.
+     */
+    private static final class PointTable {
+        private final Order[] orders;
+        private final long[] ids;
+        private final double[] lat;
+        private final double[] lng;
+        private int size;
+        private int skippedWithoutCoordinates;
+
+        private PointTable(int capacity) {
+            orders = new Order[capacity];
+            ids = new long[capacity];
+            lat = new double[capacity];
+            lng = new double[capacity];
+        }
+
+        private void add(Order order, double pointLat, double pointLng) {
+            orders[size] = order;
+            ids[size] = order.getId();
+            lat[size] = pointLat;
+            lng[size] = pointLng;
+            size++;
+        }
+    }
+
+    /**
+     * Бакеты дата/слот в CSR-виде: точки бакета {@code b} лежат в
+     * {@code members[offsets[b]..offsets[b + 1])} в исходном порядке.
+     */
+    private record BucketIndex(
+            List<PickupKey> keys,
+            int[] offsets,
+            int[] members
+    ) {
+    }
+
+    /**
+     * Граф соседства бакета в CSR-виде: соседи вершины {@code v} —
+     * {@code adjacency[offsets[v]..offsets[v + 1])} по возрастанию индекса.
+     */
+    private record SpatialGraph(
+            int[] offsets,
+            int[] adjacency,
+            DisjointSet components
     ) {
     }
 
+    /**
+     * Хэш-таблица ячеек сетки с открытой адресацией: ячейка хранит голову
+     * односвязного списка точек, ссылки на следующую точку лежат в {@code next}.
+     */
+    private static final class CellIndex {
+        private final long[] keys;
+        private final int[] heads;
+        private final int[] next;
+        private final int mask;
+
+        private CellIndex(int points) {
+            int capacity = Integer.highestOneBit(Math.max(4, points * 2) - 1) << 1;
+            keys = new long[capacity];
+            heads = new int[capacity];
+            Arrays.fill(heads, -1);
+            next = new int[points];
+            mask = capacity - 1;
+        }
+
+        private void add(long key, int point) {
+            int slot = slot(key);
+            keys[slot] = key;
+            next[point] = heads[slot];
+            heads[slot] = point;
+        }
+
+        private int first(long key) {
+            return heads[slot(key)];
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (heads[slot] >= 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Union-find с сжатием путей и объединением по размеру.
+     */
+    private static final class DisjointSet {
+        private final int[] parent;
+        private final int[] size;
+
+        private DisjointSet(int n) {
+            parent = new int[n];
+            size = new int[n];
+            for (int i = 0; i < n; i++) {
+                parent[i] = i;
+                size[i] = 1;
+            }
+        }
+
+        private int find(int x) {
+            int root = x;
+            while (parent[root] != root) {
+                root = parent[root];
+            }
+            while (parent[x] != root) {
+                int next = parent[x];
+                parent[x] = root;
+                x = next;
+            }
+            return root;
+        }
+
+        private void union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) {
+                return;
+            }
+            if (size[rootA] < size[rootB]) {
+                int tmp = rootA;
+                rootA = rootB;
+                rootB = tmp;
+            }
+            parent[rootB] = rootA;
+            size[rootA] += size[rootB];
+        }
+
+        private int size(int x) {
+            return size[find(x)];
+        }
+    }
+
     private record PickupKey(
             String dateLabel,
             String slotLabel
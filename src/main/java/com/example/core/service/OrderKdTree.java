@@ -0,0 +1,186 @@
+package com.example.core.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Неизменяемое 3D KD-дерево по заказам для поиска k ближайших.
+ * <p>
+ * Точки переводятся в координаты на единичной сфере: длина хорды монотонна по расстоянию
+ * по поверхности, поэтому отсечение по евклидовой метрике даёт точный результат для haversine
+ * без искажений проекции. Дерево хранится неявно в перестановке {@code nodes}:
+ * корень поддерева {@code [lo, hi)} — элемент {@code (lo + hi) / 2}.
+ */
+final class OrderKdTree {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+
+    private final long[] ids;
+    private final double[][] coordinates;
+    private final int[] nodes;
+
+    OrderKdTree(long[] ids, double[] lat, double[] lng) {
+        int n = ids.length;
+        this.ids = ids;
+        this.coordinates = new double[3][n];
+        this.nodes = new int[n];
+        for (int i = 0; i < n; i++) {
+            double latRad = Math.toRadians(lat[i]);
+            double lngRad = Math.toRadians(lng[i]);
+            coordinates[0][i] = Math.cos(latRad) * Math.cos(lngRad);
+            coordinates[1][i] = Math.cos(latRad) * Math.sin(lngRad);
+            coordinates[2][i] = Math.sin(latRad);
+            nodes[i] = i;
+        }
+        build(0, n, 0);
+    }
+
+    int size() {
+        return nodes.length;
+    }
+
+    /**
+     * k ближайших точек по возрастанию расстояния; при равенстве — по возрастанию id.
+     */
+    List<Neighbor> nearest(double lat, double lng, int k) {
+        int limit = Math.min(k, nodes.length);
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        double latRad = Math.toRadians(lat);
+        double lngRad = Math.toRadians(lng);
+        double[] query = {
+                Math.cos(latRad) * Math.cos(lngRad),
+                Math.cos(latRad) * Math.sin(lngRad),
+                Math.sin(latRad)
+        };
+        Candidates candidates = new Candidates(limit);
+        search(0, nodes.length, 0, query, candidates);
+
+        List<Neighbor> result = new ArrayList<>(candidates.size);
+        for (int i = 0; i < candidates.size; i++) {
+            double chord = Math.sqrt(candidates.distances[i]);
+            double meters = 2.0 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, chord / 2.0));
+            result.add(new Neighbor(ids[candidates.points[i]], meters));
+        }
+        return result;
+    }
+
+    private void build(int lo, int hi, int axis) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, coordinates[axis]);
+        int nextAxis = (axis + 1) % 3;
+        build(lo, mid, nextAxis);
+        build(mid + 1, hi, nextAxis);
+    }
+
+    /**
+     * Quickselect: после вызова {@code nodes[k]} — k-я по оси точка, слева не больше, справа не меньше.
+     */
+    private void select(int left, int right, int k, double[] axisValues) {
+        while (left < right) {
+            double pivot = axisValues[nodes[(left + right) >>> 1]];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (axisValues[nodes[i]] < pivot) {
+                    i++;
+                }
+                while (axisValues[nodes[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int tmp = nodes[i];
+                    nodes[i] = nodes[j];
+                    nodes[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void search(int lo, int hi, int axis, double[] query, Candidates candidates) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int point = nodes[mid];
+        double dx = coordinates[0][point] - query[0];
+        double dy = coordinates[1][point] - query[1];
+        double dz = coordinates[2][point] - query[2];
+        candidates.offer(point, dx * dx + dy * dy + dz * dz, ids);
+
+        double diff = query[axis] - coordinates[axis][point];
+        int nextAxis = (axis + 1) % 3;
+        if (diff < 0) {
+            search(lo, mid, nextAxis, query, candidates);
+            if (!candidates.isFull() || diff * diff <= candidates.worst()) {
+                search(mid + 1, hi, nextAxis, query, candidates);
+            }
+        } else {
+            search(mid + 1, hi, nextAxis, query, candidates);
+            if (!candidates.isFull() || diff * diff <= candidates.worst()) {
+                search(lo, mid, nextAxis, query, candidates);
+            }
+        }
+    }
+
+    record Neighbor(
+            long orderId,
+            double distanceMeters
+    ) {
+    }
+
+    /**
+     * Ограниченный список лучших кандидатов, отсортированный по (расстояние, id).
+     * k невелико, поэтому вставка сдвигом дешевле кучи.
+     */
+    private static final class Candidates {
+        private final int[] points;
+        private final double[] distances;
+        private int size;
+
+        private Candidates(int capacity) {
+            points = new int[capacity];
+            distances = new double[capacity];
+        }
+
+        private boolean isFull() {
+            return size == points.length;
+        }
+
+        private double worst() {
+            return distances[size - 1];
+        }
+
+        private void offer(int point, double distance, long[] ids) {
+            if (isFull() && !isBetter(distance, ids[point], distances[size - 1], ids[points[size - 1]])) {
+                return;
+            }
+            int position = isFull() ? size - 1 : size++;
+            while (position > 0 && isBetter(distance, ids[point], distances[position - 1], ids[points[position - 1]])) {
+                points[position] = points[position - 1];
+                distances[position] = distances[position - 1];
+                position--;
+            }
+            points[position] = point;
+            distances[position] = distance;
+        }
+
+        private static boolean isBetter(double distance, long id, double otherDistance, long otherId) {
+            return distance < otherDistance || (distance == otherDistance && id < otherId);
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.core.service;
 
 import com.example.core.dto.OrderAdminFilter;
+import com.example.core.dto.OrderClusteringOptions;
+import com.example.core.dto.OrderClusteringResponse;
 import com.example.core.model.*;
 import com.example.core.repository.OrderRepository;
-import com.example.core.repository.ServiceZoneRepository;
 import com.example.core.repository.SubscriptionRepository;
+import com.example.core.util.GeoCells;
+import com.example.core.util.KeysetCursor;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -18,14 +23,17 @@ import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
-    private static final double DEFAULT_CLUSTER_RADIUS_METERS = 50.0;
     private static final double EARTH_RADIUS_METERS = 6_371_000.0;
     private static final LocalTime SLOT_1_START = LocalTime.of(8, 0);
     private static final LocalTime SLOT_1_END = LocalTime.of(11, 0);
@@ -36,6 +44,14 @@ public class OrderService {
     private static final String SLOT_8_11 = "08:00-11:00";
     private static final String SLOT_13_16 = "13:00-16:00";
     private static final String SLOT_19_21 = "19:00-21:00";
+    private static final int MAX_PAGE_SIZE = 200;
+    static final int MAX_BULK_ORDERS = 5000;
+    private static final int MAX_ADMIN_FILTER_PAGE_SIZE = 500;
+    private static final List<OrderStatus> COURIER_ACTIVE_STATUSES = List.of(
+            OrderStatus.ACCEPTED,
+            OrderStatus.ON_THE_WAY,
+            OrderStatus.PICKED_UP
+    );
     private static final Map<OrderStatus, List<OrderStatus>> ADMIN_ALLOWED_TRANSITIONS = Map.of(
             OrderStatus.PUBLISHED, List.of(OrderStatus.ACCEPTED, OrderStatus.CANCELLED_BY_CUSTOMER, OrderStatus.CANCELLED_BY_COURIER),
             OrderStatus.ACCEPTED, List.of(OrderStatus.ON_THE_WAY, OrderStatus.CANCELLED_BY_CUSTOMER, OrderStatus.CANCELLED_BY_COURIER),
@@ -44,39 +60,21 @@ public class OrderService {
     );
 
     private final OrderRepository orderRepository;
-    private final ServiceZoneRepository zoneRepository;
-    private final GeoUtils geoUtils;
+    private final ActiveServiceZoneCache activeServiceZoneCache;
     private final PaymentService paymentService;
     private final SubscriptionRepository subscriptionRepository;
     private final SubscriptionSchedulingService subscriptionSchedulingService;
     private final AuditService auditService;
+    private final PublishedOrderIndexService publishedOrderIndexService;
+    private final AddressDictionaryService addressDictionaryService;
 
     @Transactional
     public Order createOrder(User client, String address, OffsetDateTime pickupTime,
                              String comment, Double lat, Double lng, Subscription subscription) {
 
-        // ДОБАВЛЕНА ПРОВЕРКА НА NULL
-        if (client == null) {
-            throw new IllegalStateException("Пользователь не может быть null");
-        }
-
-        if (client.getUserRole() == null) {
-            throw new IllegalStateException("Роль пользователя не установлена");
-        }
-
-        if (client.getUserRole() != UserRole.CLIENT) {
-            throw new IllegalStateException("Только клиенты могут создавать заказы");
-        }
+        requireClient(client);
 
-        if (!isAddressInServiceZone(lat, lng)) {
-            throw new IllegalArgumentException(
-                    String.format(
-                            "Этот адрес вне зоны обслуживания (%.6f, %.6f). Выберите другой адрес или точку на карте.",
-                            lat,
-                            lng
-                    )
-            );
-        }
+        Long serviceZoneId = requireServiceZoneId(activeServiceZoneCache.getZoneIndex(), lat, lng);
 
         validatePickupTime(pickupTime);
 
@@ -96,11 +94,14 @@ public class OrderService {
                 .comment(comment)
                 .lat(lat)
                 .lng(lng)
+                .serviceZoneId(serviceZoneId)
                 .subscription(subscription)
                 .status(OrderStatus.PUBLISHED)
                 .build();
 
         Order saved = orderRepository.save(order);
+        publishedOrderIndexService.onOrderChanged(saved);
+        addressDictionaryService.recordUsage(saved.getAddress(), saved.getLat(), saved.getLng());
 
         if (subscription != null) {
             subscription.setUsedOrders(subscription.getUsedOrders() + 1);
@@ -119,6 +120,164 @@ public class OrderService {
         return saved;
     }
 
+    /**
+     * Массовое создание заказов клиента: точки вывоза бизнес-клиента, сезонные вывозы.
+     * <p>
+     * Пакет проверяется целиком за один проход: зоны берутся из кэша один раз, каждая подписка блокируется
+     * один раз (в порядке id), а её лимит вывозов расходуется строками пакета по порядку. Строки с ошибкой
+     * не создаются и возвращаются с причиной, остальные вставляются JDBC-пакетами
+     * ({@code hibernate.jdbc.batch_size}, id из последовательности), аудит — одним пакетом в той же транзакции.
+     *
+     * @throws IllegalStateException    если пользователь не клиент
+     * @throws IllegalArgumentException если пакет пустой или больше {@value #MAX_BULK_ORDERS} строк
+     */
+    @Transactional
+    public BulkCreation createOrders(User client, List<OrderDraft> drafts) {
+        requireClient(client);
+        if (drafts == null || drafts.isEmpty()) {
+            throw new IllegalArgumentException("Список заказов пуст");
+        }
+        if (drafts.size() > MAX_BULK_ORDERS) {
+            throw new IllegalArgumentException("Не более " + MAX_BULK_ORDERS + " заказов за один запрос");
+        }
+
+        ServiceZoneIndex zones = activeServiceZoneCache.getZoneIndex();
+        Map<Long, Subscription> subscriptions = lockSubscriptions(drafts);
+        Map<Long, Integer> reservedBySubscription = new HashMap<>();
+
+        BulkRow[] rows = new BulkRow[drafts.size()];
+        List<Order> orders = new ArrayList<>();
+        List<Integer> orderRows = new ArrayList<>();
+        for (int i = 0; i < drafts.size(); i++) {
+            OrderDraft draft = drafts.get(i);
+            try {
+                if (draft == null || draft.address() == null || draft.address().isBlank()) {
+                    throw new IllegalArgumentException("Адрес обязателен");
+                }
+                Long serviceZoneId = requireServiceZoneId(zones, draft.lat(), draft.lng());
+                validatePickupTime(draft.pickupTime());
+                Subscription subscription = reserveSubscriptionOrder(
+                        client,
+                        draft.subscriptionId(),
+                        subscriptions,
+                        reservedBySubscription
+                );
+                orders.add(Order.builder()
+                        .client(client)
+                        .address(draft.address())
+                        .pickupTime(draft.pickupTime())
+                        .comment(draft.comment())
+                        .lat(draft.lat())
+                        .lng(draft.lng())
+                        .serviceZoneId(serviceZoneId)
+                        .subscription(subscription)
+                        .status(OrderStatus.PUBLISHED)
+                        .build());
+                orderRows.add(i);
+            } catch (IllegalArgumentException e) {
+                rows[i] = new BulkRow(i, null, e.getMessage());
+            }
+        }
+        if (orders.isEmpty()) {
+            return new BulkCreation(List.of(rows));
+        }
+
+        List<Order> saved = orderRepository.saveAll(orders);
+        orderRepository.flush();
+        for (int i = 0; i < saved.size(); i++) {
+            rows[orderRows.get(i)] = new BulkRow(orderRows.get(i), saved.get(i), null);
+        }
+        List<Subscription> usedSubscriptions = new ArrayList<>();
+        for (Map.Entry<Long, Integer> reserved : reservedBySubscription.entrySet()) {
+            Subscription subscription = subscriptions.get(reserved.getKey());
+            subscription.setUsedOrders(subscription.getUsedOrders() + reserved.getValue());
+            usedSubscriptions.add(subscription);
+        }
+        subscriptionRepository.saveAll(usedSubscriptions);
+
+        publishedOrderIndexService.onOrdersChanged(saved);
+        Map<String, Order> byAddress = new LinkedHashMap<>();
+        for (Order order : saved) {
+            byAddress.putIfAbsent(order.getAddress().trim(), order);
+        }
+        for (Order order : byAddress.values()) {
+            addressDictionaryService.recordUsage(order.getAddress(), order.getLat(), order.getLng());
+        }
+        auditService.logAll(
+                "ORDER_CREATE",
+                "SUCCESS",
+                client,
+                "ORDER_ID",
+                saved.stream().map(order -> String.valueOf(order.getId())).toList(),
+                "Order created with status " + OrderStatus.PUBLISHED + " (bulk)"
+        );
+        return new BulkCreation(List.of(rows));
+    }
+
+    private static void requireClient(User client) {
+        if (client == null) {
+            throw new IllegalStateException("Пользователь не может быть null");
+        }
+
+        if (client.getUserRole() == null) {
+            throw new IllegalStateException("Роль пользователя не установлена");
+        }
+
+        if (client.getUserRole() != UserRole.CLIENT) {
+            throw new IllegalStateException("Только клиенты могут создавать заказы");
+        }
+    }
+
+    /**
+     * Подписки пакета под блокировкой строки — каждая один раз и в порядке id, чтобы параллельные пакеты
+     * не взаимоблокировались. Ненайденные подписки в карту не попадают.
+     */
+    private Map<Long, Subscription> lockSubscriptions(List<OrderDraft> drafts) {
+        java.util.TreeSet<Long> ids = new java.util.TreeSet<>();
+        for (OrderDraft draft : drafts) {
+            if (draft != null && draft.subscriptionId() != null) {
+                ids.add(draft.subscriptionId());
+            }
+        }
+        Map<Long, Subscription> subscriptions = new HashMap<>();
+        for (Long id : ids) {
+            subscriptionRepository.findByIdWithLock(id).ifPresent(subscription -> subscriptions.put(id, subscription));
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Проверяет подписку строки и резервирует под неё один вывоз из лимита.
+     */
+    private static Subscription reserveSubscriptionOrder(
+            User client,
+            Long subscriptionId,
+            Map<Long, Subscription> subscriptions,
+            Map<Long, Integer> reservedBySubscription
+    ) {
+        if (subscriptionId == null) {
+            return null;
+        }
+        Subscription subscription = subscriptions.get(subscriptionId);
+        if (subscription == null
+                || subscription.getUser() == null
+                || !subscription.getUser().getId().equals(client.getId())) {
+            throw new IllegalArgumentException("Подписка не найдена");
+        }
+        if (subscription.getStatus() != SubscriptionStatus.ACTIVE) {
+            throw new IllegalArgumentException("Подписка не активна");
+        }
+        if (subscription.getEndDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Срок подписки истёк");
+        }
+        int reserved = reservedBySubscription.getOrDefault(subscriptionId, 0);
+        if (reserved >= subscription.getRemainingOrders()) {
+            throw new IllegalArgumentException("Лимит вывозов по подписке исчерпан");
+        }
+        reservedBySubscription.put(subscriptionId, reserved + 1);
+        return subscription;
+    }
+
     private void validatePickupTime(OffsetDateTime pickupTime) {
         if (pickupTime == null) {
             throw new IllegalArgumentException("Время вывоза обязательно");
@@ -160,29 +319,47 @@ public class OrderService {
         return !time.isBefore(start) && time.isBefore(endExclusive);
     }
 
-    private boolean isAddressInServiceZone(Double lat, Double lng) {
+    /**
+     * Id активной зоны, в которую попадает адрес.
+     *
+     * @throws IllegalArgumentException если координат нет, зона не настроена или адрес вне всех зон
+     */
+    private static Long requireServiceZoneId(ServiceZoneIndex zones, Double lat, Double lng) {
         if (lat == null || lng == null) {
             throw new IllegalArgumentException(
                     "Координаты адреса не определены. Выберите адрес из подсказки или отметьте точку на карте."
             );
         }
 
-        ServiceZone activeZone = zoneRepository.findFirstByActiveTrue()
-                .orElseThrow(() -> new IllegalArgumentException("Активная зона обслуживания не настроена. Обратитесь к администратору."));
-
-        if (activeZone.getCoordinates() == null || activeZone.getCoordinates().isEmpty()) {
+        if (zones.isEmpty()) {
+            throw new IllegalArgumentException("Активная зона обслуживания не настроена. Обратитесь к администратору.");
+        }
+        if (!zones.hasCoordinates()) {
             throw new IllegalArgumentException("Активная зона не содержит координат");
         }
 
-        return geoUtils.isPointInPolygon(lat, lng, activeZone.getCoordinates());
+        Long serviceZoneId = zones.findZoneId(lat, lng);
+        if (serviceZoneId == null) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Этот адрес вне зоны обслуживания (%.6f, %.6f). Выберите другой адрес или точку на карте.",
+                            lat,
+                            lng
+                    )
+            );
+        }
+        return serviceZoneId;
     }
 
-    // Остальные методы остаются без изменений
-    public List<Order> getOrdersForClient(User client) {
+    /**
+     * Заказы клиента постранично, новые сначала.
+     */
+    public OrderPage getOrdersPageForClient(User client, String cursor, int size) {
         if (client.getUserRole() != UserRole.CLIENT) {
             throw new IllegalStateException("Только клиенты могут просматривать свои заказы");
         }
-        return orderRepository.findByClient(client);
+        Specification<Order> ownOrders = (root, query, cb) -> cb.equal(root.get("client").get("id"), client.getId());
+        return findPage(ownOrders, PageOrder.NEWEST_FIRST, cursor, size, MAX_PAGE_SIZE);
     }
 
     @Transactional
@@ -205,6 +382,7 @@ public class OrderService {
         order.setStatus(OrderStatus.CANCELLED_BY_CUSTOMER);
         restoreSubscriptionUsageIfNeeded(order);
         Order saved = orderRepository.save(order);
+        publishedOrderIndexService.onOrderChanged(saved);
         scheduleNextSubscriptionOrderIfNeeded(saved);
         auditService.log(
                 "ORDER_STATUS_CHANGE",
@@ -218,32 +396,86 @@ public class OrderService {
         return saved;
     }
 
-    public List<Order> getAvailableOrdersForCourier(User courier) {
+    /**
+     * k ближайших к курьеру свободных заказов с расстоянием. Кандидаты берутся из in-memory индекса,
+     * из БД загружаются только они; заказы, успевшие уйти другому курьеру, отбрасываются.
+     */
+    public List<NearestOrder> getNearestAvailableOrdersForCourier(User courier, double lat, double lng, int limit) {
+        if (courier.getUserRole() != UserRole.COURIER) {
+            throw new IllegalStateException("Только курьеры могут просматривать доступные заказы");
+        }
+        if (!Double.isFinite(lat) || !Double.isFinite(lng) || Math.abs(lat) > 90.0 || Math.abs(lng) > 180.0) {
+            throw new IllegalArgumentException("Некорректные координаты курьера");
+        }
+
+        int safeLimit = Math.max(1, Math.min(limit, 100));
+        List<OrderKdTree.Neighbor> neighbors = publishedOrderIndexService.findNearest(lat, lng, safeLimit);
+        if (neighbors.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Order> ordersById = new java.util.HashMap<>();
+        for (Order order : orderRepository.findWithDetailsByIdIn(neighbors.stream().map(OrderKdTree.Neighbor::orderId).toList())) {
+            ordersById.put(order.getId(), order);
+        }
+
+        List<NearestOrder> result = new java.util.ArrayList<>(neighbors.size());
+        for (OrderKdTree.Neighbor neighbor : neighbors) {
+            Order order = ordersById.get(neighbor.orderId());
+            if (order != null && order.getStatus() == OrderStatus.PUBLISHED && order.getCourier() == null) {
+                result.add(new NearestOrder(order, neighbor.distanceMeters()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Свободные опубликованные заказы постранично, по времени вывоза.
+     */
+    public OrderPage getAvailableOrdersPageForCourier(User courier, String cursor, int size) {
         if (courier.getUserRole() != UserRole.COURIER) {
             throw new IllegalStateException("Только курьеры могут просматривать доступные заказы");
         }
-        return orderRepository.findByStatusAndCourierIsNull(OrderStatus.PUBLISHED);
+        return findPage(availableOrders(), PageOrder.PICKUP_EARLIEST_FIRST, cursor, size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Заказы курьера в работе постранично, по времени вывоза.
+     */
+    public OrderPage getActiveOrdersPageForCourier(User courier, String cursor, int size) {
+        if (courier.getUserRole() != UserRole.COURIER) {
+            throw new IllegalStateException("Только курьеры могут просматривать свои заказы");
+        }
+        return findPage(activeOrdersOf(courier), PageOrder.PICKUP_EARLIEST_FIRST, cursor, size, MAX_PAGE_SIZE);
     }
 
-    public List<Order> getActiveOrdersForCourier(User courier) {
+    /**
+     * Общая лента курьера — свободные заказы и его заказы в работе — одним запросом по времени вывоза.
+     */
+    public OrderPage getOrdersPageForCourier(User courier, String cursor, int size) {
         if (courier.getUserRole() != UserRole.COURIER) {
             throw new IllegalStateException("Только курьеры могут просматривать свои заказы");
         }
-        List<Order> all = orderRepository.findByCourier(courier);
-        return all.stream()
-                .filter(o -> o.getStatus() == OrderStatus.ACCEPTED
-                        || o.getStatus() == OrderStatus.ON_THE_WAY
-                        || o.getStatus() == OrderStatus.PICKED_UP)
-                .toList();
+        return findPage(
+                availableOrders().or(activeOrdersOf(courier)),
+                PageOrder.PICKUP_EARLIEST_FIRST,
+                cursor,
+                size,
+                MAX_PAGE_SIZE
+        );
     }
 
+    /**
+     * Счётчики для курьера без загрузки заказов: свободные — из in-memory индекса опубликованных заказов,
+     * заказы в работе — COUNT по индексу (courier_id, status).
+     */
     public java.util.Map<String, Long> getOrderStatsForCourier(User courier) {
         if (courier.getUserRole() != UserRole.COURIER) {
             throw new IllegalStateException("Только курьеры могут просматривать статистику заказов");
         }
 
-        long availableCount = getAvailableOrdersForCourier(courier).size();
-        long activeCount = getActiveOrdersForCourier(courier).size();
+        long availableCount = publishedOrderIndexService.countPublished();
+        long activeCount = orderRepository.countByCourierAndStatusIn(courier, COURIER_ACTIVE_STATUSES);
 
         return java.util.Map.of(
                 "availableCount", availableCount,
@@ -252,12 +484,7 @@ public class OrderService {
     }
 
     public List<Order> getOrdersForClustering(User actor, OrderStatus status, boolean onlyUnassigned, int limit) {
-        if (actor == null || actor.getUserRole() == null) {
-            throw new IllegalStateException("Пользователь не аутентифицирован");
-        }
-        if (actor.getUserRole() != UserRole.ADMIN && actor.getUserRole() != UserRole.COURIER) {
-            throw new IllegalStateException("Недостаточно прав для просмотра кластеров");
-        }
+        ensureCanViewClusters(actor);
 
         OrderStatus safeStatus = status == null ? OrderStatus.PUBLISHED : status;
         int safeLimit = Math.max(1, Math.min(limit, 1000));
@@ -275,8 +502,107 @@ public class OrderService {
                 .toList();
     }
 
+    /**
+     * Заказы в прямоугольной области карты — выборка по ячейкам сетки вместо всех заказов города.
+     */
+    public List<Order> getOrdersInArea(
+            User actor,
+            OrderStatus status,
+            boolean onlyUnassigned,
+            GeoCells.BoundingBox area,
+            int limit
+    ) {
+        ensureCanViewClusters(actor);
+        if (area == null) {
+            throw new IllegalArgumentException("Не задана область поиска");
+        }
+
+        OrderStatus safeStatus = status == null ? OrderStatus.PUBLISHED : status;
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, 1000)));
+        List<Long> cells = GeoCells.covering(area);
+        if (cells.isEmpty()) {
+            return orderRepository.findWithinBox(
+                    safeStatus,
+                    onlyUnassigned,
+                    area.minLat(),
+                    area.maxLat(),
+                    area.minLng(),
+                    area.maxLng(),
+                    page
+            );
+        }
+        return orderRepository.findInCellsWithinBox(
+                safeStatus,
+                onlyUnassigned,
+                cells,
+                area.minLat(),
+                area.maxLat(),
+                area.minLng(),
+                area.maxLng(),
+                page
+        );
+    }
+
+    /**
+     * Кластеры опубликованных неназначенных заказов из in-memory индекса, без обращения к БД.
+     */
+    public OrderClusteringResponse getPublishedOrderClusters(User actor, OrderClusteringOptions options, int limit) {
+        ensureCanViewClusters(actor);
+        return publishedOrderIndexService.clusterPublishedOrders(options, limit);
+    }
+
+    private void ensureCanViewClusters(User actor) {
+        if (actor == null || actor.getUserRole() == null) {
+            throw new IllegalStateException("Пользователь не аутентифицирован");
+        }
+        if (actor.getUserRole() != UserRole.ADMIN && actor.getUserRole() != UserRole.COURIER) {
+            throw new IllegalStateException("Недостаточно прав для просмотра кластеров");
+        }
+    }
+
     @Transactional
     public List<Order> acceptClusterByCourier(User courier, List<Long> orderIds, Double requestedRadiusMeters) {
+        return acceptClusterByCourier(
+                courier,
+                orderIds,
+                OrderClusteringOptions.builder().radiusMeters(requestedRadiusMeters).build()
+        );
+    }
+
+    /**
+     * Принимает кластер целиком. Проверяются те же ограничения, с которыми кластер был построен:
+     * связность в радиусе, а для плотностного режима ещё размер и диаметр кластера.
+     * Если хоть один заказ недоступен, кластер не принимается.
+     */
+    @Transactional
+    public List<Order> acceptClusterByCourier(User courier, List<Long> orderIds, OrderClusteringOptions options) {
+        return claimCluster(courier, orderIds, options, false).claimed();
+    }
+
+    /**
+     * Частичное принятие кластера: курьер получает те заказы, которые ещё свободны, а в ответе видно,
+     * какие ушли другим. Оставшиеся заказы должны по-прежнему удовлетворять ограничениям кластера.
+     */
+    @Transactional
+    public ClusterClaim acceptClusterPartiallyByCourier(
+            User courier,
+            List<Long> orderIds,
+            OrderClusteringOptions options
+    ) {
+        return claimCluster(courier, orderIds, options, true);
+    }
+
+    /**
+     * Свободные заказы кластера блокируются одним SELECT ... FOR UPDATE SKIP LOCKED: занятые
+     * другой транзакцией строки пропускаются без ожидания и считаются потерянными. Затем один
+     * UPDATE по всем захваченным id, одно чтение карточек и один пакет записей аудита.
+     */
+    private ClusterClaim claimCluster(
+            User courier,
+            List<Long> orderIds,
+            OrderClusteringOptions options,
+            boolean allowPartial
+    ) {
         if (courier == null || courier.getUserRole() != UserRole.COURIER) {
             throw new IllegalStateException("Только курьеры могут принимать кластер заказов");
         }
@@ -284,7 +610,8 @@ public class OrderService {
             throw new IllegalArgumentException("Список заказов кластера пуст");
         }
 
-        double radiusMeters = normalizeClusterRadius(requestedRadiusMeters);
+        OrderClusteringOptions safeOptions = OrderClusteringService.normalizeOptions(options);
+        boolean densityMode = safeOptions.getAlgorithm() == ClusteringAlgorithm.DENSITY;
         List<Long> uniqueIds = orderIds.stream()
                 .filter(java.util.Objects::nonNull)
                 .distinct()
@@ -293,43 +620,73 @@ public class OrderService {
         if (uniqueIds.isEmpty()) {
             throw new IllegalArgumentException("Список заказов кластера пуст");
         }
+        if (densityMode && uniqueIds.size() > safeOptions.getMaxOrders()) {
+            throw new IllegalArgumentException("В кластере не может быть больше " + safeOptions.getMaxOrders() + " заказов");
+        }
 
-        List<Order> orders = new java.util.ArrayList<>();
-        for (Long orderId : uniqueIds) {
-            Order order = orderRepository.findByIdWithLock(orderId)
-                    .orElseThrow(() -> new IllegalArgumentException("Заказ не найден: " + orderId));
-            if (order.getStatus() != OrderStatus.PUBLISHED || order.getCourier() != null) {
-                throw new IllegalStateException("Заказ уже недоступен для принятия: " + orderId);
-            }
-            orders.add(order);
+        List<Order> orders = orderRepository.lockClaimable(uniqueIds);
+        java.util.Set<Long> lockedIds = new java.util.HashSet<>();
+        for (Order order : orders) {
+            lockedIds.add(order.getId());
+        }
+        List<Long> lostIds = uniqueIds.stream()
+                .filter(id -> !lockedIds.contains(id))
+                .toList();
+        if (!lostIds.isEmpty() && !allowPartial) {
+            throw unavailableClusterOrder(lostIds);
+        }
+        if (orders.isEmpty()) {
+            return new ClusterClaim(List.of(), lostIds);
         }
 
         ensureSamePickupDateAndSlot(orders);
-        ensureSingleSpatialCluster(orders, radiusMeters);
+        ensureSingleSpatialCluster(orders, safeOptions.getRadiusMeters());
+        if (densityMode) {
+            ensureClusterDiameter(orders, safeOptions.getMaxDiameterMeters());
+        }
 
-        List<Order> savedOrders = new java.util.ArrayList<>();
-        for (Order order : orders) {
-            order.setCourier(courier);
-            order.setStatus(OrderStatus.ACCEPTED);
-            Order saved = orderRepository.save(order);
-            savedOrders.add(saved);
-            auditService.log(
-                    "ORDER_STATUS_CHANGE",
-                    "SUCCESS",
-                    courier,
-                    "ORDER_ID",
-                    String.valueOf(saved.getId()),
-                    "Courier accepted via cluster: PUBLISHED -> ACCEPTED",
-                    null
-            );
+        List<Long> claimedIds = List.copyOf(lockedIds);
+        if (orderRepository.claimAllPublished(claimedIds, courier) != claimedIds.size()) {
+            // Строки заблокированы этой транзакцией, расхождение означает внешнее изменение в обход блокировок.
+            throw new IllegalStateException("Заказы кластера изменились во время принятия");
         }
 
-        return savedOrders.stream()
-                .sorted(java.util.Comparator.comparing(
-                        Order::getPickupTime,
-                        java.util.Comparator.nullsLast(java.util.Comparator.naturalOrder())
-                ))
-                .toList();
+        List<Order> savedOrders = new java.util.ArrayList<>(orderRepository.findWithDetailsByIdIn(claimedIds));
+        for (Order saved : savedOrders) {
+            markClaimed(saved, courier);
+            publishedOrderIndexService.onOrderChanged(saved);
+        }
+        auditService.logAll(
+                "ORDER_STATUS_CHANGE",
+                "SUCCESS",
+                courier,
+                "ORDER_ID",
+                claimedIds.stream().sorted().map(String::valueOf).toList(),
+                "Courier accepted via cluster: PUBLISHED -> ACCEPTED"
+        );
+
+        savedOrders.sort(java.util.Comparator.comparing(
+                Order::getPickupTime,
+                java.util.Comparator.nullsLast(java.util.Comparator.naturalOrder())
+        ));
+        return new ClusterClaim(List.copyOf(savedOrders), lostIds);
+    }
+
+    /**
+     * Причина отказа для строгого режима: несуществующий заказ — ошибка запроса, занятый — конфликт.
+     * Дополнительное чтение выполняется только на этом пути.
+     */
+    private RuntimeException unavailableClusterOrder(List<Long> lostIds) {
+        java.util.Set<Long> existingIds = new java.util.HashSet<>();
+        for (Order order : orderRepository.findAllById(lostIds)) {
+            existingIds.add(order.getId());
+        }
+        for (Long orderId : lostIds) {
+            if (!existingIds.contains(orderId)) {
+                return new IllegalArgumentException("Заказ не найден: " + orderId);
+            }
+        }
+        return new IllegalStateException("Заказ уже недоступен для принятия: " + lostIds.get(0));
     }
 
     @Transactional
@@ -338,31 +695,45 @@ public class OrderService {
             throw new IllegalStateException("Только курьеры могут брать заказы");
         }
 
-        Order order = orderRepository.findByIdWithLock(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Заказ не найден"));
-
-        if (order.getStatus() != OrderStatus.PUBLISHED) {
-            throw new IllegalStateException("Заказ уже принят другим курьером");
-        }
-        if (order.getCourier() != null) {
+        // Свободный заказ блокируется с SKIP LOCKED: если его прямо сейчас берёт другой курьер,
+        // строка пропускается и проигравший сразу получает отказ (409), не дожидаясь коммита победителя.
+        List<Order> claimable = orderRepository.lockClaimable(List.of(orderId));
+        if (claimable.isEmpty()) {
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new IllegalArgumentException("Заказ не найден"));
+            if (order.getStatus() != OrderStatus.PUBLISHED) {
+                throw new IllegalStateException("Заказ уже принят другим курьером");
+            }
+            if (order.getCourier() == null) {
+                throw new IllegalStateException("Заказ сейчас принимает другой курьер");
+            }
             throw new IllegalStateException("Заказ уже назначен курьеру");
         }
 
-        OrderStatus previousStatus = order.getStatus();
-        order.setCourier(courier);
-        order.setStatus(OrderStatus.ACCEPTED);
-        Order saved = orderRepository.save(order);
+        Order saved = claimable.get(0);
+        markClaimed(saved, courier);
+        publishedOrderIndexService.onOrderChanged(saved);
         auditService.log(
                 "ORDER_STATUS_CHANGE",
                 "SUCCESS",
                 courier,
                 "ORDER_ID",
                 String.valueOf(saved.getId()),
-                "Courier accepted order: " + previousStatus + " -> " + saved.getStatus(),
+                "Courier accepted order: " + OrderStatus.PUBLISHED + " -> " + saved.getStatus(),
                 null
         );
         return saved;
     }
+
+    /**
+     * Закрепляет заказ за курьером в управляемой сущности. Заказ, заблокированный {@link OrderRepository#lockClaimable},
+     * записывается при flush; для заказов кластера значения уже записал {@link OrderRepository#claimAllPublished},
+     * и лишнего UPDATE при flush не будет.
+     */
+    private static void markClaimed(Order order, User courier) {
+        order.setCourier(courier);
+        order.setStatus(OrderStatus.ACCEPTED);
+    }
 
     @Transactional
     public Order updateStatusByCourier(Long orderId, User courier, OrderStatus newStatus) {
@@ -428,25 +799,29 @@ public class OrderService {
         }
     }
 
-    public List<Order> getAllOrders(User admin) {
+    /**
+     * Все заказы постранично, новые сначала.
+     */
+    public OrderPage getAllOrdersPage(User admin, String cursor, int size) {
         if (admin.getUserRole() != UserRole.ADMIN) {
             throw new IllegalStateException("Только администраторы могут просматривать все заказы");
         }
-        return orderRepository.findAll();
+        return findPage((root, query, cb) -> cb.conjunction(), PageOrder.NEWEST_FIRST, cursor, size, MAX_PAGE_SIZE);
     }
 
-    public List<Order> getFilteredOrdersForAdmin(User admin, OrderAdminFilter filter, int limit) {
+    public OrderPage getFilteredOrdersForAdmin(User admin, OrderAdminFilter filter, String cursor, int limit) {
         if (admin.getUserRole() != UserRole.ADMIN) {
             throw new IllegalStateException("Только администраторы могут фильтровать заказы");
         }
 
         OrderAdminFilter safeFilter = filter == null ? OrderAdminFilter.builder().build() : filter;
-        int safeLimit = Math.max(1, Math.min(limit, 500));
-        Specification<Order> specification = buildAdminSpecification(safeFilter);
-        return orderRepository.findAll(
-                specification,
-                PageRequest.of(0, safeLimit, Sort.by(Sort.Direction.DESC, "pickupTime"))
-        ).getContent();
+        return findPage(
+                buildAdminSpecification(safeFilter),
+                PageOrder.PICKUP_LATEST_FIRST,
+                cursor,
+                limit,
+                MAX_ADMIN_FILTER_PAGE_SIZE
+        );
     }
 
     @Transactional
@@ -472,6 +847,7 @@ public class OrderService {
         }
 
         Order saved = orderRepository.save(order);
+        publishedOrderIndexService.onOrderChanged(saved);
         auditService.log(
                 "ORDER_STATUS_CHANGE",
                 "SUCCESS",
@@ -494,9 +870,16 @@ public class OrderService {
                 .orElseThrow(() -> new IllegalArgumentException("Заказ не найден"));
     }
 
-    public Order getOrderByIdAndCourier(Long id, User courier) {
-        return orderRepository.findByIdAndCourier(id, courier)
-                .orElseThrow(() -> new IllegalArgumentException("Заказ не найден или не ваш"));
+    /**
+     * Карточка заказа с учётом прав: правило видимости проверяется в том же запросе,
+     * что и поиск по id. Чужой заказ неотличим от несуществующего.
+     */
+    public Order getOrderVisibleTo(Long id, User user) {
+        if (user == null || user.getUserRole() == null) {
+            throw new IllegalStateException("Роль пользователя не установлена");
+        }
+        return orderRepository.findVisibleById(id, user.getUserRole(), user.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Заказ не найден"));
     }
 
     private void scheduleNextSubscriptionOrderIfNeeded(Order order) {
@@ -524,6 +907,84 @@ public class OrderService {
         return allowed != null && allowed.contains(to);
     }
 
+    /**
+     * Keyset-страница: строки строго после курсора в порядке {@code pageOrder}, без OFFSET и без подсчёта total.
+     * Читается на одну строку больше размера страницы — по ней видно, есть ли следующая.
+     * Клиент, курьер и подписка приходят в том же запросе, так что карточки страницы собираются без N+1.
+     */
+    private OrderPage findPage(
+            Specification<Order> filter,
+            PageOrder pageOrder,
+            String cursor,
+            int size,
+            int maxSize
+    ) {
+        int safeSize = Math.max(1, Math.min(size, maxSize));
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Specification<Order> specification = after == null ? filter : filter.and(keysetAfter(pageOrder, after));
+        specification = specification.and(fetchCardAssociations());
+        Sort sort = Sort.by(pageOrder.direction, pageOrder.attribute).and(Sort.by(pageOrder.direction, "id"));
+
+        List<Order> rows = orderRepository.findBy(
+                specification,
+                query -> query.sortBy(sort).limit(safeSize + 1).all()
+        );
+        boolean hasMore = rows.size() > safeSize;
+        List<Order> orders = hasMore ? List.copyOf(rows.subList(0, safeSize)) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new KeysetCursor(pageOrder.key.apply(last), last.getId()).encode();
+        }
+        return new OrderPage(orders, safeSize, after == null, nextCursor);
+    }
+
+    private Specification<Order> keysetAfter(PageOrder pageOrder, KeysetCursor cursor) {
+        return (root, query, cb) -> {
+            Path<OffsetDateTime> time = root.get(pageOrder.attribute);
+            Path<Long> id = root.get("id");
+            if (pageOrder.direction == Sort.Direction.ASC) {
+                return cb.or(
+                        cb.greaterThan(time, cursor.time()),
+                        cb.and(cb.equal(time, cursor.time()), cb.greaterThan(id, cursor.id()))
+                );
+            }
+            return cb.or(
+                    cb.lessThan(time, cursor.time()),
+                    cb.and(cb.equal(time, cursor.time()), cb.lessThan(id, cursor.id()))
+            );
+        };
+    }
+
+    /**
+     * LEFT JOIN FETCH клиента, курьера и подписки; в count-запросах fetch недопустим и пропускается.
+     */
+    private Specification<Order> fetchCardAssociations() {
+        return (root, query, cb) -> {
+            Class<?> resultType = query.getResultType();
+            if (!Long.class.equals(resultType) && !long.class.equals(resultType)) {
+                root.fetch("client", JoinType.LEFT);
+                root.fetch("courier", JoinType.LEFT);
+                root.fetch("subscription", JoinType.LEFT);
+            }
+            return cb.conjunction();
+        };
+    }
+
+    private Specification<Order> availableOrders() {
+        return (root, query, cb) -> cb.and(
+                cb.equal(root.get("status"), OrderStatus.PUBLISHED),
+                cb.isNull(root.get("courier"))
+        );
+    }
+
+    private Specification<Order> activeOrdersOf(User courier) {
+        return (root, query, cb) -> cb.and(
+                cb.equal(root.get("courier").get("id"), courier.getId()),
+                root.get("status").in(COURIER_ACTIVE_STATUSES)
+        );
+    }
+
     private Specification<Order> buildAdminSpecification(OrderAdminFilter filter) {
         return (root, query, cb) -> {
             List<jakarta.persistence.criteria.Predicate> predicates = new java.util.ArrayList<>();
@@ -628,6 +1089,25 @@ public class OrderService {
         }
     }
 
+    private void ensureClusterDiameter(List<Order> orders, double maxDiameterMeters) {
+        List<OrderCoordinate> coordinates = orders.stream()
+                .map(this::resolveOrderCoordinate)
+                .toList();
+        for (int i = 0; i < coordinates.size(); i++) {
+            for (int j = i + 1; j < coordinates.size(); j++) {
+                double distance = haversineMeters(
+                        coordinates.get(i).lat,
+                        coordinates.get(i).lng,
+                        coordinates.get(j).lat,
+                        coordinates.get(j).lng
+                );
+                if (distance > maxDiameterMeters) {
+                    throw new IllegalStateException("Диаметр кластера превышает " + (int) maxDiameterMeters + " м");
+                }
+            }
+        }
+    }
+
     private OrderCoordinate resolveOrderCoordinate(Order order) {
         Double lat = order.getLat();
         Double lng = order.getLng();
@@ -641,13 +1121,6 @@ public class OrderService {
         return new OrderCoordinate(lat, lng);
     }
 
-    private double normalizeClusterRadius(Double requestedRadiusMeters) {
-        if (requestedRadiusMeters == null || requestedRadiusMeters.isNaN() || requestedRadiusMeters.isInfinite()) {
-            return DEFAULT_CLUSTER_RADIUS_METERS;
-        }
-        return Math.max(10.0, Math.min(500.0, requestedRadiusMeters));
-    }
-
     private String resolveSlotLabel(LocalTime time) {
         if (time == null) {
             return "CUSTOM";
@@ -674,6 +1147,75 @@ public class OrderService {
         return EARTH_RADIUS_METERS * c;
     }
 
+    /**
+     * Порядок keyset-страниц: колонка времени (с индексом вместе с order_id, см. миграцию V18) и направление.
+     */
+    private enum PageOrder {
+        NEWEST_FIRST("createdAt", Sort.Direction.DESC, Order::getCreatedAt),
+        PICKUP_EARLIEST_FIRST("pickupTime", Sort.Direction.ASC, Order::getPickupTime),
+        PICKUP_LATEST_FIRST("pickupTime", Sort.Direction.DESC, Order::getPickupTime);
+
+        private final String attribute;
+        private final Sort.Direction direction;
+        private final Function<Order, OffsetDateTime> key;
+
+        PageOrder(String attribute, Sort.Direction direction, Function<Order, OffsetDateTime> key) {
+            this.attribute = attribute;
+            this.direction = direction;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Страница заказов. {@code nextCursor} — курсор следующей страницы, {@code null} на последней.
+     */
+    public record OrderPage(List<Order> orders, int size, boolean first, String nextCursor) {
+    }
+
+    /**
+     * Строка массового создания заказа; координаты обязательны (геокодирование — на стороне вызывающего).
+     */
+    public record OrderDraft(
+            String address,
+            OffsetDateTime pickupTime,
+            String comment,
+            Double lat,
+            Double lng,
+            Long subscriptionId
+    ) {
+    }
+
+    /**
+     * Итог массового создания: по строке на каждый элемент запроса в том же порядке.
+     */
+    public record BulkCreation(List<BulkRow> rows) {
+
+        public List<Order> created() {
+            return rows.stream()
+                    .filter(row -> row.order() != null)
+                    .map(BulkRow::order)
+                    .toList();
+        }
+    }
+
+    /**
+     * Результат строки: созданный заказ или текст ошибки.
+     */
+    public record BulkRow(int index, Order order, String error) {
+    }
+
+    /**
+     * Итог принятия кластера: принятые заказы по времени вывоза и id заказов, которые уже недоступны.
+     */
+    public record ClusterClaim(List<Order> claimed, List<Long> lostOrderIds) {
+    }
+
+    public record NearestOrder(
+            Order order,
+            double distanceMeters
+    ) {
+    }
+
     private record OrderCoordinate(
             double lat,
             double lng
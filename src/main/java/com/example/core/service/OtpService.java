@@ -1,5 +1,6 @@
 package com.example.core.service;
 
+import com.example.core.integration.IntegrationClient;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -11,7 +12,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
 import java.security.SecureRandom;
 import java.time.Duration;
@@ -36,13 +36,7 @@ public class OtpService {
     @Value("${sms.ru.api-id}")
     private String smsApiId;
 
-    @Value("${integration.sms.max-retries:2}")
-    private int smsMaxRetries;
-
-    @Value("${integration.sms.retry-backoff-ms:300}")
-    private long smsRetryBackoffMs;
-
-    private final RestTemplate restTemplate;
+    private final IntegrationClient smsClient;
     private final ObjectMapper objectMapper;
     private final StringRedisTemplate redisTemplate;
     private final SecureRandom random = new SecureRandom();
@@ -213,64 +207,27 @@ public class OtpService {
             HttpEntity<MultiValueMap<String, String>> request,
             String phone
     ) {
-        int attempts = Math.max(1, smsMaxRetries + 1);
-        RestClientException lastClientException = null;
-
-        for (int attempt = 1; attempt <= attempts; attempt++) {
-            try {
-                ResponseEntity<String> response = restTemplate.postForEntity(SMS_URL, request, String.class);
-                if (response.getStatusCode() == HttpStatus.OK) {
-                    return response;
-                }
-
-                if (!isRetriableStatus(response.getStatusCode()) || attempt == attempts) {
-                    throw new IllegalStateException("SMS.ru вернул статус: " + response.getStatusCode());
-                }
-
-                log.warn(
-                        "SMS.ru временно недоступен для {} (status={}, attempt {}/{})",
-                        maskPhone(phone),
-                        response.getStatusCode(),
-                        attempt,
-                        attempts
-                );
-                sleepBeforeRetry(attempt);
-            } catch (RestClientException e) {
-                lastClientException = e;
-                if (attempt == attempts) {
-                    break;
-                }
-                log.warn(
-                        "Сетевая ошибка SMS.ru для {} (attempt {}/{}): {}",
-                        maskPhone(phone),
-                        attempt,
-                        attempts,
-                        e.getMessage()
-                );
-                sleepBeforeRetry(attempt);
-            }
+        ResponseEntity<String> response;
+        try {
+            response = smsClient.execute(
+                    restTemplate -> restTemplate.postForEntity(SMS_URL, request, String.class),
+                    result -> isRetriableStatus(result.getStatusCode())
+            );
+        } catch (RestClientException e) {
+            log.warn("Сетевая ошибка SMS.ru для {}: {}", maskPhone(phone), e.getMessage());
+            throw new IllegalStateException("Не удалось подключиться к SMS-сервису", e);
         }
 
-        if (lastClientException != null) {
-            throw new IllegalStateException("Не удалось подключиться к SMS-сервису", lastClientException);
+        if (response.getStatusCode() != HttpStatus.OK) {
+            throw new IllegalStateException("SMS.ru вернул статус: " + response.getStatusCode());
         }
-        throw new IllegalStateException("Не удалось отправить SMS");
+        return response;
     }
 
     private boolean isRetriableStatus(HttpStatusCode status) {
         return status.value() == HttpStatus.TOO_MANY_REQUESTS.value() || status.is5xxServerError();
     }
 
-    private void sleepBeforeRetry(int attempt) {
-        long base = Math.max(50L, smsRetryBackoffMs);
-        long delay = Math.min(2500L, base * attempt);
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException interruptedException) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
     private String codeKey(String phone) {
         return "otp:code:" + phone;
     }
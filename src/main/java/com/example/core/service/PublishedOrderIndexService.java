@@ -0,0 +1,552 @@
+package com.example.core.service;
+
+import com.example.core.dto.AvailableOrderEvent;
+import com.example.core.dto.OrderClusterResponse;
+import com.example.core.dto.OrderClusteringOptions;
+import com.example.core.dto.OrderClusteringResponse;
+import com.example.core.model.Order;
+import com.example.core.model.OrderStatus;
+import com.example.core.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory индекс опубликованных и неназначенных заказов для кластеризации.
+ * <p>
+ * Изменения заказов применяются инкрементально после коммита транзакции,
+ * кластеры кэшируются по бакетам дата/слот и пересчитываются только для изменившихся бакетов.
+ * Периодическая ресинхронизация с БД подхватывает изменения, сделанные другими узлами.
+ * <p>
+ * Изменения применяются под монитором сервиса, после чего неизменяемый снимок набора подменяется одной
+ * volatile-записью, как в {@link ActiveServiceZoneCache}. Кластеризация, поиск ближайших и счётчики
+ * работают со снимком без блокировки и не задерживают применение изменений.
+ * <p>
+ * Каждое фактическое изменение набора пишется в {@link AvailableOrderFeed} — из него курьерам идёт SSE-лента.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PublishedOrderIndexService {
+
+    private static final int MAX_CACHED_OPTIONS = 16;
+    private static final Comparator<IndexedOrder> PICKUP_ORDER = Comparator
+            .comparing(IndexedOrder::pickupTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(IndexedOrder::id);
+
+    private final OrderRepository orderRepository;
+    private final OrderClusteringService orderClusteringService;
+    private final AvailableOrderFeed availableOrderFeed;
+
+    private final Map<Long, IndexedOrder> ordersById = new HashMap<>();
+    private final Map<String, Bucket> buckets = new HashMap<>();
+    private final Map<OrderClusteringOptions, OptionsCache> cacheByOptions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<OrderClusteringOptions, OptionsCache> eldest) {
+            return size() > MAX_CACHED_OPTIONS;
+        }
+    };
+    private final List<Change> changesDuringReload = new ArrayList<>();
+
+    private int withoutCoordinates;
+    private long version;
+    private boolean reloadInProgress;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Регистрирует изменение заказа. Внутри транзакции изменение применяется только после коммита,
+     * чтобы откаченные изменения не попадали в индекс.
+     */
+    public void onOrderChanged(Order order) {
+        onOrdersChanged(order == null ? List.of() : List.of(order));
+    }
+
+    /**
+     * То же для пакета заказов: одна синхронизация транзакции и одно взятие блокировки индекса на весь пакет.
+     */
+    public void onOrdersChanged(Collection<Order> orders) {
+        List<Change> changes = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            if (order == null || order.getId() == null) {
+                continue;
+            }
+            changes.add(isIndexable(order)
+                    ? new Change(order.getId(), toIndexedOrder(order), null)
+                    : new Change(order.getId(), null, removalType(order)));
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyChanges(changes);
+                }
+            });
+        } else {
+            applyChanges(changes);
+        }
+    }
+
+    /**
+     * Возвращает кластеры опубликованных неназначенных заказов из памяти.
+     * Если заказов больше лимита, кластеризуются ближайшие по времени вывоза — как и при чтении из БД.
+     */
+    public OrderClusteringResponse clusterPublishedOrders(double radiusMeters, int limit) {
+        return clusterPublishedOrders(OrderClusteringOptions.builder().radiusMeters(radiusMeters).build(), limit);
+    }
+
+    /**
+     * Кэш ведётся отдельно для каждого набора нормализованных параметров кластеризации.
+     */
+    public OrderClusteringResponse clusterPublishedOrders(OrderClusteringOptions options, int limit) {
+        Snapshot current = currentSnapshot();
+
+        OrderClusteringOptions safeOptions = OrderClusteringService.normalizeOptions(options);
+        int safeLimit = Math.max(1, Math.min(limit, 1000));
+        if (current.orders.size() > safeLimit) {
+            List<Order> limited = current.orders.stream()
+                    .limit(safeLimit)
+                    .map(IndexedOrder::toOrder)
+                    .toList();
+            return orderClusteringService.clusterOrders(limited, safeOptions);
+        }
+
+        OptionsCache cache;
+        synchronized (cacheByOptions) {
+            cache = cacheByOptions.computeIfAbsent(safeOptions, ignored -> new OptionsCache());
+        }
+        CachedResponse cachedResponse = cache.response;
+        if (cachedResponse != null && cachedResponse.version() == current.version) {
+            return cachedResponse.response();
+        }
+
+        // Параллельные запросы по одному снимку могут посчитать бакет дважды — результат одинаков.
+        cache.buckets.keySet().retainAll(current.buckets.keySet());
+        List<OrderClusterResponse> clusters = new ArrayList<>();
+        for (Map.Entry<String, BucketSnapshot> entry : current.buckets.entrySet()) {
+            BucketSnapshot bucket = entry.getValue();
+            CachedBucket cached = cache.buckets.get(entry.getKey());
+            if (cached == null || cached.version != bucket.version()) {
+                List<Order> bucketOrders = bucket.orders().stream()
+                        .map(IndexedOrder::toOrder)
+                        .toList();
+                cached = new CachedBucket(
+                        bucket.version(),
+                        orderClusteringService.clusterOrders(bucketOrders, safeOptions).getClusters()
+                );
+                cache.buckets.put(entry.getKey(), cached);
+            }
+            clusters.addAll(cached.clusters);
+        }
+        clusters.sort(OrderClusteringService.CLUSTER_ORDER);
+
+        OrderClusteringResponse response = OrderClusteringResponse.builder()
+                .radiusMeters(safeOptions.getRadiusMeters())
+                .sourceOrders(current.orders.size())
+                .clusteredOrders(current.orders.size() - current.withoutCoordinates)
+                .skippedWithoutCoordinates(current.withoutCoordinates)
+                .clusters(List.copyOf(clusters))
+                .build();
+        cache.response = new CachedResponse(current.version, response);
+        return response;
+    }
+
+    /**
+     * Число опубликованных неназначенных заказов. Индекс обновляется при каждой смене статуса,
+     * поэтому счётчик не требует запроса к БД.
+     */
+    public int countPublished() {
+        return currentSnapshot().orders.size();
+    }
+
+    /**
+     * Текущий набор свободных заказов для ленты вместе с номером последнего учтённого в нём события журнала:
+     * номер фиксируется при публикации снимка под тем же монитором, что и запись событий, поэтому они согласованы.
+     */
+    AvailableSnapshot snapshotAvailable() {
+        Snapshot current = currentSnapshot();
+        List<AvailableOrderEvent> orders = current.orders.stream()
+                .map(IndexedOrder::toEvent)
+                .toList();
+        return new AvailableSnapshot(current.sequence, orders);
+    }
+
+    /**
+     * Ближайшие к точке опубликованные неназначенные заказы (по возрастанию расстояния).
+     * KD-дерево строится лениво — один раз на снимок, при первом запросе после изменения индекса.
+     */
+    List<OrderKdTree.Neighbor> findNearest(double lat, double lng, int limit) {
+        return currentSnapshot().nearestTree().nearest(lat, lng, limit);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${clustering.live-index.resync-ms:30000}",
+            initialDelayString = "${clustering.live-index.resync-ms:30000}"
+    )
+    public void resync() {
+        synchronized (this) {
+            if (snapshot == null || reloadInProgress) {
+                return;
+            }
+            reloadInProgress = true;
+            changesDuringReload.clear();
+        }
+
+        List<IndexedOrder> published;
+        try {
+            published = loadPublished();
+        } catch (RuntimeException e) {
+            log.warn("Published order index resync failed: {}", e.getMessage());
+            synchronized (this) {
+                reloadInProgress = false;
+                changesDuringReload.clear();
+            }
+            return;
+        }
+
+        synchronized (this) {
+            // Изменения этого узла уже ушли в ленту при применении; в ленту попадает только расхождение с БД.
+            Map<Long, IndexedOrder> previous = new HashMap<>(ordersById);
+            rebuild(published);
+            for (Change change : changesDuringReload) {
+                apply(change, false);
+            }
+            changesDuringReload.clear();
+            reloadInProgress = false;
+            publishDifference(previous);
+            publishSnapshot();
+        }
+    }
+
+    private synchronized void applyChanges(List<Change> changes) {
+        if (reloadInProgress) {
+            changesDuringReload.addAll(changes);
+        }
+        if (snapshot == null) {
+            return;
+        }
+        for (Change change : changes) {
+            apply(change, true);
+        }
+        publishSnapshot();
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = load();
+        }
+        return current;
+    }
+
+    private synchronized Snapshot load() {
+        if (snapshot == null) {
+            rebuild(loadPublished());
+            publishSnapshot();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Фиксирует текущее состояние в неизменяемом снимке. Вызывается под монитором после записи событий
+     * в ленту, поэтому номер последнего события соответствует составу снимка. Бакеты, версия которых
+     * не изменилась, переиспользуются из предыдущего снимка без копирования.
+     */
+    private void publishSnapshot() {
+        Snapshot previous = snapshot;
+        Map<String, BucketSnapshot> frozenBuckets = new HashMap<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            BucketSnapshot frozen = previous == null ? null : previous.buckets.get(entry.getKey());
+            if (frozen == null || frozen.version() != bucket.version) {
+                frozen = new BucketSnapshot(bucket.version, List.copyOf(bucket.orders));
+            }
+            frozenBuckets.put(entry.getKey(), frozen);
+        }
+        List<IndexedOrder> orders = ordersById.values().stream()
+                .sorted(PICKUP_ORDER)
+                .toList();
+        snapshot = new Snapshot(
+                version,
+                availableOrderFeed.lastSequence(),
+                orders,
+                Map.copyOf(frozenBuckets),
+                withoutCoordinates
+        );
+    }
+
+    private List<IndexedOrder> loadPublished() {
+        return orderRepository.findByStatusAndCourierIsNull(OrderStatus.PUBLISHED).stream()
+                .map(this::toIndexedOrder)
+                .toList();
+    }
+
+    /**
+     * Полностью заменяет содержимое индекса. Версии бакетов с неизменившимся составом сохраняются,
+     * чтобы ресинхронизация не сбрасывала кэш кластеров без необходимости.
+     */
+    private void rebuild(List<IndexedOrder> published) {
+        Map<String, Bucket> previousBuckets = new HashMap<>(buckets);
+        ordersById.clear();
+        buckets.clear();
+        withoutCoordinates = 0;
+        version++;
+
+        for (IndexedOrder order : published) {
+            ordersById.put(order.id(), order);
+            if (!order.hasCoordinates()) {
+                withoutCoordinates++;
+                continue;
+            }
+            buckets.computeIfAbsent(bucketKey(order), ignored -> new Bucket()).orders.add(order);
+        }
+
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket previous = previousBuckets.get(entry.getKey());
+            boolean unchanged = previous != null
+                    && new ArrayList<>(previous.orders).equals(new ArrayList<>(entry.getValue().orders));
+            entry.getValue().version = unchanged ? previous.version : version;
+        }
+    }
+
+    private void apply(Change change, boolean publish) {
+        IndexedOrder existing = remove(change.orderId());
+        if (change.order() != null) {
+            add(change.order());
+            if (publish && !change.order().equals(existing)) {
+                availableOrderFeed.append(AvailableOrderFeed.EventType.PUBLISHED, change.order().toEvent());
+            }
+        } else if (publish && existing != null) {
+            availableOrderFeed.append(change.removal(), removedEvent(existing.id()));
+        }
+    }
+
+    private void publishDifference(Map<Long, IndexedOrder> previous) {
+        for (IndexedOrder order : ordersById.values()) {
+            if (!order.equals(previous.get(order.id()))) {
+                availableOrderFeed.append(AvailableOrderFeed.EventType.PUBLISHED, order.toEvent());
+            }
+        }
+        for (Long orderId : previous.keySet()) {
+            if (!ordersById.containsKey(orderId)) {
+                availableOrderFeed.append(AvailableOrderFeed.EventType.REMOVED, removedEvent(orderId));
+            }
+        }
+    }
+
+    private static AvailableOrderEvent removedEvent(Long orderId) {
+        return AvailableOrderEvent.builder()
+                .orderId(orderId)
+                .build();
+    }
+
+    private void add(IndexedOrder order) {
+        ordersById.put(order.id(), order);
+        version++;
+        if (!order.hasCoordinates()) {
+            withoutCoordinates++;
+            return;
+        }
+        Bucket bucket = buckets.computeIfAbsent(bucketKey(order), ignored -> new Bucket());
+        bucket.orders.add(order);
+        bucket.version = version;
+    }
+
+    private IndexedOrder remove(Long orderId) {
+        IndexedOrder existing = ordersById.remove(orderId);
+        if (existing == null) {
+            return null;
+        }
+        version++;
+        if (!existing.hasCoordinates()) {
+            withoutCoordinates--;
+            return existing;
+        }
+        String key = bucketKey(existing);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return existing;
+        }
+        bucket.orders.remove(existing);
+        bucket.version = version;
+        if (bucket.orders.isEmpty()) {
+            buckets.remove(key);
+        }
+        return existing;
+    }
+
+    private String bucketKey(IndexedOrder order) {
+        return orderClusteringService.bucketKey(order.pickupTime());
+    }
+
+    private boolean isIndexable(Order order) {
+        return order.getStatus() == OrderStatus.PUBLISHED && order.getCourier() == null;
+    }
+
+    private static AvailableOrderFeed.EventType removalType(Order order) {
+        return order.getStatus() == OrderStatus.CANCELLED_BY_CUSTOMER || order.getStatus() == OrderStatus.CANCELLED_BY_COURIER
+                ? AvailableOrderFeed.EventType.CANCELLED
+                : AvailableOrderFeed.EventType.CLAIMED;
+    }
+
+    private IndexedOrder toIndexedOrder(Order order) {
+        Double lat = order.getLat();
+        Double lng = order.getLng();
+        if ((lat == null || lng == null) && order.getSubscription() != null) {
+            lat = lat == null ? order.getSubscription().getServiceLat() : lat;
+            lng = lng == null ? order.getSubscription().getServiceLng() : lng;
+        }
+        return new IndexedOrder(order.getId(), order.getAddress(), order.getPickupTime(), lat, lng);
+    }
+
+    /**
+     * Неизменяемый снимок заказа: хранит только поля, нужные для кластеризации,
+     * без ссылок на JPA-сущности.
+     */
+    private record IndexedOrder(
+            Long id,
+            String address,
+            OffsetDateTime pickupTime,
+            Double lat,
+            Double lng
+    ) {
+        private boolean hasCoordinates() {
+            return lat != null && lng != null;
+        }
+
+        private Order toOrder() {
+            return Order.builder()
+                    .id(id)
+                    .address(address)
+                    .pickupTime(pickupTime)
+                    .lat(lat)
+                    .lng(lng)
+                    .status(OrderStatus.PUBLISHED)
+                    .build();
+        }
+
+        private AvailableOrderEvent toEvent() {
+            return AvailableOrderEvent.builder()
+                    .orderId(id)
+                    .address(address)
+                    .pickupTime(pickupTime)
+                    .lat(lat)
+                    .lng(lng)
+                    .build();
+        }
+    }
+
+    /**
+     * {@code removal} — тип события, если заказ покидает набор.
+     */
+    private record Change(
+            Long orderId,
+            IndexedOrder order,
+            AvailableOrderFeed.EventType removal
+    ) {
+    }
+
+    record AvailableSnapshot(
+            long sequence,
+            List<AvailableOrderEvent> orders
+    ) {
+    }
+
+    private record CachedBucket(
+            long version,
+            List<OrderClusterResponse> clusters
+    ) {
+    }
+
+    private record CachedResponse(
+            long version,
+            OrderClusteringResponse response
+    ) {
+    }
+
+    private static final class Bucket {
+        private final TreeSet<IndexedOrder> orders = new TreeSet<>(PICKUP_ORDER);
+        private long version;
+    }
+
+    private record BucketSnapshot(
+            long version,
+            List<IndexedOrder> orders
+    ) {
+    }
+
+    /**
+     * Неизменяемое состояние индекса на момент публикации: заказы по времени вывоза, бакеты и номер
+     * последнего события ленты. KD-дерево строится при первом запросе ближайших; если два запроса
+     * построят его одновременно, деревья совпадут.
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final long sequence;
+        private final List<IndexedOrder> orders;
+        private final Map<String, BucketSnapshot> buckets;
+        private final int withoutCoordinates;
+        private volatile OrderKdTree nearestTree;
+
+        private Snapshot(
+                long version,
+                long sequence,
+                List<IndexedOrder> orders,
+                Map<String, BucketSnapshot> buckets,
+                int withoutCoordinates
+        ) {
+            this.version = version;
+            this.sequence = sequence;
+            this.orders = orders;
+            this.buckets = buckets;
+            this.withoutCoordinates = withoutCoordinates;
+        }
+
+        private OrderKdTree nearestTree() {
+            OrderKdTree tree = nearestTree;
+            if (tree != null) {
+                return tree;
+            }
+            int size = orders.size() - withoutCoordinates;
+            long[] ids = new long[size];
+            double[] lats = new double[size];
+            double[] lngs = new double[size];
+            int idx = 0;
+            for (IndexedOrder order : orders) {
+                if (!order.hasCoordinates()) {
+                    continue;
+                }
+                ids[idx] = order.id();
+                lats[idx] = order.lat();
+                lngs[idx] = order.lng();
+                idx++;
+            }
+            tree = new OrderKdTree(ids, lats, lngs);
+            nearestTree = tree;
+            return tree;
+        }
+    }
+
+    private static final class OptionsCache {
+        private final Map<String, CachedBucket> buckets = new ConcurrentHashMap<>();
+        private volatile CachedResponse response;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.core.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Неизменяемое R-дерево по описанным прямоугольникам активных зон обслуживания, упакованное методом
+ * STR (Sort-Tile-Recursive). Точный тест попадания в полигон выполняется только для зон,
+ * в прямоугольник которых попала точка.
+ * <p>
+ * Узлы каждого уровня лежат в плоских массивах; узел уровня 0 ссылается на диапазон зон,
+ * узел уровня {@code k > 0} — на диапазон узлов уровня {@code k - 1}.
+ */
+final class ServiceZoneIndex {
+
+    private static final int NODE_CAPACITY = 8;
+
+    private final int zoneCount;
+    private final CompiledServiceZone[] zones;
+    private final Level[] levels;
+
+    ServiceZoneIndex(List<CompiledServiceZone> activeZones) {
+        zoneCount = activeZones.size();
+        CompiledServiceZone[] indexed = activeZones.stream()
+                .filter(zone -> !zone.isEmpty())
+                .toArray(CompiledServiceZone[]::new);
+
+        Level items = new Level(indexed.length);
+        for (int i = 0; i < indexed.length; i++) {
+            items.set(i, indexed[i].getMinLat(), indexed[i].getMaxLat(),
+                    indexed[i].getMinLng(), indexed[i].getMaxLng(), i, i + 1);
+        }
+        int[] order = items.strOrder();
+        zones = new CompiledServiceZone[indexed.length];
+        for (int i = 0; i < order.length; i++) {
+            zones[i] = indexed[order[i]];
+        }
+        items = items.permute(order);
+
+        List<Level> built = new ArrayList<>();
+        if (zones.length > 0) {
+            while (true) {
+                Level level = items.pack();
+                if (level.size() == 1) {
+                    built.add(level);
+                    break;
+                }
+                // Следующий уровень группирует узлы этого уровня, поэтому они упорядочиваются заранее;
+                // диапазоны детей переезжают вместе с узлами.
+                level = level.permute(level.strOrder());
+                built.add(level);
+                items = level;
+            }
+        }
+        levels = built.toArray(Level[]::new);
+    }
+
+    /**
+     * Нет ни одной активной зоны.
+     */
+    boolean isEmpty() {
+        return zoneCount == 0;
+    }
+
+    /**
+     * Хотя бы одна активная зона содержит координаты.
+     */
+    boolean hasCoordinates() {
+        return zones.length > 0;
+    }
+
+    /**
+     * Id зоны, содержащей точку, или {@code null}. Если точка попала в несколько пересекающихся зон,
+     * возвращается меньший id — результат не зависит от формы дерева.
+     */
+    Long findZoneId(double lat, double lng) {
+        if (levels.length == 0) {
+            return null;
+        }
+        return search(levels.length - 1, 0, lat, lng, null);
+    }
+
+    private Long search(int depth, int node, double lat, double lng, Long best) {
+        Level level = levels[depth];
+        if (!level.covers(node, lat, lng)) {
+            return best;
+        }
+        for (int child = level.childStart[node]; child < level.childEnd[node]; child++) {
+            if (depth > 0) {
+                best = search(depth - 1, child, lat, lng, best);
+                continue;
+            }
+            CompiledServiceZone zone = zones[child];
+            Long zoneId = zone.getZoneId();
+            if ((best == null || (zoneId != null && zoneId < best)) && zone.contains(lat, lng)) {
+                best = zoneId;
+            }
+        }
+        return best;
+    }
+
+    private static final class Level {
+        private final double[] minLat;
+        private final double[] maxLat;
+        private final double[] minLng;
+        private final double[] maxLng;
+        private final int[] childStart;
+        private final int[] childEnd;
+
+        private Level(int size) {
+            minLat = new double[size];
+            maxLat = new double[size];
+            minLng = new double[size];
+            maxLng = new double[size];
+            childStart = new int[size];
+            childEnd = new int[size];
+        }
+
+        private int size() {
+            return minLat.length;
+        }
+
+        private void set(int i, double minLat, double maxLat, double minLng, double maxLng, int from, int to) {
+            this.minLat[i] = minLat;
+            this.maxLat[i] = maxLat;
+            this.minLng[i] = minLng;
+            this.maxLng[i] = maxLng;
+            childStart[i] = from;
+            childEnd[i] = to;
+        }
+
+        private boolean covers(int i, double lat, double lng) {
+            return lat >= minLat[i] && lat <= maxLat[i] && lng >= minLng[i] && lng <= maxLng[i];
+        }
+
+        /**
+         * Порядок STR: сортировка по центру по долготе, нарезка на вертикальные полосы
+         * по {@code ceil(sqrt(число узлов))} узлов, внутри полосы — сортировка по центру по широте.
+         */
+        private int[] strOrder() {
+            int n = size();
+            Integer[] items = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                items[i] = i;
+            }
+            Arrays.sort(items, Comparator.comparingDouble(i -> minLng[i] + maxLng[i]));
+
+            int nodeCount = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            int sliceSize = Math.max(1, (int) Math.ceil(Math.sqrt(nodeCount))) * NODE_CAPACITY;
+            for (int from = 0; from < n; from += sliceSize) {
+                Arrays.sort(items, from, Math.min(n, from + sliceSize),
+                        Comparator.comparingDouble(i -> minLat[i] + maxLat[i]));
+            }
+            return Arrays.stream(items).mapToInt(Integer::intValue).toArray();
+        }
+
+        private Level permute(int[] order) {
+            Level result = new Level(order.length);
+            for (int i = 0; i < order.length; i++) {
+                int j = order[i];
+                result.set(i, minLat[j], maxLat[j], minLng[j], maxLng[j], childStart[j], childEnd[j]);
+            }
+            return result;
+        }
+
+        /**
+         * Группирует подряд идущие элементы по {@link #NODE_CAPACITY} в узлы уровнем выше.
+         */
+        private Level pack() {
+            int n = size();
+            Level parent = new Level((n + NODE_CAPACITY - 1) / NODE_CAPACITY);
+            for (int node = 0; node < parent.size(); node++) {
+                int from = node * NODE_CAPACITY;
+                int to = Math.min(n, from + NODE_CAPACITY);
+                double nodeMinLat = Double.POSITIVE_INFINITY;
+                double nodeMaxLat = Double.NEGATIVE_INFINITY;
+                double nodeMinLng = Double.POSITIVE_INFINITY;
+                double nodeMaxLng = Double.NEGATIVE_INFINITY;
+                for (int i = from; i < to; i++) {
+                    nodeMinLat = Math.min(nodeMinLat, minLat[i]);
+                    nodeMaxLat = Math.max(nodeMaxLat, maxLat[i]);
+                    nodeMinLng = Math.min(nodeMinLng, minLng[i]);
+                    nodeMaxLng = Math.max(nodeMaxLng, maxLng[i]);
+                }
+                parent.set(node, nodeMinLat, nodeMaxLat, nodeMinLng, nodeMaxLng, from, to);
+            }
+            return parent;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.util.List;
 public class ServiceZoneService {
 
     private final ServiceZoneRepository serviceZoneRepository;
+    private final ActiveServiceZoneCache activeServiceZoneCache;
 
     @Transactional(readOnly = true)
     public ServiceZone getActiveZone() {
@@ -27,14 +28,57 @@ public class ServiceZoneService {
                 .orElseThrow(() -> new ResourceNotFoundException("Активная зона обслуживания не настроена"));
     }
 
+    @Transactional(readOnly = true)
+    public List<ServiceZone> getActiveZones() {
+        return serviceZoneRepository.findByActiveTrue();
+    }
+
+    /**
+     * Заменяет все активные зоны одной новой.
+     */
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public ServiceZone replaceActiveZone(User currentUser, CreateServiceZoneRequest request) {
+        ensureAdmin(currentUser);
+
+        serviceZoneRepository.deactivateAllActiveZones();
+        ServiceZone saved = serviceZoneRepository.save(buildZone(request));
+        activeServiceZoneCache.onZonesChanged();
+        return saved;
+    }
+
+    /**
+     * Добавляет активную зону, не затрагивая уже действующие.
+     */
+    @Transactional
+    public ServiceZone addActiveZone(User currentUser, CreateServiceZoneRequest request) {
+        ensureAdmin(currentUser);
+
+        ServiceZone saved = serviceZoneRepository.save(buildZone(request));
+        activeServiceZoneCache.onZonesChanged();
+        return saved;
+    }
+
+    @Transactional
+    public void deactivateZone(User currentUser, Long zoneId) {
+        ensureAdmin(currentUser);
+
+        ServiceZone zone = serviceZoneRepository.findById(zoneId)
+                .orElseThrow(() -> new ResourceNotFoundException("Зона обслуживания не найдена"));
+        if (!zone.isActive()) {
+            return;
+        }
+        zone.setActive(false);
+        serviceZoneRepository.save(zone);
+        activeServiceZoneCache.onZonesChanged();
+    }
+
+    private void ensureAdmin(User currentUser) {
         if (currentUser == null || currentUser.getUserRole() != UserRole.ADMIN) {
             throw new ForbiddenOperationException("Только администратор может изменять зону обслуживания");
         }
+    }
 
-        serviceZoneRepository.deactivateAllActiveZones();
-
+    private ServiceZone buildZone(CreateServiceZoneRequest request) {
         List<ServiceZone.Coordinate> coordinates = new ArrayList<>(request.getCoordinates().stream()
                 .map(dto -> new ServiceZone.Coordinate(dto.getLat(), dto.getLng()))
                 .toList());
@@ -49,12 +93,10 @@ public class ServiceZoneService {
             }
         }
 
-        ServiceZone zone = ServiceZone.builder()
+        return ServiceZone.builder()
                 .name(request.getName().trim())
                 .coordinates(coordinates)
                 .active(true)
                 .build();
-
-        return serviceZoneRepository.save(zone);
     }
 }
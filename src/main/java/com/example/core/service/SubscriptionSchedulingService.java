@@ -32,6 +32,9 @@ public class SubscriptionSchedulingService {
 
     private final SubscriptionRepository subscriptionRepository;
     private final OrderRepository orderRepository;
+    private final PublishedOrderIndexService publishedOrderIndexService;
+    private final ActiveServiceZoneCache activeServiceZoneCache;
+    private final AddressDictionaryService addressDictionaryService;
 
     @Transactional
     public boolean scheduleNextOrderIfNeeded(Long subscriptionId) {
@@ -144,11 +147,16 @@ public class SubscriptionSchedulingService {
                 .client(subscription.getUser())
                 .subscription(subscription)
                 .address(subscription.getServiceAddress())
+                .lat(subscription.getServiceLat())
+                .lng(subscription.getServiceLng())
+                .serviceZoneId(resolveServiceZoneId(subscription))
                 .pickupTime(candidate)
                 .comment("Автозаказ по подписке")
                 .status(OrderStatus.PUBLISHED)
                 .build();
-        orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        publishedOrderIndexService.onOrderChanged(saved);
+        addressDictionaryService.recordUsage(saved.getAddress(), saved.getLat(), saved.getLng());
 
         subscription.setUsedOrders(subscription.getUsedOrders() + 1);
         subscription.setNextPickupAt(candidate.plusDays(getCadenceDays(subscription)));
@@ -156,6 +164,17 @@ public class SubscriptionSchedulingService {
         return true;
     }
 
+    /**
+     * Адрес подписки проверяется при её создании; автозаказ не отклоняется, даже если зону с тех пор отключили.
+     */
+    private Long resolveServiceZoneId(Subscription subscription) {
+        if (subscription.getServiceLat() == null || subscription.getServiceLng() == null) {
+            return null;
+        }
+        return activeServiceZoneCache.getZoneIndex()
+                .findZoneId(subscription.getServiceLat(), subscription.getServiceLng());
+    }
+
     private OffsetDateTime resolveCandidate(Subscription subscription, OffsetDateTime minAllowed) {
         OffsetDateTime candidate = subscription.getNextPickupAt();
         if (candidate == null) {
@@ -212,7 +231,7 @@ public class SubscriptionSchedulingService {
                 .map(order -> {
                     OffsetDateTime pickupTime = order.getPickupTime();
                     order.setStatus(OrderStatus.CANCELLED_BY_CUSTOMER);
-                    orderRepository.save(order);
+                    publishedOrderIndexService.onOrderChanged(orderRepository.save(order));
 
                     if (subscription.getUsedOrders() > 0) {
                         subscription.setUsedOrders(subscription.getUsedOrders() - 1);
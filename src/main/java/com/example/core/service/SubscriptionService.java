@@ -7,7 +7,6 @@ import com.example.core.model.SubscriptionPlan;
 import com.example.core.model.SubscriptionStatus;
 import com.example.core.model.User;
 import com.example.core.model.UserRole;
-import com.example.core.repository.ServiceZoneRepository;
 import com.example.core.repository.SubscriptionRepository;
 import com.example.core.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -34,11 +33,11 @@ public class SubscriptionService {
 
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
-    private final ServiceZoneRepository zoneRepository;
-    private final GeoUtils geoUtils;
+    private final ActiveServiceZoneCache activeServiceZoneCache;
     private final GeocodingService geocodingService;
     private final SubscriptionSchedulingService schedulingService;
     private final AuditService auditService;
+    private final AddressDictionaryService addressDictionaryService;
 
     @Transactional
     public Subscription createSubscription(
@@ -96,6 +95,7 @@ public class SubscriptionService {
                 .build();
 
         Subscription saved = subscriptionRepository.save(subscription);
+        addressDictionaryService.recordUsage(saved.getServiceAddress(), saved.getServiceLat(), saved.getServiceLng());
         schedulingService.scheduleNextOrderIfNeeded(saved.getId());
         auditService.log(
                 "SUBSCRIPTION_CREATE",
@@ -533,23 +533,18 @@ public class SubscriptionService {
     }
 
     private void validateAddressInServiceZone(ServiceZone.Coordinate coordinate) {
-        ServiceZone activeZone = zoneRepository.findFirstByActiveTrue()
-                .orElseThrow(() -> new IllegalArgumentException("Активная зона обслуживания не настроена"));
-
-        if (activeZone.getCoordinates() == null || activeZone.getCoordinates().isEmpty()) {
+        ServiceZoneIndex zones = activeServiceZoneCache.getZoneIndex();
+        if (zones.isEmpty()) {
+            throw new IllegalArgumentException("Активная зона обслуживания не настроена");
+        }
+        if (!zones.hasCoordinates()) {
             throw new IllegalArgumentException("Активная зона не содержит координат");
         }
 
-        boolean inZone = geoUtils.isPointInPolygon(
-                coordinate.getLat(),
-                coordinate.getLng(),
-                activeZone.getCoordinates()
-        );
-
-        if (!inZone) {
+        if (zones.findZoneId(coordinate.getLat(), coordinate.getLng()) == null) {
             throw new IllegalArgumentException(
                     String.format(
-                            "Этот адрес вне зоны обслуживания (%.6f, %.6f). Выберите адрес внутри активной зоны.",
+                            "Этот адрес вне зоны обслуживания (%.6f, %.6f). Выберите адрес внутри одной из активных зон.",
                             coordinate.getLat(),
                             coordinate.getLng()
                     )
@@ -1,5 +1,6 @@
 package com.example.core.service.payment;
 
+import com.example.core.integration.IntegrationClient;
 import com.example.core.model.PaymentStatus;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -13,7 +14,6 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -23,7 +23,7 @@ import java.math.RoundingMode;
 @RequiredArgsConstructor
 public class YooKassaPaymentGatewayClient implements PaymentGatewayClient {
 
-    private final RestTemplate restTemplate;
+    private final IntegrationClient yooKassaClient;
     private final ObjectMapper objectMapper;
 
     @Value("${payments.yookassa.api-url:https://api.yookassa.ru/v3}")
@@ -42,12 +42,12 @@ public class YooKassaPaymentGatewayClient implements PaymentGatewayClient {
             JsonNode body = buildCreatePayload(command);
             HttpHeaders headers = authHeaders(command.getIdempotenceKey());
             HttpEntity<String> request = new HttpEntity<>(objectMapper.writeValueAsString(body), headers);
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = yooKassaClient.execute(restTemplate -> restTemplate.exchange(
                     apiUrl + "/payments",
                     HttpMethod.POST,
                     request,
                     String.class
-            );
+            ));
             return parseResponse(response.getBody());
         } catch (RestClientException e) {
             log.error("YooKassa create payment network error: {}", e.getMessage());
@@ -68,12 +68,12 @@ public class YooKassaPaymentGatewayClient implements PaymentGatewayClient {
         try {
             HttpHeaders headers = authHeaders(null);
             HttpEntity<Void> request = new HttpEntity<>(headers);
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = yooKassaClient.execute(restTemplate -> restTemplate.exchange(
                     apiUrl + "/payments/" + externalId,
                     HttpMethod.GET,
                     request,
                     String.class
-            );
+            ));
             return parseResponse(response.getBody());
         } catch (RestClientException e) {
             log.error("YooKassa fetch payment network error: {}", e.getMessage());
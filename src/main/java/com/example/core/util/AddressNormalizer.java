@@ -0,0 +1,25 @@
+package com.example.core.util;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Нормализация адресов для ключей кэша и словаря адресов: нижний регистр, «ё» → «е»,
+ * всё, кроме букв и цифр, — одиночный пробел. В SQL то же самое даёт
+ * {@code trim(regexp_replace(translate(lower(s), 'ё', 'е'), '[^[:alnum:]]+', ' ', 'g'))} (см. миграцию V17).
+ */
+public final class AddressNormalizer {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private AddressNormalizer() {
+    }
+
+    public static String normalize(String address) {
+        if (address == null) {
+            return "";
+        }
+        String normalized = address.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        return SEPARATORS.matcher(normalized).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Равномерная сетка по широте/долготе для пространственного индекса заказов.
+ * Ключ ячейки — {@code latIndex * LNG_CELLS + lngIndex}, поэтому его же можно посчитать в SQL
+ * (см. миграцию V14) и искать по B-tree индексу через {@code geo_cell IN (...)}.
+ */
+public final class GeoCells {
+
+    public static final double CELL_DEGREES = 0.01;
+    public static final int MAX_COVERING_CELLS = 2048;
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    private static final double METERS_PER_DEGREE_LAT = EARTH_RADIUS_METERS * Math.PI / 180.0;
+    private static final int LAT_CELLS = (int) Math.round(180.0 / CELL_DEGREES);
+    private static final int LNG_CELLS = (int) Math.round(360.0 / CELL_DEGREES);
+
+    private GeoCells() {
+    }
+
+    public static Long cellOf(Double lat, Double lng) {
+        if (lat == null || lng == null || !Double.isFinite(lat) || !Double.isFinite(lng)) {
+            return null;
+        }
+        return cellKey(latIndex(lat), lngIndex(lng));
+    }
+
+    /**
+     * Ячейки, покрывающие прямоугольник. Пустой список, если ячеек больше {@link #MAX_COVERING_CELLS}:
+     * для такой области индекс по ячейкам не выгоднее фильтра по координатам.
+     */
+    public static List<Long> covering(BoundingBox box) {
+        int fromLat = latIndex(box.minLat());
+        int toLat = latIndex(box.maxLat());
+        int fromLng = lngIndex(box.minLng());
+        int toLng = lngIndex(box.maxLng());
+        long count = (long) (toLat - fromLat + 1) * (toLng - fromLng + 1);
+        if (count > MAX_COVERING_CELLS) {
+            return List.of();
+        }
+
+        List<Long> cells = new ArrayList<>((int) count);
+        for (int latIndex = fromLat; latIndex <= toLat; latIndex++) {
+            for (int lngIndex = fromLng; lngIndex <= toLng; lngIndex++) {
+                cells.add(cellKey(latIndex, lngIndex));
+            }
+        }
+        return cells;
+    }
+
+    private static long cellKey(int latIndex, int lngIndex) {
+        return (long) latIndex * LNG_CELLS + lngIndex;
+    }
+
+    private static int latIndex(double lat) {
+        return clamp((int) Math.floor((lat + 90.0) / CELL_DEGREES), LAT_CELLS);
+    }
+
+    private static int lngIndex(double lng) {
+        return clamp((int) Math.floor((lng + 180.0) / CELL_DEGREES), LNG_CELLS);
+    }
+
+    private static int clamp(int index, int cells) {
+        return Math.max(0, Math.min(cells - 1, index));
+    }
+
+    /**
+     * Прямоугольник в градусах; границы включительно.
+     */
+    public record BoundingBox(
+            double minLat,
+            double maxLat,
+            double minLng,
+            double maxLng
+    ) {
+        public BoundingBox {
+            if (!Double.isFinite(minLat) || !Double.isFinite(maxLat)
+                    || !Double.isFinite(minLng) || !Double.isFinite(maxLng)) {
+                throw new IllegalArgumentException("Границы области должны быть числами");
+            }
+            if (minLat > maxLat || minLng > maxLng) {
+                throw new IllegalArgumentException("Некорректные границы области");
+            }
+            if (minLat < -90.0 || maxLat > 90.0 || minLng < -180.0 || maxLng > 180.0) {
+                throw new IllegalArgumentException("Границы области вне допустимого диапазона координат");
+            }
+        }
+
+        /**
+         * Описанный вокруг круга прямоугольник (без перехода через антимеридиан).
+         */
+        public static BoundingBox around(double lat, double lng, double radiusMeters) {
+            double latDelta = radiusMeters / METERS_PER_DEGREE_LAT;
+            double cosLat = Math.cos(Math.toRadians(Math.min(90.0, Math.abs(lat) + latDelta)));
+            double lngDelta = cosLat < 1e-6 ? 180.0 : Math.min(180.0, latDelta / cosLat);
+            return new BoundingBox(
+                    Math.max(-90.0, lat - latDelta),
+                    Math.min(90.0, lat + latDelta),
+                    Math.max(-180.0, lng - lngDelta),
+                    Math.min(180.0, lng + lngDelta)
+            );
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.core.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция в списке, отсортированном по паре (время, id): последний элемент предыдущей страницы.
+ * Следующая страница начинается строго после этой пары, поэтому вставки и удаления между запросами
+ * не дают ни пропусков, ни повторов, а БД читает страницу по индексу без OFFSET.
+ * <p>
+ * Клиенту отдаётся непрозрачной строкой (Base64url от {@code instant|id}).
+ */
+public record KeysetCursor(OffsetDateTime time, long id) {
+
+    public KeysetCursor {
+        if (time == null) {
+            throw new IllegalArgumentException("Некорректный курсор страницы");
+        }
+    }
+
+    public String encode() {
+        String raw = time.toInstant() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return курсор или {@code null} для первой страницы
+     * @throws IllegalArgumentException если строка не является курсором
+     */
+    public static KeysetCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Некорректный курсор страницы");
+            }
+            Instant instant = Instant.parse(raw.substring(0, separator));
+            long id = Long.parseLong(raw.substring(separator + 1));
+            return new KeysetCursor(instant.atOffset(ZoneOffset.UTC), id);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор страницы", e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+-- Автозаказы по подписке до этой версии сохранялись без координат: копируем их из подписки.
+UPDATE orders o
+SET lat = s.service_lat,
+    lng = s.service_lng
+FROM subscriptions s
+WHERE o.subscription_id = s.subscription_id
+  AND (o.lat IS NULL OR o.lng IS NULL)
+  AND s.service_lat IS NOT NULL
+  AND s.service_lng IS NOT NULL;
+
+-- Ячейка сетки 0.01 x 0.01 градуса, формула совпадает с GeoCells.cellOf
+-- (арифметика в double precision, чтобы граничные значения округлялись так же, как в Java).
+ALTER TABLE orders
+    ADD COLUMN IF NOT EXISTS geo_cell BIGINT;
+
+UPDATE orders
+SET geo_cell = LEAST(GREATEST(FLOOR((lat + 90.0::DOUBLE PRECISION) / 0.01::DOUBLE PRECISION), 0), 17999)::BIGINT * 36000
+             + LEAST(GREATEST(FLOOR((lng + 180.0::DOUBLE PRECISION) / 0.01::DOUBLE PRECISION), 0), 35999)::BIGINT
+WHERE lat IS NOT NULL
+  AND lng IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_orders_status_geo_cell
+    ON orders(status, geo_cell);
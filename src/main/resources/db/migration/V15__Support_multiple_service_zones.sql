@@ -0,0 +1,13 @@
+-- Одновременно может действовать несколько зон обслуживания.
+DROP INDEX IF EXISTS uq_service_zones_single_active;
+
+CREATE INDEX IF NOT EXISTS idx_service_zones_active
+    ON service_zones(active)
+    WHERE active = true;
+
+-- Зона, в которую попал адрес заказа при создании. Для заказов до этой версии не заполняется.
+ALTER TABLE orders
+    ADD COLUMN IF NOT EXISTS service_zone_id BIGINT REFERENCES service_zones(zone_id);
+
+CREATE INDEX IF NOT EXISTS idx_orders_service_zone
+    ON orders(service_zone_id);
@@ -0,0 +1,12 @@
+-- Общий (L2) кэш геокодера. found = false — негативная запись: провайдер ничего не нашёл.
+CREATE TABLE IF NOT EXISTS geocode_cache (
+    cache_key TEXT PRIMARY KEY,
+    payload TEXT,
+    found BOOLEAN NOT NULL,
+    refresh_at TIMESTAMPTZ NOT NULL,
+    expires_at TIMESTAMPTZ NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_geocode_cache_expires_at
+    ON geocode_cache(expires_at);
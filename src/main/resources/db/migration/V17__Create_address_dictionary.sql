@@ -0,0 +1,46 @@
+-- Словарь адресов для подсказок: уникальные нормализованные адреса с последним использованием и координатами.
+-- Нормализация совпадает с AddressNormalizer: нижний регистр, ё -> е, всё кроме букв и цифр -> пробел.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE TABLE IF NOT EXISTS address_dictionary (
+    normalized_address TEXT PRIMARY KEY,
+    address VARCHAR(255) NOT NULL,
+    lat DOUBLE PRECISION,
+    lng DOUBLE PRECISION,
+    use_count BIGINT NOT NULL DEFAULT 1,
+    last_used_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Триграммный GIN-индекс обслуживает LIKE '%запрос%' без последовательного сканирования.
+CREATE INDEX IF NOT EXISTS idx_address_dictionary_trgm
+    ON address_dictionary USING gin (normalized_address gin_trgm_ops);
+
+WITH history AS (
+    SELECT trim(regexp_replace(translate(lower(address), 'ё', 'е'), '[^[:alnum:]]+', ' ', 'g')) AS normalized_address,
+           address,
+           lat,
+           lng,
+           created_at
+    FROM orders
+    WHERE address IS NOT NULL
+    UNION ALL
+    SELECT trim(regexp_replace(translate(lower(service_address), 'ё', 'е'), '[^[:alnum:]]+', ' ', 'g')),
+           service_address,
+           service_lat,
+           service_lng,
+           created_at
+    FROM subscriptions
+    WHERE service_address IS NOT NULL
+)
+INSERT INTO address_dictionary (normalized_address, address, lat, lng, use_count, last_used_at)
+SELECT DISTINCT ON (normalized_address)
+       normalized_address,
+       address,
+       lat,
+       lng,
+       COUNT(*) OVER (PARTITION BY normalized_address),
+       MAX(created_at) OVER (PARTITION BY normalized_address)
+FROM history
+WHERE normalized_address <> ''
+ORDER BY normalized_address, (lat IS NOT NULL AND lng IS NOT NULL) DESC, created_at DESC
+ON CONFLICT (normalized_address) DO NOTHING;
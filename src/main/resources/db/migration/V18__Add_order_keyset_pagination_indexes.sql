@@ -0,0 +1,25 @@
+-- Keyset-пагинация списков заказов: каждая страница — диапазонное чтение индекса
+-- по (время, order_id) после курсора, без OFFSET и без сортировки всей таблицы.
+
+-- Заказы клиента и все заказы для администратора: новые сначала.
+CREATE INDEX IF NOT EXISTS idx_orders_client_created
+    ON orders(client_id, created_at DESC, order_id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_orders_created
+    ON orders(created_at DESC, order_id DESC);
+
+-- Заказы курьера в работе по времени вывоза.
+CREATE INDEX IF NOT EXISTS idx_orders_courier_pickup
+    ON orders(courier_id, pickup_time, order_id);
+
+-- Свободные опубликованные заказы по времени вывоза.
+CREATE INDEX IF NOT EXISTS idx_orders_unassigned_pickup
+    ON orders(pickup_time, order_id)
+    WHERE status = 'PUBLISHED' AND courier_id IS NULL;
+
+-- Фильтр администратора (сортировка по pickup_time DESC): индекс читается в обратном порядке
+-- и заменяет одноколоночный idx_orders_pickup_time.
+CREATE INDEX IF NOT EXISTS idx_orders_pickup_order
+    ON orders(pickup_time, order_id);
+
+DROP INDEX IF EXISTS idx_orders_pickup_time;
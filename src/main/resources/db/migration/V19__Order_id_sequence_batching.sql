@@ -0,0 +1,4 @@
+-- Заказы получают id из последовательности пулами по 50 (pooled-оптимизатор Hibernate), чтобы вставки
+-- шли JDBC-пакетами. Шаг последовательности должен совпадать с allocationSize в Order.
+-- DEFAULT колонки остаётся: прямые INSERT без id получают верхнюю границу ещё не выданного пула.
+ALTER SEQUENCE orders_order_id_seq INCREMENT BY 50;
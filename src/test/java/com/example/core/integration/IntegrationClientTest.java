@@ -0,0 +1,155 @@
+package com.example.core.integration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class IntegrationClientTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private IntegrationClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRetryRetriableResponsesAndReturnLastAnswer() {
+        client = newClient(new IntegrationClient.Settings(2, 4, 2, 50L, 5000L));
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseEntity<String> response = client.execute(
+                template -> calls.incrementAndGet() < 3
+                        ? ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("busy")
+                        : ResponseEntity.ok("done"),
+                result -> result.getStatusCode().is5xxServerError()
+        );
+
+        assertEquals("done", response.getBody());
+        assertEquals(3, calls.get());
+        assertEquals(2.0, meterRegistry.counter("integration.http.retries", "integration", "test").count());
+    }
+
+    @Test
+    void shouldNotRetryClientErrors() {
+        client = newClient(new IntegrationClient.Settings(2, 4, 3, 50L, 5000L));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.class, () -> client.execute(template -> {
+            calls.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldRejectCallsWhenBulkheadIsFull() throws Exception {
+        client = newClient(new IntegrationClient.Settings(1, 1, 0, 50L, 5000L));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> running = client.executeAsync(template -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }, result -> false);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = client.executeAsync(template -> "second", result -> false);
+
+        assertThrows(BulkheadFullException.class, () -> client.execute(template -> "third"));
+        assertEquals(1.0, meterRegistry.counter("integration.http.rejected", "integration", "test").count());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void callerShouldStopWaitingAfterCallTimeout() {
+        client = newClient(new IntegrationClient.Settings(1, 1, 0, 50L, 100L));
+        CountDownLatch release = new CountDownLatch(1);
+
+        long startedAt = System.nanoTime();
+        try {
+            assertThrows(ResourceAccessException.class, () -> client.execute(template -> {
+                await(release);
+                return "late";
+            }));
+        } finally {
+            release.countDown();
+        }
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 2000);
+        assertEquals(1.0, meterRegistry.counter("integration.http.timeouts", "integration", "test").count());
+    }
+
+    @Test
+    void openCircuitShouldRejectWithoutCallingProviderAndCloseAfterSuccessfulProbe() throws Exception {
+        client = new IntegrationClient(
+                "test",
+                restTemplate,
+                new IntegrationClient.Settings(2, 4, 0, 50L, 5000L),
+                new CircuitBreaker.Settings(true, 10, 3, 0.5, 200L, 1),
+                meterRegistry
+        );
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger failuresLeft = new AtomicInteger(3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(ResourceAccessException.class, () -> client.execute(template -> {
+                calls.incrementAndGet();
+                if (failuresLeft.getAndDecrement() > 0) {
+                    throw new ResourceAccessException("connect timed out");
+                }
+                return "ok";
+            }));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+        assertEquals(2.0, meterRegistry.get("integration.circuit.state").tag("integration", "test").gauge().value());
+
+        assertThrows(CallNotPermittedException.class, () -> client.execute(template -> {
+            calls.incrementAndGet();
+            return "ok";
+        }));
+        assertEquals(3, calls.get());
+
+        Thread.sleep(250);
+        assertEquals("ok", client.execute(template -> {
+            calls.incrementAndGet();
+            return "ok";
+        }));
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+        assertEquals(4, calls.get());
+    }
+
+    private IntegrationClient newClient(IntegrationClient.Settings settings) {
+        return new IntegrationClient("test", restTemplate, settings, meterRegistry);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
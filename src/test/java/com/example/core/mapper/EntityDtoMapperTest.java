@@ -2,9 +2,9 @@ package com.example.core.mapper;
 
 import com.example.core.dto.OrderResponse;
 import com.example.core.model.Order;
-import com.example.core.model.Payment;
 import com.example.core.model.User;
 import com.example.core.model.UserRole;
+import com.example.core.repository.OrderPrice;
 import com.example.core.repository.PaymentRepository;
 import org.junit.jupiter.api.Test;
 
@@ -13,8 +13,8 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -24,7 +24,7 @@ import static org.mockito.Mockito.when;
 class EntityDtoMapperTest {
 
     @Test
-    void batchMappingShouldLoadPaymentsInSingleRepositoryCall() {
+    void batchMappingShouldLoadPricesInSingleProjectionQuery() {
         PaymentRepository paymentRepository = mock(PaymentRepository.class);
         EntityDtoMapper mapper = new EntityDtoMapper(paymentRepository);
 
@@ -39,18 +39,15 @@ class EntityDtoMapperTest {
         Order order1 = Order.builder().id(101L).client(client).address("A1").build();
         Order order2 = Order.builder().id(102L).client(client).address("A2").build();
 
-        Payment payment1 = Payment.builder()
-                .id(1L)
-                .amount(BigDecimal.valueOf(500))
-                .order(order1)
-                .build();
-
-        when(paymentRepository.findByOrderIdIn(anyCollection())).thenReturn(List.of(payment1));
+        when(paymentRepository.findOrderPrices(anyCollection())).thenReturn(List.of(
+                new OrderPrice(101L, BigDecimal.valueOf(500)),
+                new OrderPrice(101L, BigDecimal.valueOf(700))
+        ));
 
         List<OrderResponse> responses = mapper.toOrderResponses(List.of(order1, order2));
 
-        verify(paymentRepository, times(1)).findByOrderIdIn(anyCollection());
-        verify(paymentRepository, never()).findByOrderId(anyLong());
+        verify(paymentRepository, times(1)).findOrderPrices(anyCollection());
+        verify(paymentRepository, never()).findByOrderId(any());
         assertEquals(2, responses.size());
         assertEquals(BigDecimal.valueOf(500), responses.get(0).getPrice());
         assertNull(responses.get(1).getPrice());
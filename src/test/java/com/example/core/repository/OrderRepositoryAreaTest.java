@@ -0,0 +1,124 @@
+package com.example.core.repository;
+
+import com.example.core.model.Order;
+import com.example.core.model.OrderStatus;
+import com.example.core.model.User;
+import com.example.core.model.UserRole;
+import com.example.core.util.GeoCells;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Выборка заказов в прямоугольнике: по ячейкам сетки и запасной вариант только по координатам
+ * должны давать один и тот же результат.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OrderRepositoryAreaTest {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 100);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final OffsetDateTime pickup = OffsetDateTime.now().plusDays(1);
+    private User client;
+
+    @BeforeEach
+    void setUp() {
+        client = userRepository.save(User.builder()
+                .phone("+79994000000")
+                .name("Client")
+                .password("x")
+                .userRole(UserRole.CLIENT)
+                .build());
+    }
+
+    @Test
+    void cellAndPlainBoxQueriesShouldReturnSameOrdersInPickupOrder() {
+        Long later = save(51.770, 55.100, pickup.plusMinutes(30), null).getId();
+        Long earlier = save(51.785, 55.125, pickup, null).getId();
+        save(51.900, 55.100, pickup, null);
+        save(51.775, 55.300, pickup, null);
+        Order accepted = order(51.771, 55.101, pickup);
+        accepted.setStatus(OrderStatus.ACCEPTED);
+        orderRepository.save(accepted);
+        User courier = userRepository.save(User.builder()
+                .phone("+79994000001")
+                .name("Courier")
+                .password("x")
+                .userRole(UserRole.COURIER)
+                .build());
+        Long assigned = save(51.772, 55.102, pickup.plusMinutes(10), courier).getId();
+
+        GeoCells.BoundingBox box = new GeoCells.BoundingBox(51.76, 51.79, 55.09, 55.13);
+        List<Long> cells = GeoCells.covering(box);
+        assertFalse(cells.isEmpty());
+
+        List<Long> byCells = ids(orderRepository.findInCellsWithinBox(
+                OrderStatus.PUBLISHED, false, cells,
+                box.minLat(), box.maxLat(), box.minLng(), box.maxLng(), FIRST_PAGE));
+        List<Long> plain = ids(orderRepository.findWithinBox(
+                OrderStatus.PUBLISHED, false,
+                box.minLat(), box.maxLat(), box.minLng(), box.maxLng(), FIRST_PAGE));
+        List<Long> unassigned = ids(orderRepository.findInCellsWithinBox(
+                OrderStatus.PUBLISHED, true, cells,
+                box.minLat(), box.maxLat(), box.minLng(), box.maxLng(), FIRST_PAGE));
+
+        assertEquals(List.of(earlier, assigned, later), byCells);
+        assertEquals(byCells, plain);
+        assertEquals(List.of(earlier, later), unassigned);
+    }
+
+    @Test
+    void areaNeedingTooManyCellsShouldFallBackToPlainBoxQuery() {
+        Long inside = save(51.50, 55.50, pickup, null).getId();
+        save(53.20, 50.15, pickup, null);
+
+        // Градус на градус — 100 × 100 ячеек, больше MAX_COVERING_CELLS: covering() пуст.
+        GeoCells.BoundingBox box = new GeoCells.BoundingBox(51.0, 52.0, 55.0, 56.0);
+        assertTrue(GeoCells.covering(box).isEmpty());
+
+        List<Long> plain = ids(orderRepository.findWithinBox(
+                OrderStatus.PUBLISHED, false,
+                box.minLat(), box.maxLat(), box.minLng(), box.maxLng(), FIRST_PAGE));
+
+        assertEquals(List.of(inside), plain);
+    }
+
+    private Order save(double lat, double lng, OffsetDateTime pickupTime, User courier) {
+        Order order = order(lat, lng, pickupTime);
+        order.setCourier(courier);
+        return orderRepository.save(order);
+    }
+
+    private Order order(double lat, double lng, OffsetDateTime pickupTime) {
+        return Order.builder()
+                .client(client)
+                .address("Адрес " + lat + ", " + lng)
+                .pickupTime(pickupTime)
+                .lat(lat)
+                .lng(lng)
+                .build();
+    }
+
+    private static List<Long> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+}
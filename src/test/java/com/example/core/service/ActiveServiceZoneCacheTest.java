@@ -0,0 +1,80 @@
+package com.example.core.service;
+
+import com.example.core.model.ServiceZone;
+import com.example.core.repository.ServiceZoneRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActiveServiceZoneCacheTest {
+
+    @Test
+    void zoneIndexShouldResolveZoneAmongManyActiveZones() {
+        ServiceZoneRepository zoneRepository = mock(ServiceZoneRepository.class);
+        ActiveServiceZoneCache cache = new ActiveServiceZoneCache(zoneRepository, mock(StringRedisTemplate.class));
+
+        // Сетка 10 x 10 квадратных зон со стороной 0.01 градуса плюс большая зона поверх угла сетки.
+        List<ServiceZone> zones = new ArrayList<>();
+        for (int row = 0; row < 10; row++) {
+            for (int col = 0; col < 10; col++) {
+                zones.add(square(100L + row * 10 + col, 51.70 + row * 0.01, 55.00 + col * 0.01, 0.01));
+            }
+        }
+        zones.add(square(50L, 51.695, 54.995, 0.02));
+        zones.add(ServiceZone.builder().id(10L).name("Без координат").coordinates(List.of()).build());
+        when(zoneRepository.findByActiveTrue()).thenReturn(zones);
+
+        ServiceZoneIndex index = cache.getZoneIndex();
+
+        assertFalse(index.isEmpty());
+        assertTrue(index.hasCoordinates());
+        assertEquals(157L, index.findZoneId(51.755, 55.075));
+        assertEquals(199L, index.findZoneId(51.795, 55.095));
+        assertEquals(50L, index.findZoneId(51.705, 55.005));
+        assertNull(index.findZoneId(51.85, 55.05));
+        assertNull(index.findZoneId(51.75, 55.20));
+        verify(zoneRepository, times(1)).findByActiveTrue();
+    }
+
+    @Test
+    void onZonesChangedShouldReloadSnapshot() {
+        ServiceZoneRepository zoneRepository = mock(ServiceZoneRepository.class);
+        ActiveServiceZoneCache cache = new ActiveServiceZoneCache(zoneRepository, mock(StringRedisTemplate.class));
+        ReflectionTestUtils.setField(cache, "pubSubEnabled", false);
+
+        when(zoneRepository.findByActiveTrue()).thenReturn(List.of());
+        assertTrue(cache.getZoneIndex().isEmpty());
+
+        when(zoneRepository.findByActiveTrue()).thenReturn(List.of(square(7L, 51.70, 55.00, 0.1)));
+        cache.onZonesChanged();
+
+        assertEquals(7L, cache.getZoneIndex().findZoneId(51.75, 55.05));
+        verify(zoneRepository, times(2)).findByActiveTrue();
+    }
+
+    private ServiceZone square(Long id, double lat, double lng, double size) {
+        return ServiceZone.builder()
+                .id(id)
+                .name("Зона " + id)
+                .coordinates(List.of(
+                        new ServiceZone.Coordinate(lat, lng),
+                        new ServiceZone.Coordinate(lat + size, lng),
+                        new ServiceZone.Coordinate(lat + size, lng + size),
+                        new ServiceZone.Coordinate(lat, lng + size),
+                        new ServiceZone.Coordinate(lat, lng)
+                ))
+                .build();
+    }
+}
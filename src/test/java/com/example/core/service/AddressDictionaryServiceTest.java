@@ -0,0 +1,56 @@
+package com.example.core.service;
+
+import com.example.core.model.AddressDictionaryEntry;
+import com.example.core.repository.AddressDictionaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AddressDictionaryServiceTest {
+
+    @Test
+    void inMemoryIndexShouldMergeNormalisedAddressesAndReturnRecentFirst() {
+        AddressDictionaryRepository repository = mock(AddressDictionaryRepository.class);
+        when(repository.findAll()).thenReturn(List.of(AddressDictionaryEntry.builder()
+                .normalizedAddress("оренбург ул ленина 3")
+                .address("Оренбург, ул. Ленина, 3")
+                .useCount(4)
+                .lastUsedAt(OffsetDateTime.now().minusDays(30))
+                .build()));
+        AddressDictionaryService service = new AddressDictionaryService(repository, mock(DataSource.class));
+        ReflectionTestUtils.setField(service, "backend", "memory");
+
+        service.recordUsage("Оренбург, ул. Ленина, 5", 51.76, 55.10);
+        service.recordUsage("оренбург ул ленина 5", null, null);
+        service.recordUsage("Оренбург, Салмышская улица, 12", 51.83, 55.16);
+
+        List<AddressDictionaryEntry> found = service.suggest("Ленина", 10);
+
+        assertEquals(2, found.size());
+        AddressDictionaryEntry recent = found.get(0);
+        assertEquals("оренбург ул ленина 5", recent.getNormalizedAddress());
+        assertEquals("оренбург ул ленина 5", recent.getAddress());
+        assertEquals(2, recent.getUseCount());
+        assertEquals(51.76, recent.getLat());
+        assertEquals("Оренбург, ул. Ленина, 3", found.get(1).getAddress());
+
+        assertEquals(List.of("Оренбург, Салмышская улица, 12"),
+                service.suggest("Салмышская улица, 1", 10).stream().map(AddressDictionaryEntry::getAddress).toList());
+        assertTrue(service.suggest("Пушкина", 10).isEmpty());
+        verify(repository, never()).upsert(anyString(), anyString(), any(), any(), any());
+        verify(repository, never()).searchByNormalizedAddress(anyString(), anyInt());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.core.service;
+
+import com.example.core.model.ServiceZone;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AddressGazetteerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldResolveAbbreviatedAddressesAndSuggestByWordPrefix() throws IOException {
+        Path file = tempDir.resolve("gazetteer.csv");
+        Files.writeString(file, """
+                # адрес;широта;долгота
+                Оренбург, улица Ленина, 5;51.7701;55.1001
+                Оренбург, улица Ленина, 12;51.7702;55.1002
+                Оренбург, проспект Победы, 12;51.7801;55.1501
+                Оренбург, Салмышская улица, 5;51.8301;55.1601
+                битая строка;north;east
+                """, StandardCharsets.UTF_8);
+        AddressGazetteer gazetteer = gazetteer("file:" + file.toAbsolutePath());
+
+        Optional<ServiceZone.Coordinate> exact = gazetteer.findCoordinates("г. Оренбург, ул. Ленина, д. 5");
+        Optional<ServiceZone.Coordinate> bySuffix = gazetteer.findCoordinates("пр-т Победы 12");
+        List<String> suggestions = gazetteer.suggest("Ленина 1", 5).stream()
+                .map(GeocodingService.AddressSuggestion::address)
+                .toList();
+
+        assertTrue(gazetteer.isAvailable());
+        assertEquals(51.7701, exact.orElseThrow().getLat());
+        assertEquals(55.1501, bySuffix.orElseThrow().getLng());
+        assertEquals(List.of("Оренбург, улица Ленина, 12"), suggestions);
+        assertEquals(2, gazetteer.suggest("оренбург улица", 5).size());
+        assertTrue(gazetteer.findCoordinates("улица Пушкина, 1").isEmpty());
+    }
+
+    @Test
+    void missingFileShouldLeaveGazetteerUnavailable() {
+        AddressGazetteer gazetteer = gazetteer("file:" + tempDir.resolve("absent.json").toAbsolutePath());
+
+        assertFalse(gazetteer.isAvailable());
+        assertTrue(gazetteer.suggest("Ленина", 5).isEmpty());
+    }
+
+    private AddressGazetteer gazetteer(String path) {
+        AddressGazetteer gazetteer = new AddressGazetteer(new DefaultResourceLoader(), new ObjectMapper());
+        ReflectionTestUtils.setField(gazetteer, "path", path);
+        return gazetteer;
+    }
+}
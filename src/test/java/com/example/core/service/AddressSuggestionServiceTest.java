@@ -0,0 +1,107 @@
+package com.example.core.service;
+
+import com.example.core.dto.AddressSuggestionResponse;
+import com.example.core.model.AddressDictionaryEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AddressSuggestionServiceTest {
+
+    private final GeocodingService geocodingService = mock(GeocodingService.class);
+    private final AddressDictionaryService addressDictionaryService = mock(AddressDictionaryService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AddressSuggestionService service = new AddressSuggestionService(
+            geocodingService,
+            addressDictionaryService,
+            meterRegistry
+    );
+
+    @AfterEach
+    void tearDown() {
+        service.shutdownFanoutExecutor();
+    }
+
+    @Test
+    void shouldMergeBothSourcesPreferringGeocoderCoordinates() {
+        when(geocodingService.suggestAddressesAsync(anyString(), anyInt())).thenReturn(CompletableFuture.completedFuture(List.of(
+                new GeocodingService.AddressSuggestion("Оренбург, ул. Ленина, 5", 51.77, 55.1)
+        )));
+        when(addressDictionaryService.suggest(anyString(), anyInt())).thenReturn(List.of(
+                AddressDictionaryEntry.builder().address("оренбург, ул. ленина, 5").build(),
+                AddressDictionaryEntry.builder().address("Оренбург, ул. Ленина, 7").build()
+        ));
+
+        List<AddressSuggestionResponse> result = service.suggest("Ленина", 5);
+
+        assertEquals(2, result.size());
+        assertEquals("Оренбург, ул. Ленина, 5", result.get(0).getAddress());
+        assertEquals(51.77, result.get(0).getLat());
+        assertEquals("Оренбург, ул. Ленина, 7", result.get(1).getAddress());
+        assertEquals(1.0, meterRegistry.counter("address.suggestions.requests", "source", "both").count());
+    }
+
+    @Test
+    void slowGeocoderShouldBeAbandonedAtDeadlineWithoutCancellingTheLoad() {
+        ReflectionTestUtils.setField(service, "deadlineMs", 1000L);
+        CompletableFuture<List<GeocodingService.AddressSuggestion>> load = new CompletableFuture<>();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch historyAnswered = new CountDownLatch(1);
+        when(geocodingService.suggestAddressesAsync(anyString(), anyInt())).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            return load;
+        });
+        when(addressDictionaryService.suggest(anyString(), anyInt())).thenAnswer(invocation -> {
+            historyAnswered.countDown();
+            return List.of(AddressDictionaryEntry.builder().address("Оренбург, ул. Ленина, 7").build());
+        });
+
+        List<AddressSuggestionResponse> result = service.suggest("Ленина", 5);
+        // Геокодер отвечает уже после дедлайна: ответ достаётся кэшу, а не этому запросу.
+        load.complete(List.of(new GeocodingService.AddressSuggestion("Оренбург, ул. Ленина, 5", 51.77, 55.1)));
+
+        assertEquals(0, loadStarted.getCount());
+        assertEquals(0, historyAnswered.getCount());
+        assertEquals(List.of("Оренбург, ул. Ленина, 7"), result.stream().map(AddressSuggestionResponse::getAddress).toList());
+        assertFalse(load.isCancelled());
+        assertEquals(1.0, meterRegistry.counter("address.suggestions.requests", "source", "history").count());
+        assertEquals(1.0, meterRegistry.counter(
+                "address.suggestions.source.failures", "source", "geocoder", "reason", "timeout").count());
+        assertEquals(0.0, meterRegistry.counter(
+                "address.suggestions.source.failures", "source", "geocoder", "reason", "error").count());
+    }
+
+    @Test
+    void geocoderErrorShouldFallBackToHistory() {
+        when(geocodingService.suggestAddressesAsync(anyString(), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Сервис геокодинга временно недоступен")));
+        when(addressDictionaryService.suggest(anyString(), anyInt())).thenReturn(List.of(
+                AddressDictionaryEntry.builder().address("Оренбург, ул. Ленина, 7").lat(51.7).lng(55.1).build()
+        ));
+
+        List<AddressSuggestionResponse> result = service.suggest("Ленина", 5);
+
+        assertEquals(1, result.size());
+        assertEquals(55.1, result.get(0).getLng());
+        assertEquals(1.0, meterRegistry.counter(
+                "address.suggestions.source.failures", "source", "geocoder", "reason", "error").count());
+    }
+
+    @Test
+    void shortQueryShouldNotQuerySources() {
+        assertEquals(List.of(), service.suggest(" ab ", 5));
+        assertEquals(0, meterRegistry.getMeters().size());
+    }
+}
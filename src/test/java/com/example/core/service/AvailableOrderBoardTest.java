@@ -0,0 +1,156 @@
+package com.example.core.service;
+
+import com.example.core.dto.AvailableOrderEvent;
+import com.example.core.mapper.EntityDtoMapper;
+import com.example.core.model.Order;
+import com.example.core.model.OrderStatus;
+import com.example.core.model.User;
+import com.example.core.repository.OrderRepository;
+import com.example.core.repository.PaymentRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AvailableOrderBoardTest {
+
+    private final OffsetDateTime base = OffsetDateTime.now()
+            .plusDays(1)
+            .withHour(8)
+            .withMinute(0)
+            .withSecond(0)
+            .withNano(0);
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final PublishedOrderIndexService index = mock(PublishedOrderIndexService.class);
+    private final AvailableOrderFeed feed = new AvailableOrderFeed();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Map<Long, Order> database = new TreeMap<>();
+    private final List<List<Long>> loadedIds = new ArrayList<>();
+    private AvailableOrderBoard board;
+
+    @BeforeEach
+    void setUp() {
+        board = new AvailableOrderBoard(
+                index,
+                feed,
+                orderRepository,
+                new EntityDtoMapper(mock(PaymentRepository.class)),
+                objectMapper
+        );
+        when(orderRepository.findWithDetailsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            loadedIds.add(List.copyOf(ids));
+            return ids.stream().map(database::get).filter(order -> order != null).toList();
+        });
+    }
+
+    @Test
+    void allCouriersShouldShareOneSerializedPageUntilTheBoardChanges() throws IOException {
+        publish(published(1L, base.plusMinutes(20)), published(2L, base), published(3L, base.plusMinutes(10)));
+
+        AvailableOrderBoard.Page first = board.page(null, 2);
+        AvailableOrderBoard.Page again = board.page(null, 2);
+
+        assertSame(first.body(), again.body());
+        assertEquals(first.etag(), again.etag());
+        JsonNode firstPage = objectMapper.readTree(first.body());
+        assertEquals(List.of(2L, 3L), ids(firstPage));
+        assertTrue(firstPage.path("content").get(0).path("isAvailable").asBoolean());
+
+        JsonNode secondPage = objectMapper.readTree(board.page(firstPage.path("nextCursor").asText(), 2).body());
+        assertEquals(List.of(1L), ids(secondPage));
+        assertTrue(secondPage.path("last").asBoolean());
+        verify(orderRepository, times(1)).findWithDetailsByIdIn(anyCollection());
+    }
+
+    @Test
+    void changedBoardShouldReloadOnlyNewOrdersAndGetNewEtag() throws IOException {
+        publish(published(1L, base), published(2L, base.plusMinutes(10)));
+        AvailableOrderBoard.Page before = board.page(null, 50);
+
+        Order claimed = database.remove(1L);
+        claimed.setStatus(OrderStatus.ACCEPTED);
+        claimed.setCourier(User.builder().id(500L).build());
+        feed.append(AvailableOrderFeed.EventType.CLAIMED, AvailableOrderEvent.builder().orderId(1L).build());
+        Order added = published(3L, base.plusMinutes(5));
+        publish(added, database.get(2L));
+
+        AvailableOrderBoard.Page after = board.page(null, 50);
+
+        assertNotEquals(before.etag(), after.etag());
+        assertEquals(List.of(3L, 2L), ids(objectMapper.readTree(after.body())));
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L)), loadedIds);
+    }
+
+    @Test
+    void invalidCursorShouldBeRejected() {
+        publish(published(1L, base));
+
+        assertThrows(IllegalArgumentException.class, () -> board.page("not-a-cursor", 10));
+    }
+
+    /**
+     * Кладёт заказы в «БД», пишет событие в журнал и подставляет снимок индекса с этим набором.
+     */
+    private void publish(Order... orders) {
+        for (Order order : orders) {
+            database.put(order.getId(), order);
+            feed.append(AvailableOrderFeed.EventType.PUBLISHED, source(order));
+        }
+        List<AvailableOrderEvent> sources = database.values().stream()
+                .sorted((left, right) -> left.getPickupTime().compareTo(right.getPickupTime()))
+                .map(this::source)
+                .toList();
+        when(index.snapshotAvailable()).thenReturn(
+                new PublishedOrderIndexService.AvailableSnapshot(feed.lastSequence(), sources)
+        );
+    }
+
+    private AvailableOrderEvent source(Order order) {
+        return AvailableOrderEvent.builder()
+                .orderId(order.getId())
+                .address(order.getAddress())
+                .pickupTime(order.getPickupTime())
+                .lat(order.getLat())
+                .lng(order.getLng())
+                .build();
+    }
+
+    private Order published(Long id, OffsetDateTime pickupTime) {
+        return Order.builder()
+                .id(id)
+                .client(User.builder().id(100L + id).name("Client " + id).build())
+                .address("Оренбург, ул. Тестовая, " + id)
+                .lat(51.82)
+                .lng(55.17)
+                .pickupTime(pickupTime)
+                .status(OrderStatus.PUBLISHED)
+                .build();
+    }
+
+    private static List<Long> ids(JsonNode page) {
+        List<Long> ids = new ArrayList<>();
+        page.path("content").forEach(card -> ids.add(card.path("id").asLong()));
+        return ids;
+    }
+}
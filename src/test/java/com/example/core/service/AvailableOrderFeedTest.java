@@ -0,0 +1,82 @@
+package com.example.core.service;
+
+import com.example.core.dto.AvailableOrderEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvailableOrderFeedTest {
+
+    @Test
+    void resumeShouldReplayMissedEventsWhileTheyAreRetained() throws InterruptedException {
+        AvailableOrderFeed feed = feed(3);
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            feed.append(AvailableOrderFeed.EventType.PUBLISHED, event(orderId));
+        }
+
+        long resumeAfter = feed.parseEventId(feed.eventId(3));
+        AvailableOrderFeed.Replay replay = feed.awaitAfter(resumeAfter, Duration.ZERO);
+
+        assertFalse(replay.snapshotRequired());
+        assertEquals(List.of(4L, 5L), replay.events().stream().map(AvailableOrderFeed.Event::sequence).toList());
+        assertEquals(List.of(4L, 5L), replay.events().stream().map(event -> event.payload().getOrderId()).toList());
+        assertTrue(feed.awaitAfter(5, Duration.ZERO).events().isEmpty());
+    }
+
+    @Test
+    void evictedOrForeignEventIdsShouldRequireSnapshot() throws InterruptedException {
+        AvailableOrderFeed feed = feed(3);
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            feed.append(AvailableOrderFeed.EventType.PUBLISHED, event(orderId));
+        }
+
+        // В буфере остались 3..5: продолжить после 2 можно, после 1 — нет, событие 2 вытеснено.
+        assertFalse(feed.awaitAfter(2, Duration.ZERO).snapshotRequired());
+        assertTrue(feed.awaitAfter(1, Duration.ZERO).snapshotRequired());
+        assertTrue(feed.awaitAfter(9, Duration.ZERO).snapshotRequired());
+        assertEquals(-1, feed.parseEventId("previous-epoch-4"));
+        assertEquals(-1, feed.parseEventId("garbage"));
+        assertEquals(-1, feed.parseEventId(null));
+    }
+
+    @Test
+    void waitingSubscriberShouldWakeUpOnAppend() throws Exception {
+        AvailableOrderFeed feed = feed(10);
+        CompletableFuture<AvailableOrderFeed.Replay> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return feed.awaitAfter(0, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Thread.sleep(50);
+        feed.append(AvailableOrderFeed.EventType.CLAIMED, AvailableOrderEvent.builder().orderId(7L).build());
+
+        AvailableOrderFeed.Replay replay = waiting.get(2, TimeUnit.SECONDS);
+        assertEquals(1, replay.events().size());
+        assertEquals(AvailableOrderFeed.EventType.CLAIMED, replay.events().get(0).type());
+        assertEquals("order-claimed", replay.events().get(0).type().eventName());
+    }
+
+    private AvailableOrderFeed feed(int historySize) {
+        AvailableOrderFeed feed = new AvailableOrderFeed();
+        ReflectionTestUtils.setField(feed, "historySize", historySize);
+        return feed;
+    }
+
+    private AvailableOrderEvent event(long orderId) {
+        return AvailableOrderEvent.builder()
+                .orderId(orderId)
+                .address("Оренбург, улица Ленина, " + orderId)
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.core.service;
+
+import com.example.core.model.GeocodeCacheEntry;
+import com.example.core.model.ServiceZone;
+import com.example.core.repository.GeocodeCacheRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GeocodingCacheServiceTest {
+
+    private static final TypeReference<ServiceZone.Coordinate> COORDINATE_TYPE = new TypeReference<>() {
+    };
+
+    private final GeocodeCacheRepository repository = mock(GeocodeCacheRepository.class);
+    private final GeocodingCacheService cache = new GeocodingCacheService(
+            repository,
+            new ObjectMapper(),
+            new SimpleMeterRegistry()
+    );
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdownRefreshExecutor();
+    }
+
+    @Test
+    void normalizeKeyShouldIgnoreCasePunctuationAndSpacing() {
+        assertEquals(
+                GeocodingCacheService.normalizeKey("Оренбург, ул. Ленина, 5"),
+                GeocodingCacheService.normalizeKey("  оренбург ул  ЛЕНИНА 5. ")
+        );
+        assertEquals("орел ул победы 1", GeocodingCacheService.normalizeKey("Орёл, ул. Победы, 1"));
+    }
+
+    @Test
+    void repeatedLookupsShouldHitProviderOnceIncludingNotFound() {
+        AtomicInteger providerCalls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Optional<ServiceZone.Coordinate> found = cache.get("coordinates:ленина 5", COORDINATE_TYPE, () -> {
+                providerCalls.incrementAndGet();
+                return Optional.of(new ServiceZone.Coordinate(51.76, 55.10));
+            });
+            assertEquals(51.76, found.orElseThrow().getLat());
+
+            Optional<ServiceZone.Coordinate> missing = cache.get("coordinates:нет такого", COORDINATE_TYPE, () -> {
+                providerCalls.incrementAndGet();
+                return Optional.empty();
+            });
+            assertTrue(missing.isEmpty());
+        }
+
+        assertEquals(2, providerCalls.get());
+        verify(repository).upsert(eq("coordinates:ленина 5"), anyString(), eq(true), any(), any(), any());
+        verify(repository).upsert(eq("coordinates:нет такого"), isNull(), eq(false), any(), any(), any());
+    }
+
+    @Test
+    void sharedTierShouldServeOtherNodesAndRefreshAheadInBackground() {
+        OffsetDateTime now = OffsetDateTime.now();
+        when(repository.findByCacheKeyAndExpiresAtAfter(eq("coordinates:ленина 5"), any()))
+                .thenReturn(Optional.of(GeocodeCacheEntry.builder()
+                        .cacheKey("coordinates:ленина 5")
+                        .payload("{\"lat\":51.76,\"lng\":55.1}")
+                        .found(true)
+                        .refreshAt(now.minusMinutes(1))
+                        .expiresAt(now.plusHours(1))
+                        .updatedAt(now.minusDays(20))
+                        .build()));
+        AtomicInteger providerCalls = new AtomicInteger();
+
+        Optional<ServiceZone.Coordinate> cached = cache.get("coordinates:ленина 5", COORDINATE_TYPE, () -> {
+            providerCalls.incrementAndGet();
+            return Optional.of(new ServiceZone.Coordinate(51.77, 55.11));
+        });
+
+        assertEquals(51.76, cached.orElseThrow().getLat());
+        verify(repository, timeout(2000)).upsert(eq("coordinates:ленина 5"), anyString(), anyBoolean(), any(), any(), any());
+        assertEquals(1, providerCalls.get());
+        verify(repository, times(1)).findByCacheKeyAndExpiresAtAfter(eq("coordinates:ленина 5"), any());
+    }
+}
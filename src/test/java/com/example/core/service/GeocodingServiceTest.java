@@ -0,0 +1,310 @@
+package com.example.core.service;
+
+import com.example.core.integration.CircuitBreaker;
+import com.example.core.integration.IntegrationClient;
+import com.example.core.model.AddressDictionaryEntry;
+import com.example.core.model.ServiceZone;
+import com.example.core.repository.GeocodeCacheRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GeocodingServiceTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GeocodingCacheService cacheService = new GeocodingCacheService(
+            mock(GeocodeCacheRepository.class),
+            objectMapper,
+            new SimpleMeterRegistry()
+    );
+    private final IntegrationClient geocoderClient = new IntegrationClient(
+            "geocoder",
+            restTemplate,
+            new IntegrationClient.Settings(4, 16, 0, 50L, 5000L),
+            new SimpleMeterRegistry()
+    );
+    private final AddressDictionaryService addressDictionaryService = mock(AddressDictionaryService.class);
+    private final AddressGazetteer addressGazetteer = mock(AddressGazetteer.class);
+    private final GeocodingService service = new GeocodingService(
+            geocoderClient,
+            objectMapper,
+            cacheService,
+            addressDictionaryService,
+            addressGazetteer
+    );
+
+    GeocodingServiceTest() {
+        ReflectionTestUtils.setField(service, "yandexApiKey", "test-key");
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheService.shutdownRefreshExecutor();
+        geocoderClient.shutdown();
+    }
+
+    @Test
+    void suggestAddressesShouldAnswerLongerQueryFromCompletePrefixResult() {
+        when(restTemplate.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok(geocoderResponse(
+                        "Россия, Оренбург, улица Ленина, 1",
+                        "Россия, Оренбург, улица Ленина, 12",
+                        "Россия, Оренбург, улица Ленина, 15"
+                )));
+
+        List<GeocodingService.AddressSuggestion> first = service.suggestAddresses("Ленина 1", 5);
+        List<GeocodingService.AddressSuggestion> refined = service.suggestAddresses("ленина, 12", 5);
+
+        assertEquals(3, first.size());
+        assertEquals(List.of("Россия, Оренбург, улица Ленина, 12"),
+                refined.stream().map(GeocodingService.AddressSuggestion::address).toList());
+        verify(restTemplate, times(1)).exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void suggestAddressesShouldAskProviderWhenPrefixResultHasNoMatch() {
+        when(restTemplate.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok(geocoderResponse()))
+                .thenReturn(ResponseEntity.ok(geocoderResponse("Россия, Оренбург, Садовая улица, 3")))
+                .thenReturn(ResponseEntity.ok(geocoderResponse("Россия, Оренбург, Садовая улица, 10")));
+
+        // Геокодер не ищет по префиксу: пустой ответ на «Садов» ничего не говорит о «Садовая».
+        List<GeocodingService.AddressSuggestion> empty = service.suggestAddresses("Садов", 5);
+        List<GeocodingService.AddressSuggestion> street = service.suggestAddresses("Садовая", 5);
+        // Полный ответ на «Садовая» не содержит дома 10 — это не повод отвечать пустым списком.
+        List<GeocodingService.AddressSuggestion> house = service.suggestAddresses("Садовая 10", 5);
+
+        assertTrue(empty.isEmpty());
+        assertEquals(List.of("Россия, Оренбург, Садовая улица, 3"),
+                street.stream().map(GeocodingService.AddressSuggestion::address).toList());
+        assertEquals(List.of("Россия, Оренбург, Садовая улица, 10"),
+                house.stream().map(GeocodingService.AddressSuggestion::address).toList());
+        verify(restTemplate, times(3)).exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void concurrentIdenticalSuggestionQueriesShouldShareOneProviderCall() throws Exception {
+        CountDownLatch providerCalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    providerCalled.countDown();
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                    return ResponseEntity.ok(geocoderResponse("Россия, Оренбург, Салмышская улица, 5"));
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<GeocodingService.AddressSuggestion>> leader =
+                    executor.submit(() -> service.suggestAddresses("Салмышская 5", 5));
+            assertTrue(providerCalled.await(5, TimeUnit.SECONDS));
+
+            AtomicReference<Thread> follower = new AtomicReference<>();
+            Future<List<GeocodingService.AddressSuggestion>> waiting = executor.submit(() -> {
+                follower.set(Thread.currentThread());
+                return service.suggestAddresses("салмышская, 5", 5);
+            });
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((follower.get() == null || follower.get().getState() != Thread.State.WAITING)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals(1, leader.get(5, TimeUnit.SECONDS).size());
+            assertEquals(leader.get(), waiting.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(restTemplate, times(1)).exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void abandonedSuggestionLoadShouldFinishAndBeReused() throws Exception {
+        CountDownLatch providerCalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    providerCalled.countDown();
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                    return ResponseEntity.ok(geocoderResponse("Россия, Оренбург, Салмышская улица, 5"));
+                });
+
+        CompletableFuture<List<GeocodingService.AddressSuggestion>> abandoned =
+                service.suggestAddressesAsync("Салмышская 5", 5);
+        assertTrue(providerCalled.await(5, TimeUnit.SECONDS));
+        // Так поступает вызывающий, у которого истёк дедлайн.
+        abandoned.cancel(true);
+        release.countDown();
+
+        List<GeocodingService.AddressSuggestion> next =
+                service.suggestAddressesAsync("салмышская, 5", 5).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("Россия, Оренбург, Салмышская улица, 5"),
+                next.stream().map(GeocodingService.AddressSuggestion::address).toList());
+        assertEquals(1, service.suggestAddresses("Салмышская 5", 5).size());
+        verify(restTemplate, times(1)).exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void openCircuitShouldFailFastAndFallBackToAddressDictionary() {
+        IntegrationClient guardedClient = new IntegrationClient(
+                "geocoder",
+                restTemplate,
+                new IntegrationClient.Settings(4, 16, 0, 50L, 5000L),
+                new CircuitBreaker.Settings(true, 4, 2, 0.5, 60000L, 1),
+                new SimpleMeterRegistry()
+        );
+        GeocodingService guarded = new GeocodingService(
+                guardedClient,
+                objectMapper,
+                cacheService,
+                addressDictionaryService,
+                addressGazetteer
+        );
+        ReflectionTestUtils.setField(guarded, "yandexApiKey", "test-key");
+        when(restTemplate.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new ResourceAccessException("connect timed out"));
+        when(addressDictionaryService.findByAddress("Оренбург, ул. Ленина, 5")).thenReturn(Optional.of(
+                AddressDictionaryEntry.builder().address("Оренбург, ул. Ленина, 5").lat(51.77).lng(55.1).build()
+        ));
+
+        try {
+            assertThrows(IllegalStateException.class, () -> guarded.getCoordinates("Оренбург, ул. Пушкина, 1"));
+            assertThrows(IllegalStateException.class, () -> guarded.getCoordinates("Оренбург, ул. Пушкина, 2"));
+            assertEquals(CircuitBreaker.State.OPEN, guardedClient.getCircuitState());
+
+            ServiceZone.Coordinate coordinate = guarded.getCoordinates("Оренбург, ул. Ленина, 5");
+
+            assertEquals(51.77, coordinate.getLat());
+            assertEquals(55.1, coordinate.getLng());
+            verify(restTemplate, times(2)).exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        } finally {
+            guardedClient.shutdown();
+        }
+    }
+
+    @Test
+    void batchShouldGeocodeEachDistinctAddressOnceWithBoundedConcurrency() {
+        ReflectionTestUtils.setField(service, "batchMaxInFlight", 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(restTemplate.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                    return ResponseEntity.ok(geocoderResponse("Россия, Оренбург"));
+                });
+
+        Map<String, ServiceZone.Coordinate> coordinates = service.getCoordinatesAll(List.of(
+                "Оренбург, ул. Ленина, 1",
+                "оренбург ул ленина 1",
+                "Оренбург, ул. Ленина, 2",
+                "Оренбург, ул. Ленина, 3",
+                "Оренбург, ул. Ленина, 4",
+                "Оренбург, ул. Ленина, 1"
+        ));
+
+        assertEquals(4, coordinates.size());
+        assertEquals(51.70, coordinates.get("оренбург ул ленина 1").getLat());
+        assertTrue(maxRunning.get() <= 2, "Одновременных запросов: " + maxRunning.get());
+        verify(restTemplate, times(4)).exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+
+        service.getCoordinatesAll(List.of("Оренбург, ул. Ленина, 2"));
+        verify(restTemplate, times(4)).exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void batchShouldFailWholeWhenProviderIsDownAndAddressesAreUnknown() {
+        when(restTemplate.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new ResourceAccessException("connect timed out"));
+        when(addressDictionaryService.findByAddress("Оренбург, ул. Ленина, 5")).thenReturn(Optional.of(
+                AddressDictionaryEntry.builder().address("Оренбург, ул. Ленина, 5").lat(51.77).lng(55.1).build()
+        ));
+
+        Map<String, ServiceZone.Coordinate> known = service.getCoordinatesAll(List.of("Оренбург, ул. Ленина, 5"));
+
+        assertEquals(51.77, known.get("оренбург ул ленина 5").getLat());
+        assertThrows(IllegalStateException.class, () -> service.getCoordinatesAll(List.of(
+                "Оренбург, ул. Ленина, 5",
+                "Оренбург, ул. Пушкина, 1"
+        )));
+    }
+
+    @Test
+    void batchShouldRejectTooManyAddressesWithoutCallingGeocoder() {
+        ReflectionTestUtils.setField(service, "batchMaxAddresses", 2);
+
+        assertThrows(IllegalArgumentException.class, () -> service.getCoordinatesAll(List.of(
+                "Оренбург, ул. Ленина, 1",
+                "Оренбург, ул. Ленина, 2",
+                "Оренбург, ул. Ленина, 3"
+        )));
+        verify(restTemplate, never()).exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void gazetteerProviderShouldAnswerWithoutCallingGeocoder() {
+        ReflectionTestUtils.setField(service, "provider", "gazetteer");
+        when(addressGazetteer.findCoordinates("ул. Ленина, 5"))
+                .thenReturn(Optional.of(new ServiceZone.Coordinate(51.77, 55.1)));
+        when(addressGazetteer.suggest("Ленина", 5)).thenReturn(List.of(
+                new GeocodingService.AddressSuggestion("Оренбург, улица Ленина, 5", 51.77, 55.1)
+        ));
+
+        ServiceZone.Coordinate coordinate = service.getCoordinates("ул. Ленина, 5");
+        List<GeocodingService.AddressSuggestion> suggestions = service.suggestAddresses("Ленина", 5);
+
+        assertEquals(51.77, coordinate.getLat());
+        assertEquals(1, suggestions.size());
+        assertThrows(IllegalArgumentException.class, () -> service.getCoordinates("ул. Пушкина, 1"));
+        verify(restTemplate, never()).exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    private String geocoderResponse(String... addresses) {
+        StringBuilder members = new StringBuilder();
+        for (int i = 0; i < addresses.length; i++) {
+            if (i > 0) {
+                members.append(',');
+            }
+            members.append("""
+                    {"GeoObject":{"name":"%s","Point":{"pos":"55.1%d 51.7%d"},
+                    "metaDataProperty":{"GeocoderMetaData":{"text":"%s"}}}}
+                    """.formatted(addresses[i], i, i, addresses[i]));
+        }
+        return "{\"response\":{\"GeoObjectCollection\":{\"featureMember\":[" + members + "]}}}";
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.core.service;
+
+import com.example.core.model.OrderStatus;
+import com.example.core.model.ServiceZone;
+import com.example.core.model.Subscription;
+import com.example.core.model.SubscriptionPlan;
+import com.example.core.model.SubscriptionStatus;
+import com.example.core.model.User;
+import com.example.core.model.UserRole;
+import com.example.core.repository.ServiceZoneRepository;
+import com.example.core.repository.SubscriptionRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.core.service.OrderServiceFixture.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Массовое создание заказов: ошибки строк не валят пакет, лимит подписки считается по всему пакету,
+ * а вставки идут JDBC-пакетами — число подготовленных SQL-запросов не растёт с числом строк.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OrderService.class)
+class OrderBulkCreateTest extends OrderServiceJpaTestSupport {
+
+    private static final int PLAIN_ROWS = 300;
+    private static final int MAX_STATEMENTS = 30;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @BeforeEach
+    void setUp() {
+        ServiceZoneRepository zoneRepository = mock(ServiceZoneRepository.class);
+        when(zoneRepository.findByActiveTrue()).thenReturn(List.of(ServiceZone.builder()
+                .id(1L)
+                .name("Оренбург")
+                .coordinates(List.of(
+                        new ServiceZone.Coordinate(51.70, 55.00),
+                        new ServiceZone.Coordinate(51.90, 55.00),
+                        new ServiceZone.Coordinate(51.90, 55.30),
+                        new ServiceZone.Coordinate(51.70, 55.30),
+                        new ServiceZone.Coordinate(51.70, 55.00)
+                ))
+                .build()));
+        ServiceZoneIndex zones = new ActiveServiceZoneCache(zoneRepository, mock(StringRedisTemplate.class)).getZoneIndex();
+        when(activeServiceZoneCache.getZoneIndex()).thenReturn(zones);
+    }
+
+    @Test
+    void bulkCreateShouldReportRowErrorsAndInsertInBatches() {
+        User client = userRepository.save(user("+79993000000", "ООО Чистый двор", UserRole.CLIENT));
+        Subscription subscription = subscriptionRepository.saveAndFlush(Subscription.builder()
+                .user(client)
+                .plan(SubscriptionPlan.MONTHLY)
+                .startDate(LocalDate.now())
+                .endDate(LocalDate.now().plusDays(30))
+                .price(BigDecimal.valueOf(999))
+                .status(SubscriptionStatus.ACTIVE)
+                .totalAllowedOrders(3)
+                .usedOrders(1)
+                .build());
+
+        OffsetDateTime morning = ZonedDateTime.now().plusDays(1)
+                .withHour(9).withMinute(0).withSecond(0).withNano(0)
+                .toOffsetDateTime();
+        List<OrderService.OrderDraft> drafts = new ArrayList<>();
+        for (int i = 0; i < PLAIN_ROWS; i++) {
+            drafts.add(draft("Оренбург, улица Ленина, " + (i + 1), morning.plusMinutes(i % 120), 51.77, 55.10, null));
+        }
+        int outsideZone = drafts.size();
+        drafts.add(draft("Самара, улица Ленина, 1", morning, 53.20, 50.15, null));
+        int wrongSlot = drafts.size();
+        drafts.add(draft("Оренбург, улица Ленина, 1", morning.withHour(23), 51.77, 55.10, null));
+        int firstBySubscription = drafts.size();
+        for (int i = 0; i < 3; i++) {
+            drafts.add(draft("Оренбург, проспект Победы, " + (i + 1), morning, 51.78, 55.15, subscription.getId()));
+        }
+        int blankAddress = drafts.size();
+        drafts.add(draft(" ", morning, 51.77, 55.10, null));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        OrderService.BulkCreation creation = orderService.createOrders(client, drafts);
+
+        int expectedCreated = PLAIN_ROWS + 2;
+        assertEquals(drafts.size(), creation.rows().size());
+        assertEquals(expectedCreated, creation.created().size());
+        assertEquals(expectedCreated, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() < MAX_STATEMENTS,
+                "Подготовлено запросов: " + statistics.getPrepareStatementCount());
+
+        assertTrue(creation.rows().get(outsideZone).error().startsWith("Этот адрес вне зоны обслуживания"));
+        assertTrue(creation.rows().get(wrongSlot).error().startsWith("Выбранное время не входит в доступные слоты"));
+        assertNull(creation.rows().get(firstBySubscription + 1).error());
+        assertEquals("Лимит вывозов по подписке исчерпан", creation.rows().get(firstBySubscription + 2).error());
+        assertEquals("Адрес обязателен", creation.rows().get(blankAddress).error());
+        assertEquals(firstBySubscription + 2, creation.rows().get(firstBySubscription + 2).index());
+
+        assertEquals(expectedCreated, orderRepository.countByStatus(OrderStatus.PUBLISHED));
+        assertEquals(3, subscriptionRepository.findById(subscription.getId()).orElseThrow().getUsedOrders());
+        verify(auditService).logAll(
+                eq("ORDER_CREATE"),
+                eq("SUCCESS"),
+                eq(client),
+                eq("ORDER_ID"),
+                argThat(ids -> ids.size() == expectedCreated),
+                any()
+        );
+        verify(publishedOrderIndexService).onOrdersChanged(argThat(orders -> orders.size() == expectedCreated));
+    }
+
+    private static OrderService.OrderDraft draft(
+            String address,
+            OffsetDateTime pickupTime,
+            double lat,
+            double lng,
+            Long subscriptionId
+    ) {
+        return new OrderService.OrderDraft(address, pickupTime, null, lat, lng, subscriptionId);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.core.service;
+
+import com.example.core.dto.OrderClusteringOptions;
+import com.example.core.model.Order;
+import com.example.core.model.OrderStatus;
+import com.example.core.model.User;
+import com.example.core.model.UserRole;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.core.service.OrderServiceFixture.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Нагрузочная проверка принятия заказа: все курьеры одновременно пытаются взять одни и те же свежие заказы.
+ * Каждый заказ достаётся ровно одному, остальные получают отказ, не дожидаясь коммита победителя.
+ * Пропускная способность и ожидание проигравших публикуются в отчёт теста.
+ * Принятие кластера проверяется на число SQL-запросов: оно не должно расти с размером кластера.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orderclaim;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OrderService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderClaimConcurrencyTest extends OrderServiceJpaTestSupport {
+
+    private static final int COURIERS = 16;
+    private static final int ORDERS = 40;
+    private static final long WINNER_HOLD_MS = 50;
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCouriersShouldClaimEachOrderExactlyOnce(TestReporter reporter) throws Exception {
+        // Аудит пишется в транзакции победителя после блокировки строки: пауза в нём удерживает
+        // блокировку заметно дольше, чем проигравшему нужно на отказ, если он не встаёт в очередь.
+        doAnswer(invocation -> {
+            Thread.sleep(WINNER_HOLD_MS);
+            return null;
+        }).when(auditService).log(any(), any(), any(User.class), any(), any(), any(), any());
+
+        User client = userRepository.save(user("+79991000000", "Client", UserRole.CLIENT));
+        List<User> couriers = new ArrayList<>();
+        for (int i = 1; i <= COURIERS; i++) {
+            couriers.add(userRepository.save(user(String.format("+7999100%04d", i), "Courier " + i, UserRole.COURIER)));
+        }
+        List<Long> orderIds = new ArrayList<>();
+        OffsetDateTime pickup = OffsetDateTime.now().plusDays(1);
+        for (int i = 0; i < ORDERS; i++) {
+            orderIds.add(orderRepository.save(Order.builder()
+                    .client(client)
+                    .address("Оренбург, улица Ленина, " + (i + 1))
+                    .pickupTime(pickup.plusMinutes(i))
+                    .lat(51.77)
+                    .lng(55.10)
+                    .build()).getId());
+        }
+
+        Map<Long, Long> winnerByOrder = new ConcurrentHashMap<>();
+        AtomicInteger doubleClaims = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        LongAdder winnerNanos = new LongAdder();
+        LongAdder loserNanos = new LongAdder();
+        AtomicLong maxLoserNanos = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(COURIERS);
+        long startedAt;
+        long finishedAt;
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (User courier : couriers) {
+                runs.add(executor.submit(() -> {
+                    start.await();
+                    for (Long orderId : orderIds) {
+                        long attemptStart = System.nanoTime();
+                        try {
+                            orderService.acceptOrder(orderId, courier);
+                            winnerNanos.add(System.nanoTime() - attemptStart);
+                            if (winnerByOrder.putIfAbsent(orderId, courier.getId()) != null) {
+                                doubleClaims.incrementAndGet();
+                            }
+                        } catch (IllegalStateException e) {
+                            long waited = System.nanoTime() - attemptStart;
+                            loserNanos.add(waited);
+                            maxLoserNanos.accumulateAndGet(waited, Math::max);
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            startedAt = System.nanoTime();
+            start.countDown();
+            for (Future<?> run : runs) {
+                run.get(60, TimeUnit.SECONDS);
+            }
+            finishedAt = System.nanoTime();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int attempts = COURIERS * ORDERS;
+        assertEquals(0, doubleClaims.get());
+        assertEquals(ORDERS, winnerByOrder.size());
+        assertEquals(attempts - ORDERS, conflicts.get());
+        for (Order order : orderRepository.findAllById(orderIds)) {
+            assertEquals(OrderStatus.ACCEPTED, order.getStatus());
+        }
+        assertEquals(ORDERS, orderRepository.countByStatus(OrderStatus.ACCEPTED));
+
+        double winnerAvgMs = winnerNanos.sum() / 1e6 / ORDERS;
+        double loserAvgMs = loserNanos.sum() / 1e6 / conflicts.get();
+        reporter.publishEntry(Map.of(
+                "attemptsPerSecond", String.format("%.0f", attempts / ((finishedAt - startedAt) / 1e9)),
+                "winnerAvgMs", String.format("%.1f", winnerAvgMs),
+                "loserWaitAvgMs", String.format("%.2f", loserAvgMs),
+                "loserWaitMaxMs", String.format("%.1f", maxLoserNanos.get() / 1e6)
+        ));
+        // Проигравший, вставший в очередь за блокировкой, ждал бы в среднем сравнимо с транзакцией победителя.
+        assertTrue(loserAvgMs * 4 < winnerAvgMs,
+                "Ожидание проигравших " + loserAvgMs + " мс при транзакции победителя " + winnerAvgMs + " мс");
+    }
+
+    @Test
+    void clusterAcceptStatementCountShouldNotGrowWithClusterSize() {
+        long small = clusterAcceptStatements(2, "+7999200");
+        long large = clusterAcceptStatements(20, "+7999201");
+
+        // SELECT ... FOR UPDATE SKIP LOCKED, UPDATE по всем id и чтение карточек — на весь кластер сразу.
+        assertEquals(small, large);
+        assertEquals(22, orderRepository.countByStatus(OrderStatus.ACCEPTED));
+    }
+
+    /**
+     * Принимает кластер из {@code size} свежих заказов и возвращает число подготовленных при этом SQL-запросов.
+     */
+    private long clusterAcceptStatements(int size, String phonePrefix) {
+        User client = userRepository.save(user(phonePrefix + "0000", "Client", UserRole.CLIENT));
+        User courier = userRepository.save(user(phonePrefix + "0001", "Courier", UserRole.COURIER));
+        OffsetDateTime pickup = OffsetDateTime.now().plusDays(1).withHour(8).withMinute(30).withSecond(0).withNano(0);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            orderIds.add(orderRepository.save(Order.builder()
+                    .client(client)
+                    .address("Оренбург, улица Ленина, " + (i + 1))
+                    .pickupTime(pickup.plusMinutes(i))
+                    .lat(51.77 + i * 0.0001)
+                    .lng(55.10)
+                    .build()).getId());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Order> accepted = orderService.acceptClusterByCourier(
+                courier,
+                orderIds,
+                OrderClusteringOptions.builder().radiusMeters(200.0).build()
+        );
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(size, accepted.size());
+        return statements;
+    }
+}
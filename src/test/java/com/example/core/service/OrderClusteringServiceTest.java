@@ -1,12 +1,16 @@
 package com.example.core.service;
 
 import com.example.core.dto.OrderClusterResponse;
+import com.example.core.dto.OrderClusteringOptions;
 import com.example.core.dto.OrderClusteringResponse;
+import com.example.core.model.ClusteringAlgorithm;
 import com.example.core.model.Order;
 import com.example.core.model.Subscription;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -87,4 +91,101 @@ class OrderClusteringServiceTest {
         assertEquals(1, response.getClusters().size());
         assertEquals(1, response.getClusters().get(0).getOrderCount());
     }
+
+    @Test
+    void clusterOrdersShouldLinkChainAcrossGridCellsInBfsOrder() {
+        OffsetDateTime base = OffsetDateTime.now()
+                .plusDays(1)
+                .withHour(13)
+                .withMinute(10)
+                .withSecond(0)
+                .withNano(0);
+
+        // Цепочка с шагом ~40 м: соседние точки попадают в разные ячейки сетки,
+        // но должны оказаться в одном кластере.
+        Order order1 = Order.builder().id(31L).address("A").lat(51.820000).lng(55.170000).pickupTime(base).build();
+        Order order2 = Order.builder().id(32L).address("B").lat(51.820720).lng(55.170000).pickupTime(base).build();
+        Order order3 = Order.builder().id(33L).address("C").lat(51.820360).lng(55.170000).pickupTime(base).build();
+        Order order4 = Order.builder().id(34L).address("D").lat(51.821080).lng(55.170000).pickupTime(base).build();
+        Order isolated = Order.builder().id(35L).address("E").lat(51.830000).lng(55.180000).pickupTime(base).build();
+
+        OrderClusteringResponse response = service.clusterOrders(
+                List.of(order1, order2, order3, order4, isolated),
+                50.0
+        );
+
+        assertEquals(2, response.getClusters().size());
+        OrderClusterResponse chain = response.getClusters().get(0);
+        assertEquals(4, chain.getOrderCount());
+        assertEquals(List.of(31L, 33L, 32L, 34L), chain.getOrderIds());
+        assertEquals(List.of("A", "C", "B", "D"), chain.getAddresses());
+        assertEquals(List.of(35L), response.getClusters().get(1).getOrderIds());
+    }
+
+    @Test
+    void densityClusteringShouldRespectMaxOrdersAndEmitNoiseAsSingletons() {
+        OffsetDateTime base = OffsetDateTime.now()
+                .plusDays(1)
+                .withHour(13)
+                .withMinute(10)
+                .withSecond(0)
+                .withNano(0);
+
+        Order order1 = Order.builder().id(31L).address("A").lat(51.820000).lng(55.170000).pickupTime(base).build();
+        Order order2 = Order.builder().id(32L).address("B").lat(51.820720).lng(55.170000).pickupTime(base).build();
+        Order order3 = Order.builder().id(33L).address("C").lat(51.820360).lng(55.170000).pickupTime(base).build();
+        Order order4 = Order.builder().id(34L).address("D").lat(51.821080).lng(55.170000).pickupTime(base).build();
+        Order isolated = Order.builder().id(35L).address("E").lat(51.830000).lng(55.180000).pickupTime(base).build();
+
+        OrderClusteringResponse response = service.clusterOrders(
+                List.of(order1, order2, order3, order4, isolated),
+                OrderClusteringOptions.builder()
+                        .algorithm(ClusteringAlgorithm.DENSITY)
+                        .radiusMeters(50.0)
+                        .minPoints(2)
+                        .maxOrders(3)
+                        .maxDiameterMeters(100.0)
+                        .build()
+        );
+
+        assertEquals(5, response.getClusteredOrders());
+        assertEquals(3, response.getClusters().size());
+        assertEquals(List.of(31L, 33L, 32L), response.getClusters().get(0).getOrderIds());
+        assertEquals(List.of(34L), response.getClusters().get(1).getOrderIds());
+        assertEquals(List.of(35L), response.getClusters().get(2).getOrderIds());
+    }
+
+    @Test
+    void parallelClusteringShouldMatchSequentialResult() {
+        OffsetDateTime base = OffsetDateTime.now()
+                .plusDays(1)
+                .withHour(8)
+                .withMinute(0)
+                .withSecond(0)
+                .withNano(0);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            OffsetDateTime pickupTime = base.plusDays(i % 3).plusHours((i % 3) * 5L).plusMinutes(i % 50);
+            orders.add(Order.builder()
+                    .id(1000L + i)
+                    .address("Оренбург, ул. Тестовая, " + i)
+                    .lat(51.820000 + (i % 17) * 0.00025)
+                    .lng(55.170000 + (i % 13) * 0.00030)
+                    .pickupTime(pickupTime)
+                    .build());
+        }
+
+        OrderClusteringService sequential = new OrderClusteringService();
+        ReflectionTestUtils.setField(sequential, "parallelEnabled", false);
+        OrderClusteringService parallel = new OrderClusteringService();
+        ReflectionTestUtils.setField(parallel, "parallelMinOrders", 1);
+
+        try {
+            OrderClusteringResponse expected = sequential.clusterOrders(orders, 40.0);
+            OrderClusteringResponse actual = parallel.clusterOrders(orders, 40.0);
+            assertEquals(expected, actual);
+        } finally {
+            parallel.shutdownClusteringPool();
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package com.example.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderKdTreeTest {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    private static final double CENTER_LAT = 51.77;
+    private static final double CENTER_LNG = 55.10;
+
+    @Test
+    void nearestShouldMatchBruteForceOnRandomPoints() {
+        Random random = new Random(20240611L);
+        int n = 3000;
+        long[] ids = new long[n];
+        double[] lats = new double[n];
+        double[] lngs = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = 1000L + i;
+            lats[i] = CENTER_LAT + (random.nextDouble() - 0.5) * 0.4;
+            lngs[i] = CENTER_LNG + (random.nextDouble() - 0.5) * 0.6;
+        }
+        OrderKdTree tree = new OrderKdTree(ids, lats, lngs);
+
+        for (int query = 0; query < 200; query++) {
+            double lat = CENTER_LAT + (random.nextDouble() - 0.5) * 0.5;
+            double lng = CENTER_LNG + (random.nextDouble() - 0.5) * 0.7;
+            for (int k : new int[]{1, 10, 50}) {
+                assertMatchesBruteForce(ids, lats, lngs, tree, lat, lng, k);
+            }
+        }
+    }
+
+    @Test
+    void duplicateCoordinatesShouldBeOrderedById() {
+        Random random = new Random(7L);
+        int n = 500;
+        double[][] spots = new double[20][];
+        for (int i = 0; i < spots.length; i++) {
+            spots[i] = new double[]{
+                    CENTER_LAT + (random.nextDouble() - 0.5) * 0.05,
+                    CENTER_LNG + (random.nextDouble() - 0.5) * 0.05
+            };
+        }
+        List<Long> shuffledIds = new ArrayList<>();
+        for (long id = 1; id <= n; id++) {
+            shuffledIds.add(id);
+        }
+        Collections.shuffle(shuffledIds, random);
+
+        long[] ids = new long[n];
+        double[] lats = new double[n];
+        double[] lngs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double[] spot = spots[i % spots.length];
+            ids[i] = shuffledIds.get(i);
+            lats[i] = spot[0];
+            lngs[i] = spot[1];
+        }
+        OrderKdTree tree = new OrderKdTree(ids, lats, lngs);
+
+        // Запрос точно в одной из точек: первые 25 кандидатов находятся на нулевом расстоянии.
+        for (double[] spot : spots) {
+            List<OrderKdTree.Neighbor> nearest = tree.nearest(spot[0], spot[1], 30);
+            for (int i = 0; i < 25; i++) {
+                assertEquals(0.0, nearest.get(i).distanceMeters(), 1e-6);
+            }
+            assertMatchesBruteForce(ids, lats, lngs, tree, spot[0], spot[1], 30);
+        }
+        assertMatchesBruteForce(ids, lats, lngs, tree, CENTER_LAT, CENTER_LNG, 120);
+    }
+
+    @Test
+    void limitAboveSizeShouldReturnAllPointsSorted() {
+        long[] ids = {5L, 3L, 9L, 1L};
+        double[] lats = {51.79, 51.76, 51.80, 51.76};
+        double[] lngs = {55.12, 55.09, 55.15, 55.09};
+        OrderKdTree tree = new OrderKdTree(ids, lats, lngs);
+
+        List<OrderKdTree.Neighbor> nearest = tree.nearest(CENTER_LAT, CENTER_LNG, 10);
+
+        assertEquals(4, nearest.size());
+        assertEquals(List.of(1L, 3L, 5L, 9L), nearest.stream().map(OrderKdTree.Neighbor::orderId).toList());
+        assertMatchesBruteForce(ids, lats, lngs, tree, CENTER_LAT, CENTER_LNG, 10);
+    }
+
+    @Test
+    void zeroLimitOrEmptyTreeShouldReturnNothing() {
+        OrderKdTree tree = new OrderKdTree(new long[]{1L, 2L}, new double[]{51.7, 51.8}, new double[]{55.1, 55.2});
+        OrderKdTree empty = new OrderKdTree(new long[0], new double[0], new double[0]);
+
+        assertTrue(tree.nearest(CENTER_LAT, CENTER_LNG, 0).isEmpty());
+        assertTrue(tree.nearest(CENTER_LAT, CENTER_LNG, -1).isEmpty());
+        assertTrue(empty.nearest(CENTER_LAT, CENTER_LNG, 5).isEmpty());
+    }
+
+    private void assertMatchesBruteForce(
+            long[] ids,
+            double[] lats,
+            double[] lngs,
+            OrderKdTree tree,
+            double lat,
+            double lng,
+            int k
+    ) {
+        List<OrderKdTree.Neighbor> expected = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            expected.add(new OrderKdTree.Neighbor(ids[i], haversineMeters(lat, lng, lats[i], lngs[i])));
+        }
+        expected.sort(Comparator.comparingDouble(OrderKdTree.Neighbor::distanceMeters)
+                .thenComparingLong(OrderKdTree.Neighbor::orderId));
+        expected = expected.subList(0, Math.min(k, expected.size()));
+
+        List<OrderKdTree.Neighbor> actual = tree.nearest(lat, lng, k);
+
+        String where = "query " + lat + "," + lng + " k=" + k;
+        assertEquals(expected.stream().map(OrderKdTree.Neighbor::orderId).toList(),
+                actual.stream().map(OrderKdTree.Neighbor::orderId).toList(), where);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).distanceMeters(), actual.get(i).distanceMeters(), 1e-3, where);
+        }
+    }
+
+    private static double haversineMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.core.service;
+
+import com.example.core.dto.OrderAdminFilter;
+import com.example.core.dto.OrderResponse;
+import com.example.core.mapper.EntityDtoMapper;
+import com.example.core.model.Order;
+import com.example.core.model.OrderStatus;
+import com.example.core.model.Payment;
+import com.example.core.model.PaymentStatus;
+import com.example.core.model.PaymentType;
+import com.example.core.model.Subscription;
+import com.example.core.model.SubscriptionPlan;
+import com.example.core.model.SubscriptionStatus;
+import com.example.core.model.User;
+import com.example.core.model.UserRole;
+import com.example.core.repository.OrderRepository;
+import com.example.core.repository.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.example.core.service.OrderServiceFixture.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+/**
+ * Число SQL-запросов на списках заказов не зависит от числа строк: заказы с клиентом, курьером и подпиской —
+ * один запрос, цены — второй. Регрессия на N+1 видна здесь как рост счётчика Hibernate.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OrderListQueryCountTest {
+
+    private static final long ORDERS_AND_PRICES = 2;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private final List<User> clients = new ArrayList<>();
+    private final List<User> couriers = new ArrayList<>();
+    private final List<Order> publishedOrders = new ArrayList<>();
+    private OrderServiceFixture fixture;
+    private OrderService orderService;
+    private EntityDtoMapper mapper;
+    private Statistics statistics;
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new OrderServiceFixture(orderRepository);
+        orderService = fixture.service;
+        mapper = new EntityDtoMapper(paymentRepository);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        admin = persistUser("+79990000100", "Admin", UserRole.ADMIN);
+        for (int i = 0; i < 2; i++) {
+            couriers.add(persistUser("+7999000020" + i, "Courier " + i, UserRole.COURIER));
+        }
+        OffsetDateTime pickup = OffsetDateTime.now().plusDays(1);
+        for (int i = 0; i < 3; i++) {
+            User client = persistUser("+7999000030" + i, "Client " + i, UserRole.CLIENT);
+            clients.add(client);
+            Subscription subscription = persistSubscription(client, 51.77 + i * 0.01, 55.10 + i * 0.01);
+
+            // Без своих координат: карточка берёт их из подписки.
+            publishedOrders.add(persistOrder(client, null, subscription, OrderStatus.PUBLISHED, pickup.plusMinutes(i), null));
+            persistOrder(client, couriers.get(i % 2), subscription, OrderStatus.ACCEPTED, pickup.plusHours(1).plusMinutes(i), 51.78);
+            persistOrder(client, couriers.get((i + 1) % 2), null, OrderStatus.ON_THE_WAY, pickup.plusHours(2).plusMinutes(i), 51.79);
+        }
+    }
+
+    @Test
+    void clientOrderListShouldUseFixedNumberOfQueries() {
+        User client = clients.get(0);
+
+        assertEquals(ORDERS_AND_PRICES, statementsFor(() ->
+                mapper.toOrderResponses(orderService.getOrdersPageForClient(client, null, 50).orders())));
+    }
+
+    @Test
+    void courierListsShouldUseFixedNumberOfQueries() {
+        User courier = couriers.get(0);
+
+        assertEquals(ORDERS_AND_PRICES, statementsFor(() ->
+                mapper.toOrderResponses(orderService.getOrdersPageForCourier(courier, null, 50).orders())));
+        assertEquals(ORDERS_AND_PRICES, statementsFor(() ->
+                mapper.toOrderResponses(orderService.getAvailableOrdersPageForCourier(courier, null, 50).orders(), true)));
+        assertEquals(ORDERS_AND_PRICES, statementsFor(() ->
+                mapper.toOrderResponses(orderService.getActiveOrdersPageForCourier(courier, null, 50).orders())));
+    }
+
+    @Test
+    void nearestAvailableOrdersShouldUseFixedNumberOfQueries() {
+        List<OrderKdTree.Neighbor> neighbors = publishedOrders.stream()
+                .map(order -> new OrderKdTree.Neighbor(order.getId(), 100.0))
+                .toList();
+        when(fixture.publishedOrderIndexService.findNearest(anyDouble(), anyDouble(), anyInt())).thenReturn(neighbors);
+
+        assertEquals(ORDERS_AND_PRICES, statementsFor(() -> mapper.toOrderResponses(
+                orderService.getNearestAvailableOrdersForCourier(couriers.get(0), 51.77, 55.10, 10).stream()
+                        .map(OrderService.NearestOrder::order)
+                        .toList(),
+                true
+        )));
+    }
+
+    @Test
+    void adminListsShouldUseFixedNumberOfQueries() {
+        OrderAdminFilter filter = OrderAdminFilter.builder()
+                .statuses(List.of(OrderStatus.PUBLISHED, OrderStatus.ACCEPTED, OrderStatus.ON_THE_WAY))
+                .build();
+
+        assertEquals(ORDERS_AND_PRICES, statementsFor(() ->
+                mapper.toOrderResponses(orderService.getAllOrdersPage(admin, null, 50).orders())));
+        assertEquals(ORDERS_AND_PRICES, statementsFor(() ->
+                mapper.toOrderResponses(orderService.getFilteredOrdersForAdmin(admin, filter, null, 50).orders())));
+    }
+
+    @Test
+    void singleOrderShouldUseFixedNumberOfQueries() {
+        Long orderId = publishedOrders.get(1).getId();
+        User client = clients.get(1);
+
+        assertEquals(ORDERS_AND_PRICES, statementsFor(() ->
+                mapper.toOrderResponse(orderService.getOrderVisibleTo(orderId, client))));
+    }
+
+    private long statementsFor(Supplier<?> endpoint) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        Object response = endpoint.get();
+
+        assertNotNull(response);
+        if (response instanceof List<?> list) {
+            list.forEach(item -> assertNotNull(((OrderResponse) item).getLat()));
+        } else {
+            assertNotNull(((OrderResponse) response).getClientName());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User persistUser(String phone, String name, UserRole role) {
+        User persisted = user(phone, name, role);
+        entityManager.persist(persisted);
+        return persisted;
+    }
+
+    private Subscription persistSubscription(User client, double lat, double lng) {
+        Subscription subscription = Subscription.builder()
+                .user(client)
+                .plan(SubscriptionPlan.MONTHLY)
+                .startDate(LocalDate.now())
+                .endDate(LocalDate.now().plusDays(30))
+                .serviceLat(lat)
+                .serviceLng(lng)
+                .price(BigDecimal.valueOf(999))
+                .status(SubscriptionStatus.ACTIVE)
+                .totalAllowedOrders(15)
+                .build();
+        entityManager.persist(subscription);
+        return subscription;
+    }
+
+    private Order persistOrder(
+            User client,
+            User courier,
+            Subscription subscription,
+            OrderStatus status,
+            OffsetDateTime pickup,
+            Double lat
+    ) {
+        Order order = Order.builder()
+                .client(client)
+                .courier(courier)
+                .subscription(subscription)
+                .address("Оренбург, улица Ленина, " + pickup.getMinute())
+                .pickupTime(pickup)
+                .lat(lat)
+                .lng(lat == null ? null : 55.10)
+                .status(status)
+                .build();
+        entityManager.persist(order);
+        Payment payment = Payment.builder()
+                .order(order)
+                .type(PaymentType.ONE_TIME)
+                .status(PaymentStatus.SUCCEEDED)
+                .amount(BigDecimal.valueOf(300))
+                .build();
+        entityManager.persist(payment);
+        return order;
+    }
+}
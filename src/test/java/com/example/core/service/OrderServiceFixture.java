@@ -0,0 +1,55 @@
+package com.example.core.service;
+
+import com.example.core.model.User;
+import com.example.core.model.UserRole;
+import com.example.core.repository.OrderRepository;
+import com.example.core.repository.SubscriptionRepository;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@link OrderService} на моках всех зависимостей для модульных тестов. Репозиторий заказов можно передать
+ * настоящий, если тест проверяет запросы к БД.
+ */
+final class OrderServiceFixture {
+
+    final OrderRepository orderRepository;
+    final ActiveServiceZoneCache activeServiceZoneCache = mock(ActiveServiceZoneCache.class);
+    final PaymentService paymentService = mock(PaymentService.class);
+    final SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
+    final SubscriptionSchedulingService subscriptionSchedulingService = mock(SubscriptionSchedulingService.class);
+    final AuditService auditService = mock(AuditService.class);
+    final PublishedOrderIndexService publishedOrderIndexService = mock(PublishedOrderIndexService.class);
+    final AddressDictionaryService addressDictionaryService = mock(AddressDictionaryService.class);
+    final OrderService service;
+
+    OrderServiceFixture() {
+        this(mock(OrderRepository.class));
+    }
+
+    OrderServiceFixture(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+        this.service = new OrderService(
+                orderRepository,
+                activeServiceZoneCache,
+                paymentService,
+                subscriptionRepository,
+                subscriptionSchedulingService,
+                auditService,
+                publishedOrderIndexService,
+                addressDictionaryService
+        );
+    }
+
+    /**
+     * Несохранённый пользователь с заданной ролью.
+     */
+    static User user(String phone, String name, UserRole role) {
+        return User.builder()
+                .phone(phone)
+                .name(name)
+                .password("x")
+                .userRole(role)
+                .build();
+    }
+}
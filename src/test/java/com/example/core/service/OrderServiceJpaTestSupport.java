@@ -0,0 +1,44 @@
+package com.example.core.service;
+
+import com.example.core.repository.OrderRepository;
+import com.example.core.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Основа {@code @DataJpaTest} с настоящим {@link OrderService} поверх H2: сервисы, которые не работают
+ * с таблицами заказов, заменены моками. Подкласс импортирует {@link OrderService} и задаёт свойства контекста.
+ */
+abstract class OrderServiceJpaTestSupport {
+
+    @MockitoBean
+    protected ActiveServiceZoneCache activeServiceZoneCache;
+
+    @MockitoBean
+    protected PaymentService paymentService;
+
+    @MockitoBean
+    protected SubscriptionSchedulingService subscriptionSchedulingService;
+
+    @MockitoBean
+    protected AuditService auditService;
+
+    @MockitoBean
+    protected PublishedOrderIndexService publishedOrderIndexService;
+
+    @MockitoBean
+    protected AddressDictionaryService addressDictionaryService;
+
+    @Autowired
+    protected OrderService orderService;
+
+    @Autowired
+    protected OrderRepository orderRepository;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+}
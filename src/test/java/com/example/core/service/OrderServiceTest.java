@@ -1,6 +1,7 @@
 package com.example.core.service;
 
 import com.example.core.dto.OrderAdminFilter;
+import com.example.core.dto.OrderClusteringOptions;
 import com.example.core.model.Order;
 import com.example.core.model.OrderStatus;
 import com.example.core.model.Subscription;
@@ -8,45 +9,39 @@ import com.example.core.model.SubscriptionStatus;
 import com.example.core.model.User;
 import com.example.core.model.UserRole;
 import com.example.core.repository.OrderRepository;
-import com.example.core.repository.ServiceZoneRepository;
 import com.example.core.repository.SubscriptionRepository;
+import com.example.core.util.KeysetCursor;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class OrderServiceTest {
 
+    private final OrderServiceFixture fixture = new OrderServiceFixture();
+    private final OrderService service = fixture.service;
+    private final OrderRepository orderRepository = fixture.orderRepository;
+    private final SubscriptionRepository subscriptionRepository = fixture.subscriptionRepository;
+    private final AuditService auditService = fixture.auditService;
+    private final PublishedOrderIndexService publishedOrderIndexService = fixture.publishedOrderIndexService;
+
     @Test
     void cancelByClientShouldRestoreSubscriptionUsage() {
-        OrderRepository orderRepository = mock(OrderRepository.class);
-        ServiceZoneRepository zoneRepository = mock(ServiceZoneRepository.class);
-        GeoUtils geoUtils = mock(GeoUtils.class);
-        PaymentService paymentService = mock(PaymentService.class);
-        SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
-        SubscriptionSchedulingService subscriptionSchedulingService = mock(SubscriptionSchedulingService.class);
-        AuditService auditService = mock(AuditService.class);
-
-        OrderService service = new OrderService(
-                orderRepository,
-                zoneRepository,
-                geoUtils,
-                paymentService,
-                subscriptionRepository,
-                subscriptionSchedulingService,
-                auditService
-        );
-
         User client = User.builder()
                 .id(10L)
                 .phone("+79990000000")
@@ -85,24 +80,6 @@ class OrderServiceTest {
 
     @Test
     void updateStatusByAdminShouldRejectInvalidTransition() {
-        OrderRepository orderRepository = mock(OrderRepository.class);
-        ServiceZoneRepository zoneRepository = mock(ServiceZoneRepository.class);
-        GeoUtils geoUtils = mock(GeoUtils.class);
-        PaymentService paymentService = mock(PaymentService.class);
-        SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
-        SubscriptionSchedulingService subscriptionSchedulingService = mock(SubscriptionSchedulingService.class);
-        AuditService auditService = mock(AuditService.class);
-
-        OrderService service = new OrderService(
-                orderRepository,
-                zoneRepository,
-                geoUtils,
-                paymentService,
-                subscriptionRepository,
-                subscriptionSchedulingService,
-                auditService
-        );
-
         User admin = User.builder()
                 .id(1L)
                 .phone("+79990000001")
@@ -126,24 +103,6 @@ class OrderServiceTest {
 
     @Test
     void updateStatusByAdminShouldAllowValidTransition() {
-        OrderRepository orderRepository = mock(OrderRepository.class);
-        ServiceZoneRepository zoneRepository = mock(ServiceZoneRepository.class);
-        GeoUtils geoUtils = mock(GeoUtils.class);
-        PaymentService paymentService = mock(PaymentService.class);
-        SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
-        SubscriptionSchedulingService subscriptionSchedulingService = mock(SubscriptionSchedulingService.class);
-        AuditService auditService = mock(AuditService.class);
-
-        OrderService service = new OrderService(
-                orderRepository,
-                zoneRepository,
-                geoUtils,
-                paymentService,
-                subscriptionRepository,
-                subscriptionSchedulingService,
-                auditService
-        );
-
         User admin = User.builder()
                 .id(1L)
                 .phone("+79990000001")
@@ -166,24 +125,6 @@ class OrderServiceTest {
 
     @Test
     void getFilteredOrdersForAdminShouldRejectNonAdmin() {
-        OrderRepository orderRepository = mock(OrderRepository.class);
-        ServiceZoneRepository zoneRepository = mock(ServiceZoneRepository.class);
-        GeoUtils geoUtils = mock(GeoUtils.class);
-        PaymentService paymentService = mock(PaymentService.class);
-        SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
-        SubscriptionSchedulingService subscriptionSchedulingService = mock(SubscriptionSchedulingService.class);
-        AuditService auditService = mock(AuditService.class);
-
-        OrderService service = new OrderService(
-                orderRepository,
-                zoneRepository,
-                geoUtils,
-                paymentService,
-                subscriptionRepository,
-                subscriptionSchedulingService,
-                auditService
-        );
-
         User client = User.builder()
                 .id(1L)
                 .phone("+79990000003")
@@ -194,30 +135,86 @@ class OrderServiceTest {
 
         assertThrows(
                 IllegalStateException.class,
-                () -> service.getFilteredOrdersForAdmin(client, OrderAdminFilter.builder().build(), 100)
+                () -> service.getFilteredOrdersForAdmin(client, OrderAdminFilter.builder().build(), null, 100)
         );
     }
 
     @Test
-    void acceptClusterByCourierShouldAcceptOrdersWhenSameDateSlotAndRadius() {
-        OrderRepository orderRepository = mock(OrderRepository.class);
-        ServiceZoneRepository zoneRepository = mock(ServiceZoneRepository.class);
-        GeoUtils geoUtils = mock(GeoUtils.class);
-        PaymentService paymentService = mock(PaymentService.class);
-        SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
-        SubscriptionSchedulingService subscriptionSchedulingService = mock(SubscriptionSchedulingService.class);
-        AuditService auditService = mock(AuditService.class);
-
-        OrderService service = new OrderService(
-                orderRepository,
-                zoneRepository,
-                geoUtils,
-                paymentService,
-                subscriptionRepository,
-                subscriptionSchedulingService,
-                auditService
+    @SuppressWarnings("unchecked")
+    void getOrdersPageForClientShouldReadOneExtraRowAndReturnCursorOfLastOrder() {
+        User client = User.builder()
+                .id(7L)
+                .phone("+79990000007")
+                .name("Client")
+                .password("x")
+                .userRole(UserRole.CLIENT)
+                .build();
+        OffsetDateTime createdAt = OffsetDateTime.parse("2026-03-01T10:00:00Z");
+        List<Order> rows = List.of(
+                Order.builder().id(30L).client(client).createdAt(createdAt.plusMinutes(2)).build(),
+                Order.builder().id(29L).client(client).createdAt(createdAt).build(),
+                Order.builder().id(28L).client(client).createdAt(createdAt).build()
         );
+        when(orderRepository.findBy(any(Specification.class), any(Function.class))).thenReturn(rows);
+
+        OrderService.OrderPage page = service.getOrdersPageForClient(client, null, 2);
+
+        assertEquals(List.of(30L, 29L), page.orders().stream().map(Order::getId).toList());
+        assertTrue(page.first());
+        assertEquals(new KeysetCursor(createdAt, 29L), KeysetCursor.decode(page.nextCursor()));
+
+        when(orderRepository.findBy(any(Specification.class), any(Function.class))).thenReturn(List.of(rows.get(2)));
+        OrderService.OrderPage next = service.getOrdersPageForClient(client, page.nextCursor(), 2);
 
+        assertEquals(1, next.orders().size());
+        assertFalse(next.first());
+        assertNull(next.nextCursor());
+        assertThrows(IllegalArgumentException.class, () -> service.getOrdersPageForClient(client, "not-a-cursor", 2));
+    }
+
+    @Test
+    void getOrderVisibleToShouldCheckVisibilityInTheLookupQuery() {
+        User courier = User.builder()
+                .id(5L)
+                .phone("+79990000005")
+                .name("Courier")
+                .password("x")
+                .userRole(UserRole.COURIER)
+                .build();
+        Order published = Order.builder().id(40L).status(OrderStatus.PUBLISHED).build();
+        when(orderRepository.findVisibleById(40L, UserRole.COURIER, 5L)).thenReturn(Optional.of(published));
+        when(orderRepository.findVisibleById(41L, UserRole.COURIER, 5L)).thenReturn(Optional.empty());
+
+        assertEquals(published, service.getOrderVisibleTo(40L, courier));
+        assertThrows(IllegalArgumentException.class, () -> service.getOrderVisibleTo(41L, courier));
+        verify(orderRepository, never()).findByStatusAndCourierIsNull(any());
+    }
+
+    @Test
+    void getOrderStatsForCourierShouldUseCountsWithoutLoadingOrders() {
+        User courier = User.builder()
+                .id(6L)
+                .phone("+79990000006")
+                .name("Courier")
+                .password("x")
+                .userRole(UserRole.COURIER)
+                .build();
+        when(publishedOrderIndexService.countPublished()).thenReturn(12);
+        when(orderRepository.countByCourierAndStatusIn(
+                courier,
+                List.of(OrderStatus.ACCEPTED, OrderStatus.ON_THE_WAY, OrderStatus.PICKED_UP)
+        )).thenReturn(3L);
+
+        var stats = service.getOrderStatsForCourier(courier);
+
+        assertEquals(12L, stats.get("availableCount"));
+        assertEquals(3L, stats.get("activeCount"));
+        verify(orderRepository, never()).findByStatusAndCourierIsNull(any());
+        verify(orderRepository, never()).findByCourier(any());
+    }
+
+    @Test
+    void acceptClusterByCourierShouldAcceptOrdersWhenSameDateSlotAndRadius() {
         User courier = User.builder()
                 .id(500L)
                 .phone("+79990000500")
@@ -242,9 +239,9 @@ class OrderServiceTest {
                 .lng(55.170020)
                 .build();
 
-        when(orderRepository.findByIdWithLock(10L)).thenReturn(Optional.of(first));
-        when(orderRepository.findByIdWithLock(11L)).thenReturn(Optional.of(second));
-        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderRepository.lockClaimable(List.of(10L, 11L))).thenReturn(List.of(first, second));
+        when(orderRepository.claimAllPublished(any(), any(User.class))).thenReturn(2);
+        when(orderRepository.findWithDetailsByIdIn(any())).thenReturn(List.of(second, first));
 
         List<Order> accepted = service.acceptClusterByCourier(courier, List.of(10L, 11L), 50.0);
 
@@ -253,29 +250,13 @@ class OrderServiceTest {
         assertEquals(OrderStatus.ACCEPTED, second.getStatus());
         assertEquals(courier, first.getCourier());
         assertEquals(courier, second.getCourier());
-        verify(orderRepository, times(2)).save(any(Order.class));
+        assertEquals(List.of(first, second), accepted);
+        verify(orderRepository, times(1)).claimAllPublished(any(), any(User.class));
+        verify(orderRepository, never()).save(any(Order.class));
     }
 
     @Test
     void acceptClusterByCourierShouldRejectDifferentSlots() {
-        OrderRepository orderRepository = mock(OrderRepository.class);
-        ServiceZoneRepository zoneRepository = mock(ServiceZoneRepository.class);
-        GeoUtils geoUtils = mock(GeoUtils.class);
-        PaymentService paymentService = mock(PaymentService.class);
-        SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
-        SubscriptionSchedulingService subscriptionSchedulingService = mock(SubscriptionSchedulingService.class);
-        AuditService auditService = mock(AuditService.class);
-
-        OrderService service = new OrderService(
-                orderRepository,
-                zoneRepository,
-                geoUtils,
-                paymentService,
-                subscriptionRepository,
-                subscriptionSchedulingService,
-                auditService
-        );
-
         User courier = User.builder()
                 .id(500L)
                 .phone("+79990000500")
@@ -302,12 +283,76 @@ class OrderServiceTest {
                 .lng(55.170010)
                 .build();
 
-        when(orderRepository.findByIdWithLock(20L)).thenReturn(Optional.of(first));
-        when(orderRepository.findByIdWithLock(21L)).thenReturn(Optional.of(second));
+        when(orderRepository.lockClaimable(List.of(20L, 21L))).thenReturn(List.of(first, second));
 
         assertThrows(
                 IllegalStateException.class,
                 () -> service.acceptClusterByCourier(courier, List.of(20L, 21L), 50.0)
         );
+        verify(orderRepository, never()).claimAllPublished(any(), any(User.class));
+    }
+
+    @Test
+    void acceptOrderShouldRejectCourierWhoLostTheClaim() {
+        User winner = User.builder().id(5L).userRole(UserRole.COURIER).build();
+        User loser = User.builder().id(6L).userRole(UserRole.COURIER).build();
+        Order claimed = Order.builder().id(30L).status(OrderStatus.ACCEPTED).courier(winner).build();
+        // Победитель ещё не закоммитил: строка заблокирована, но в снимке заказ пока свободен.
+        Order beingClaimed = Order.builder().id(32L).status(OrderStatus.PUBLISHED).build();
+
+        when(orderRepository.lockClaimable(List.of(30L))).thenReturn(List.of());
+        when(orderRepository.lockClaimable(List.of(31L))).thenReturn(List.of());
+        when(orderRepository.lockClaimable(List.of(32L))).thenReturn(List.of());
+        when(orderRepository.findById(30L)).thenReturn(Optional.of(claimed));
+        when(orderRepository.findById(31L)).thenReturn(Optional.empty());
+        when(orderRepository.findById(32L)).thenReturn(Optional.of(beingClaimed));
+
+        IllegalStateException conflict = assertThrows(IllegalStateException.class, () -> service.acceptOrder(30L, loser));
+        assertThrows(IllegalArgumentException.class, () -> service.acceptOrder(31L, loser));
+        IllegalStateException inProgress = assertThrows(IllegalStateException.class, () -> service.acceptOrder(32L, loser));
+
+        assertEquals("Заказ уже принят другим курьером", conflict.getMessage());
+        assertEquals("Заказ сейчас принимает другой курьер", inProgress.getMessage());
+        assertEquals(winner, claimed.getCourier());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(publishedOrderIndexService, never()).onOrderChanged(any());
+        verify(auditService, never()).log(any(), any(), any(User.class), any(), any(), any(), any());
+    }
+
+    @Test
+    void partialClusterAcceptShouldClaimFreeOrdersAndReportLostOnes() {
+        User courier = User.builder().id(500L).userRole(UserRole.COURIER).build();
+        OffsetDateTime pickupTime = OffsetDateTime.now().plusDays(1).withHour(8).withMinute(20).withSecond(0).withNano(0);
+        Order first = Order.builder().id(10L).status(OrderStatus.PUBLISHED).pickupTime(pickupTime)
+                .lat(51.820000).lng(55.170000).build();
+        Order second = Order.builder().id(11L).status(OrderStatus.PUBLISHED).pickupTime(pickupTime.plusMinutes(10))
+                .lat(51.820160).lng(55.170020).build();
+        Order taken = Order.builder().id(12L).status(OrderStatus.ACCEPTED).pickupTime(pickupTime).build();
+        OrderClusteringOptions options = OrderClusteringOptions.builder().radiusMeters(50.0).build();
+
+        when(orderRepository.lockClaimable(List.of(10L, 11L, 12L))).thenReturn(List.of(first, second));
+        when(orderRepository.claimAllPublished(any(), any(User.class))).thenReturn(2);
+        when(orderRepository.findWithDetailsByIdIn(any())).thenReturn(List.of(first, second));
+        when(orderRepository.findAllById(List.of(12L))).thenReturn(List.of(taken));
+
+        OrderService.ClusterClaim claim = service.acceptClusterPartiallyByCourier(courier, List.of(12L, 11L, 10L), options);
+
+        assertEquals(List.of(first, second), claim.claimed());
+        assertEquals(List.of(12L), claim.lostOrderIds());
+        assertEquals(courier, first.getCourier());
+        verify(auditService, times(1)).logAll(
+                "ORDER_STATUS_CHANGE",
+                "SUCCESS",
+                courier,
+                "ORDER_ID",
+                List.of("10", "11"),
+                "Courier accepted via cluster: PUBLISHED -> ACCEPTED"
+        );
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> service.acceptClusterByCourier(courier, List.of(10L, 11L, 12L), options)
+        );
+        verify(orderRepository, times(1)).claimAllPublished(any(), any(User.class));
     }
 }
@@ -0,0 +1,181 @@
+package com.example.core.service;
+
+import com.example.core.dto.AvailableOrderEvent;
+import com.example.core.dto.OrderClusteringOptions;
+import com.example.core.dto.OrderClusteringResponse;
+import com.example.core.model.Order;
+import com.example.core.model.OrderStatus;
+import com.example.core.model.User;
+import com.example.core.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PublishedOrderIndexServiceTest {
+
+    private final OffsetDateTime base = OffsetDateTime.now()
+            .plusDays(1)
+            .withHour(8)
+            .withMinute(30)
+            .withSecond(0)
+            .withNano(0);
+
+    @Test
+    void clusterPublishedOrdersShouldApplyIncrementalChangesWithoutReloading() {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        OrderClusteringService clusteringService = new OrderClusteringService();
+        PublishedOrderIndexService index = new PublishedOrderIndexService(orderRepository, clusteringService, new AvailableOrderFeed());
+
+        Order first = published(1L, 51.820000, 55.170000, base);
+        Order second = published(2L, 51.820180, 55.170030, base.plusMinutes(15));
+        when(orderRepository.findByStatusAndCourierIsNull(OrderStatus.PUBLISHED)).thenReturn(List.of(first, second));
+
+        OrderClusteringResponse initial = index.clusterPublishedOrders(50.0, 500);
+        assertEquals(1, initial.getClusters().size());
+        assertEquals(2, initial.getClusters().get(0).getOrderCount());
+
+        Order third = published(3L, 51.830000, 55.180000, base.plusHours(5));
+        index.onOrderChanged(third);
+
+        second.setStatus(OrderStatus.ACCEPTED);
+        second.setCourier(User.builder().id(500L).build());
+        index.onOrderChanged(second);
+
+        OrderClusteringResponse updated = index.clusterPublishedOrders(50.0, 500);
+        OrderClusteringResponse expected = clusteringService.clusterOrders(List.of(first, third), 50.0);
+        assertEquals(expected, updated);
+        assertEquals(2, index.countPublished());
+        verify(orderRepository, times(1)).findByStatusAndCourierIsNull(OrderStatus.PUBLISHED);
+    }
+
+    @Test
+    void findNearestShouldReturnClosestOrdersAndReflectChanges() {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        PublishedOrderIndexService index = new PublishedOrderIndexService(orderRepository, new OrderClusteringService(), new AvailableOrderFeed());
+
+        Order near = published(1L, 51.820100, 55.170000, base);
+        Order middle = published(2L, 51.822000, 55.170000, base);
+        Order far = published(3L, 51.900000, 55.170000, base);
+        when(orderRepository.findByStatusAndCourierIsNull(OrderStatus.PUBLISHED)).thenReturn(List.of(far, near, middle));
+
+        List<OrderKdTree.Neighbor> nearest = index.findNearest(51.820000, 55.170000, 2);
+        assertEquals(List.of(1L, 2L), nearest.stream().map(OrderKdTree.Neighbor::orderId).toList());
+        assertEquals(11.1, nearest.get(0).distanceMeters(), 0.1);
+
+        near.setStatus(OrderStatus.ACCEPTED);
+        near.setCourier(User.builder().id(500L).build());
+        index.onOrderChanged(near);
+
+        List<OrderKdTree.Neighbor> updated = index.findNearest(51.820000, 55.170000, 2);
+        assertEquals(List.of(2L, 3L), updated.stream().map(OrderKdTree.Neighbor::orderId).toList());
+    }
+
+    @Test
+    void orderChangesShouldBeWrittenToFeedAsDeltasAfterSnapshot() throws InterruptedException {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        AvailableOrderFeed feed = new AvailableOrderFeed();
+        PublishedOrderIndexService index = new PublishedOrderIndexService(orderRepository, new OrderClusteringService(), feed);
+
+        Order first = published(1L, 51.820000, 55.170000, base);
+        Order second = published(2L, 51.821000, 55.170000, base);
+        when(orderRepository.findByStatusAndCourierIsNull(OrderStatus.PUBLISHED)).thenReturn(List.of(first, second));
+
+        PublishedOrderIndexService.AvailableSnapshot snapshot = index.snapshotAvailable();
+        assertEquals(List.of(1L, 2L), snapshot.orders().stream().map(AvailableOrderEvent::getOrderId).toList());
+        assertEquals(0, snapshot.sequence());
+
+        index.onOrderChanged(published(3L, 51.830000, 55.180000, base.plusHours(1)));
+        index.onOrderChanged(first);
+        first.setStatus(OrderStatus.ACCEPTED);
+        first.setCourier(User.builder().id(500L).build());
+        index.onOrderChanged(first);
+        second.setStatus(OrderStatus.CANCELLED_BY_CUSTOMER);
+        index.onOrderChanged(second);
+
+        // Повторная публикация без изменений события не даёт.
+        AvailableOrderFeed.Replay replay = feed.awaitAfter(snapshot.sequence(), Duration.ZERO);
+        assertEquals(
+                List.of(AvailableOrderFeed.EventType.PUBLISHED, AvailableOrderFeed.EventType.CLAIMED, AvailableOrderFeed.EventType.CANCELLED),
+                replay.events().stream().map(AvailableOrderFeed.Event::type).toList()
+        );
+        assertEquals(List.of(3L, 1L, 2L), replay.events().stream().map(event -> event.payload().getOrderId()).toList());
+
+        Order fromOtherNode = published(4L, 51.840000, 55.190000, base);
+        when(orderRepository.findByStatusAndCourierIsNull(OrderStatus.PUBLISHED)).thenReturn(List.of(fromOtherNode));
+        index.resync();
+
+        List<AvailableOrderFeed.Event> resynced = feed.awaitAfter(replay.events().get(2).sequence(), Duration.ZERO).events();
+        assertEquals(2, resynced.size());
+        assertEquals(AvailableOrderFeed.EventType.PUBLISHED, resynced.get(0).type());
+        assertEquals(4L, resynced.get(0).payload().getOrderId());
+        assertEquals(AvailableOrderFeed.EventType.REMOVED, resynced.get(1).type());
+        assertEquals(3L, resynced.get(1).payload().getOrderId());
+    }
+
+    @Test
+    void changesShouldApplyWhileClusteringRunsOnPreviousSnapshot() throws Exception {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        CountDownLatch clusteringStarted = new CountDownLatch(1);
+        CountDownLatch releaseClustering = new CountDownLatch(1);
+        OrderClusteringService clusteringService = new OrderClusteringService() {
+            @Override
+            public OrderClusteringResponse clusterOrders(List<Order> orders, OrderClusteringOptions options) {
+                clusteringStarted.countDown();
+                try {
+                    releaseClustering.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.clusterOrders(orders, options);
+            }
+        };
+        PublishedOrderIndexService index = new PublishedOrderIndexService(orderRepository, clusteringService, new AvailableOrderFeed());
+        when(orderRepository.findByStatusAndCourierIsNull(OrderStatus.PUBLISHED))
+                .thenReturn(List.of(published(1L, 51.820000, 55.170000, base)));
+        assertEquals(1, index.countPublished());
+
+        try {
+            CompletableFuture<OrderClusteringResponse> inFlight =
+                    CompletableFuture.supplyAsync(() -> index.clusterPublishedOrders(50.0, 500));
+            assertTrue(clusteringStarted.await(5, TimeUnit.SECONDS));
+
+            // Кластеризация держит только свой снимок: изменение и чтения не ждут её завершения.
+            assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> index.onOrderChanged(published(2L, 51.830000, 55.180000, base)));
+            assertEquals(2, index.countPublished());
+            assertEquals(List.of(2L), index.findNearest(51.830000, 55.180000, 1).stream()
+                    .map(OrderKdTree.Neighbor::orderId)
+                    .toList());
+
+            releaseClustering.countDown();
+            assertEquals(1, inFlight.get(5, TimeUnit.SECONDS).getSourceOrders());
+            assertEquals(2, index.clusterPublishedOrders(50.0, 500).getSourceOrders());
+        } finally {
+            releaseClustering.countDown();
+        }
+    }
+
+    private Order published(Long id, double lat, double lng, OffsetDateTime pickupTime) {
+        return Order.builder()
+                .id(id)
+                .address("Оренбург, ул. Тестовая, " + id)
+                .lat(lat)
+                .lng(lng)
+                .pickupTime(pickupTime)
+                .status(OrderStatus.PUBLISHED)
+                .build();
+    }
+}
@@ -6,7 +6,6 @@ import com.example.core.model.SubscriptionPlan;
 import com.example.core.model.SubscriptionStatus;
 import com.example.core.model.User;
 import com.example.core.model.UserRole;
-import com.example.core.repository.ServiceZoneRepository;
 import com.example.core.repository.SubscriptionRepository;
 import com.example.core.repository.UserRepository;
 import org.junit.jupiter.api.Test;
@@ -37,11 +36,11 @@ class SubscriptionServiceTest {
         SubscriptionService service = new SubscriptionService(
                 subscriptionRepository,
                 userRepository,
-                mock(ServiceZoneRepository.class),
-                mock(GeoUtils.class),
+                mock(ActiveServiceZoneCache.class),
                 mock(GeocodingService.class),
                 mock(SubscriptionSchedulingService.class),
-                mock(AuditService.class)
+                mock(AuditService.class),
+                mock(AddressDictionaryService.class)
         );
 
         User user = User.builder()
@@ -106,11 +105,11 @@ class SubscriptionServiceTest {
         SubscriptionService service = new SubscriptionService(
                 subscriptionRepository,
                 userRepository,
-                mock(ServiceZoneRepository.class),
-                mock(GeoUtils.class),
+                mock(ActiveServiceZoneCache.class),
                 mock(GeocodingService.class),
                 schedulingService,
-                mock(AuditService.class)
+                mock(AuditService.class),
+                mock(AddressDictionaryService.class)
         );
 
         User user = User.builder()
@@ -155,11 +154,11 @@ class SubscriptionServiceTest {
         SubscriptionService service = new SubscriptionService(
                 subscriptionRepository,
                 userRepository,
-                mock(ServiceZoneRepository.class),
-                mock(GeoUtils.class),
+                mock(ActiveServiceZoneCache.class),
                 mock(GeocodingService.class),
                 schedulingService,
-                mock(AuditService.class)
+                mock(AuditService.class),
+                mock(AddressDictionaryService.class)
         );
 
         User user = User.builder()
@@ -209,11 +208,11 @@ class SubscriptionServiceTest {
         SubscriptionService service = new SubscriptionService(
                 subscriptionRepository,
                 userRepository,
-                mock(ServiceZoneRepository.class),
-                mock(GeoUtils.class),
+                mock(ActiveServiceZoneCache.class),
                 mock(GeocodingService.class),
                 mock(SubscriptionSchedulingService.class),
-                mock(AuditService.class)
+                mock(AuditService.class),
+                mock(AddressDictionaryService.class)
         );
 
         User user = User.builder()
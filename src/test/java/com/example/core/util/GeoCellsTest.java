@@ -0,0 +1,43 @@
+package com.example.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoCellsTest {
+
+    @Test
+    void coveringCellsShouldContainCellOfEveryPointInsideRadiusBox() {
+        GeoCells.BoundingBox box = GeoCells.BoundingBox.around(51.7682, 55.0970, 2_000.0);
+        List<Long> cells = GeoCells.covering(box);
+
+        for (int i = 0; i <= 10; i++) {
+            for (int j = 0; j <= 10; j++) {
+                double pointLat = box.minLat() + (box.maxLat() - box.minLat()) * i / 10.0;
+                double pointLng = box.minLng() + (box.maxLng() - box.minLng()) * j / 10.0;
+                assertTrue(cells.contains(GeoCells.cellOf(pointLat, pointLng)));
+            }
+        }
+    }
+
+    @Test
+    void cellOfShouldMatchMigrationFormula() {
+        // floor((51.7682 + 90) / 0.01) * 36000 + floor((55.097 + 180) / 0.01)
+        assertEquals(14176L * 36000 + 23509, GeoCells.cellOf(51.7682, 55.097));
+    }
+
+    @Test
+    void coveringShouldBeEmptyForTooLargeArea() {
+        assertEquals(List.of(), GeoCells.covering(new GeoCells.BoundingBox(40.0, 60.0, 30.0, 60.0)));
+    }
+
+    @Test
+    void cellOfShouldReturnNullWithoutCoordinates() {
+        assertNull(GeoCells.cellOf(null, 55.0));
+        assertNull(GeoCells.cellOf(51.0, Double.NaN));
+    }
+}